@@ -0,0 +1,150 @@
+package cordova.plugins;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.cordova.CallbackContext;
+import org.json.JSONArray;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Compares dispatching a core module action through DiagnosticActionRegistry
+ * with the action.equals() if/else chain it replaced.
+ * Handlers are no-ops so that only the dispatch cost is measured. registry() looks up and invokes the handler
+ * as the if/else chain does; registryWithMetrics() goes through dispatch(), which also times the action
+ * and records it in DiagnosticMetrics via Diagnostic.runAction().
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ActionDispatchBenchmark {
+
+    /**
+     * Core module actions in the order they were tested by the if/else chain.
+     */
+    static final String[] ACTIONS = {
+        "enableDebug",
+        "switchToSettings",
+        "switchToMobileDataSettings",
+        "switchToWirelessSettings",
+        "isDataRoamingEnabled",
+        "getPermissionAuthorizationStatus",
+        "getPermissionsAuthorizationStatus",
+        "requestRuntimePermission",
+        "requestRuntimePermissions",
+        "isADBModeEnabled",
+        "isDeviceRooted",
+        "isMobileDataEnabled",
+        "restart",
+        "getArchitecture",
+        "getCurrentBatteryLevel",
+        "isAirplaneModeEnabled",
+        "getDeviceOSVersion",
+        "getBuildOSVersion"
+    };
+
+    @Param({"enableDebug", "isDeviceRooted", "getBuildOSVersion"})
+    public String action;
+
+    private String bridgeAction;
+    private DiagnosticActionRegistry registry;
+    private JSONArray args;
+    private CallbackContext callbackContext;
+    private Blackhole blackhole;
+
+    @Setup
+    public void setup(Blackhole blackhole) {
+        this.blackhole = blackhole;
+        // Action names arrive from the bridge as fresh strings, so equals() cannot short-circuit on identity
+        bridgeAction = new String(action.toCharArray());
+        args = new JSONArray();
+        callbackContext = new CallbackContext("bench", null);
+        registry = new DiagnosticActionRegistry(new Diagnostic());
+        for (int i = 0; i < ACTIONS.length; i++) {
+            final int id = i;
+            registry.register(ACTIONS[i], new DiagnosticActionRegistry.Action() {
+                @Override
+                public void execute(JSONArray args, CallbackContext callbackContext) {
+                    ActionDispatchBenchmark.this.blackhole.consume(id);
+                }
+            });
+        }
+    }
+
+    @Benchmark
+    public boolean registry() throws Exception {
+        DiagnosticActionRegistry.Action handler = registry.get(bridgeAction);
+        if (handler == null) {
+            return false;
+        }
+        handler.execute(args, callbackContext);
+        return true;
+    }
+
+    @Benchmark
+    public boolean registryWithMetrics() {
+        return registry.dispatch(bridgeAction, args, callbackContext);
+    }
+
+    @Benchmark
+    public boolean ifElseChain() {
+        String action = bridgeAction;
+        try {
+            if (action.equals("enableDebug")) {
+                blackhole.consume(0);
+            } else if (action.equals("switchToSettings")) {
+                blackhole.consume(1);
+            } else if (action.equals("switchToMobileDataSettings")) {
+                blackhole.consume(2);
+            } else if (action.equals("switchToWirelessSettings")) {
+                blackhole.consume(3);
+            } else if (action.equals("isDataRoamingEnabled")) {
+                blackhole.consume(4);
+            } else if (action.equals("getPermissionAuthorizationStatus")) {
+                blackhole.consume(5);
+            } else if (action.equals("getPermissionsAuthorizationStatus")) {
+                blackhole.consume(6);
+            } else if (action.equals("requestRuntimePermission")) {
+                blackhole.consume(7);
+            } else if (action.equals("requestRuntimePermissions")) {
+                blackhole.consume(8);
+            } else if (action.equals("isADBModeEnabled")) {
+                blackhole.consume(9);
+            } else if (action.equals("isDeviceRooted")) {
+                blackhole.consume(10);
+            } else if (action.equals("isMobileDataEnabled")) {
+                blackhole.consume(11);
+            } else if (action.equals("restart")) {
+                blackhole.consume(12);
+            } else if (action.equals("getArchitecture")) {
+                blackhole.consume(13);
+            } else if (action.equals("getCurrentBatteryLevel")) {
+                blackhole.consume(14);
+            } else if (action.equals("isAirplaneModeEnabled")) {
+                blackhole.consume(15);
+            } else if (action.equals("getDeviceOSVersion")) {
+                blackhole.consume(16);
+            } else if (action.equals("getBuildOSVersion")) {
+                blackhole.consume(17);
+            } else {
+                return false;
+            }
+        } catch (Exception e) {
+            return false;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,167 @@
+package cordova.plugins;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.cordova.CordovaInterface;
+import org.apache.cordova.CordovaPlugin;
+import org.apache.cordova.CordovaWebView;
+import org.apache.cordova.PluginManager;
+import org.apache.cordova.PluginResult;
+
+import android.app.Activity;
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.content.pm.PackageManager;
+
+/**
+ * An initialised plugin with all modules installed, running against the stand-ins.
+ *
+ * Device state is read from deviceState, a FakeDeviceStateProvider which benchmarks script directly.
+ * Runtime permissions are granted by adding them to grantedPermissions; requestPermissions() calls are counted but
+ * never answered, so benchmarks deliver results by calling onRequestPermissionResult() themselves.
+ * Results sent to JS are counted and discarded.
+ */
+final class BenchmarkPlatform {
+
+    static final String PACKAGE_NAME = "cordova.plugins.diagnostic.benchmarks";
+
+    /**
+     * App-specific directories on the emulated primary storage and a removable SD card
+     */
+    static final File[] EXTERNAL_FILES_DIRS = {
+        new File("/storage/emulated/0/Android/data/" + PACKAGE_NAME + "/files"),
+        new File("/storage/1A2B-3C4D/Android/data/" + PACKAGE_NAME + "/files")
+    };
+
+    final Set<String> grantedPermissions = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+    final AtomicLong permissionRequests = new AtomicLong();
+    final AtomicLong pluginResults = new AtomicLong();
+
+    final Activity activity;
+    final CordovaInterface cordova;
+    final CordovaWebView webView;
+    final PluginManager pluginManager = new PluginManager();
+
+    final PackageManager packageManager = new PackageManager();
+    final FakeDeviceStateProvider deviceState = new FakeDeviceStateProvider();
+
+    final Diagnostic diagnostic;
+    final Diagnostic_Location location;
+    final Diagnostic_Bluetooth bluetooth;
+    final Diagnostic_Wifi wifi;
+    final Diagnostic_Camera camera;
+    final Diagnostic_Notifications notifications;
+    final Diagnostic_NFC nfc;
+    final Diagnostic_External_Storage externalStorage;
+
+    private final ExecutorService threadPool = Executors.newCachedThreadPool(new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "CordovaThreadPool");
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
+
+    private final Map<String, SharedPreferences> preferences = new HashMap<String, SharedPreferences>();
+
+    BenchmarkPlatform() {
+        activity = new Activity() {
+            @Override
+            public String getPackageName() {
+                return PACKAGE_NAME;
+            }
+
+            @Override
+            public PackageManager getPackageManager() {
+                return packageManager;
+            }
+
+            @Override
+            public SharedPreferences getSharedPreferences(String name, int mode) {
+                synchronized (preferences) {
+                    SharedPreferences prefs = preferences.get(name);
+                    if (prefs == null) {
+                        prefs = new InMemorySharedPreferences();
+                        preferences.put(name, prefs);
+                    }
+                    return prefs;
+                }
+            }
+        };
+
+        cordova = new CordovaInterface() {
+            @Override
+            public Activity getActivity() {
+                return activity;
+            }
+
+            @Override
+            public Context getContext() {
+                return activity;
+            }
+
+            @Override
+            public ExecutorService getThreadPool() {
+                return threadPool;
+            }
+
+            @Override
+            public void requestPermissions(CordovaPlugin plugin, int requestCode, String[] permissions) {
+                permissionRequests.incrementAndGet();
+            }
+
+            @Override
+            public boolean hasPermission(String permission) {
+                return grantedPermissions.contains(permission);
+            }
+        };
+
+        webView = new CordovaWebView() {
+            @Override
+            public void loadUrl(String url) {}
+
+            @Override
+            public void sendPluginResult(PluginResult cr, String callbackId) {
+                pluginResults.incrementAndGet();
+            }
+
+            @Override
+            public PluginManager getPluginManager() {
+                return pluginManager;
+            }
+        };
+
+        // Core module first: the other modules look it up on initialisation
+        Diagnostic core = new Diagnostic();
+        core.deviceState = deviceState;
+        diagnostic = install("Diagnostic", core);
+        location = install("Diagnostic_Location", new Diagnostic_Location());
+        bluetooth = install("Diagnostic_Bluetooth", new Diagnostic_Bluetooth());
+        wifi = install("Diagnostic_Wifi", new Diagnostic_Wifi());
+        camera = install("Diagnostic_Camera", new Diagnostic_Camera());
+        notifications = install("Diagnostic_Notifications", new Diagnostic_Notifications());
+        nfc = install("Diagnostic_NFC", new Diagnostic_NFC());
+        externalStorage = install("Diagnostic_External_Storage", new Diagnostic_External_Storage());
+        diagnostic.permissionStore.awaitLoaded();
+    }
+
+    <T extends CordovaPlugin> T install(String service, T plugin) {
+        plugin.privateInitialize(service, cordova, webView);
+        pluginManager.addService(service, plugin);
+        return plugin;
+    }
+
+    void shutdown() {
+        threadPool.shutdownNow();
+    }
+}
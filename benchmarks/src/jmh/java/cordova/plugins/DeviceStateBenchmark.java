@@ -0,0 +1,96 @@
+package cordova.plugins;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.cordova.CallbackContext;
+import org.apache.cordova.CordovaPlugin;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import android.bluetooth.BluetoothAdapter;
+import android.location.LocationManager;
+
+/**
+ * Throughput of device state queries from several bridge threads at once while the device state keeps changing,
+ * with the state served by FakeDeviceStateProvider.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Group)
+public class DeviceStateBenchmark {
+
+    private static final String[][] QUERIES = {
+        {"Diagnostic_Location", "getLocationMode"},
+        {"Diagnostic_Location", "isLocationAvailable"},
+        {"Diagnostic_Bluetooth", "getBluetoothState"},
+        {"Diagnostic_Bluetooth", "isBluetoothAvailable"},
+        {"Diagnostic_Wifi", "isWifiAvailable"},
+        {"Diagnostic_NFC", "isNFCAvailable"},
+        {"Diagnostic", "isAirplaneModeEnabled"},
+        {"Diagnostic", "getCurrentBatteryLevel"}
+    };
+
+    private BenchmarkPlatform platform;
+    private CordovaPlugin[] plugins;
+    private CallbackContext callbackContext;
+    private final JSONArray args = new JSONArray();
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next;
+        boolean toggle;
+    }
+
+    @Setup
+    public void setup() {
+        platform = new BenchmarkPlatform();
+        platform.grantedPermissions.add("android.permission.ACCESS_FINE_LOCATION");
+        plugins = new CordovaPlugin[QUERIES.length];
+        for (int i = 0; i < QUERIES.length; i++) {
+            plugins[i] = platform.pluginManager.getPlugin(QUERIES[i][0]);
+        }
+        callbackContext = new CallbackContext("bench", platform.webView);
+    }
+
+    @TearDown
+    public void tearDown() {
+        platform.shutdown();
+    }
+
+    @Benchmark
+    @Group("queries")
+    @GroupThreads(4)
+    public boolean query(Cursor cursor) throws JSONException {
+        int i = cursor.next++ & (QUERIES.length - 1);
+        return plugins[i].execute(QUERIES[i][1], args, callbackContext);
+    }
+
+    @Benchmark
+    @Group("queries")
+    @GroupThreads(1)
+    public void changeState(Cursor cursor) {
+        FakeDeviceStateProvider deviceState = platform.deviceState;
+        boolean on = cursor.toggle = !cursor.toggle;
+        deviceState.bluetoothState = on ? BluetoothAdapter.STATE_ON : BluetoothAdapter.STATE_OFF;
+        deviceState.setLocationProviderEnabled(LocationManager.NETWORK_PROVIDER, on);
+        deviceState.wifiEnabled = on;
+        deviceState.nfcEnabled = on;
+        deviceState.batteryLevel = on ? 80 : 20;
+    }
+}
@@ -0,0 +1,73 @@
+package cordova.plugins;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.cordova.CallbackContext;
+import org.apache.cordova.CordovaPlugin;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * End-to-end cost of an inline action as called from the Cordova bridge:
+ * execute() on an initialised module, dispatch, metrics and sending the result.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ExecuteBenchmark {
+
+    /**
+     * service:action
+     */
+    @Param({
+        "Diagnostic:isAirplaneModeEnabled",
+        "Diagnostic:getPermissionAuthorizationStatus",
+        "Diagnostic_Bluetooth:getBluetoothState",
+        "Diagnostic_Location:getLocationMode"
+    })
+    public String call;
+
+    private BenchmarkPlatform platform;
+    private CordovaPlugin plugin;
+    private String action;
+    private JSONArray args;
+    private CallbackContext callbackContext;
+
+    @Setup
+    public void setup() throws JSONException {
+        platform = new BenchmarkPlatform();
+        String[] parts = call.split(":");
+        plugin = platform.pluginManager.getPlugin(parts[0]);
+        action = parts[1];
+        args = new JSONArray();
+        if (action.equals("getPermissionAuthorizationStatus")) {
+            args.put("CAMERA");
+        }
+        callbackContext = new CallbackContext("bench", platform.webView);
+    }
+
+    @TearDown
+    public void tearDown() {
+        platform.shutdown();
+    }
+
+    @Benchmark
+    public boolean execute() throws JSONException {
+        return plugin.execute(action, args, callbackContext);
+    }
+}
@@ -0,0 +1,236 @@
+package cordova.plugins;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import android.bluetooth.BluetoothAdapter;
+import android.content.pm.ApplicationInfo;
+import android.content.pm.PackageInfo;
+import android.content.pm.PackageManager;
+import android.location.LocationManager;
+import android.provider.Settings;
+
+/**
+ * In-memory DiagnosticDeviceStateProvider whose state is scripted by assigning its fields or calling its setters.
+ *
+ * Models a device with Bluetooth, BLE, NFC, Wifi, two cameras, all location providers enabled and one removable SD card
+ * mounted under /storage/1A2B-3C4D. Reads are plain field or concurrent map lookups, so it can be shared by
+ * any number of benchmark threads while another thread changes state.
+ *
+ * Each call answers immediately unless serviceCallNanos is set, in which case it busy-waits for that long
+ * to stand in for the binder round trip of a real system service call.
+ */
+final class FakeDeviceStateProvider implements DiagnosticDeviceStateProvider {
+
+    final Map<String, Integer> globalSettings = new ConcurrentHashMap<String, Integer>();
+    final Map<String, Integer> secureSettings = new ConcurrentHashMap<String, Integer>();
+    final Map<String, Integer> systemSettings = new ConcurrentHashMap<String, Integer>();
+
+    final Set<String> systemFeatures = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+    final Set<String> enabledLocationProviders = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+    final Set<String> removableVolumes = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+
+    volatile PackageInfo packageInfo = new PackageInfo();
+    volatile ApplicationInfo applicationInfo = new ApplicationInfo();
+
+    volatile int bluetoothState = BluetoothAdapter.STATE_ON;
+    volatile boolean bluetoothMultipleAdvertisementSupported = true;
+    volatile boolean nfcPresent = true;
+    volatile boolean nfcEnabled = true;
+    volatile boolean wifiEnabled = true;
+    volatile boolean mobileDataEnabled = true;
+    volatile int numberOfCameras = 2;
+    volatile int batteryLevel = 100;
+    volatile long freeSpace = 16L * 1024 * 1024 * 1024;
+    volatile File[] externalFilesDirs = BenchmarkPlatform.EXTERNAL_FILES_DIRS;
+    volatile boolean notificationsEnabled = true;
+    volatile boolean ignoringBatteryOptimizations;
+
+    volatile long serviceCallNanos = 0;
+
+    FakeDeviceStateProvider() {
+        systemFeatures.add(PackageManager.FEATURE_BLUETOOTH);
+        systemFeatures.add(PackageManager.FEATURE_BLUETOOTH_LE);
+        systemFeatures.add(PackageManager.FEATURE_CAMERA);
+        enabledLocationProviders.add(LocationManager.GPS_PROVIDER);
+        enabledLocationProviders.add(LocationManager.NETWORK_PROVIDER);
+        removableVolumes.add("/storage/1A2B-3C4D");
+    }
+
+    void setLocationProviderEnabled(String provider, boolean enabled) {
+        if (enabled) {
+            enabledLocationProviders.add(provider);
+        } else {
+            enabledLocationProviders.remove(provider);
+        }
+    }
+
+    @Override
+    public int getGlobalSetting(String name, int def) {
+        serviceCall();
+        return get(globalSettings, name, def);
+    }
+
+    @Override
+    public int getSecureSetting(String name, int def) {
+        serviceCall();
+        return get(secureSettings, name, def);
+    }
+
+    @Override
+    public int getSecureSetting(String name) throws Settings.SettingNotFoundException {
+        serviceCall();
+        Integer value = secureSettings.get(name);
+        if (value == null) {
+            throw new Settings.SettingNotFoundException(name);
+        }
+        return value;
+    }
+
+    @Override
+    public int getSystemSetting(String name, int def) {
+        serviceCall();
+        return get(systemSettings, name, def);
+    }
+
+    @Override
+    public boolean hasSystemFeature(String feature) {
+        serviceCall();
+        return systemFeatures.contains(feature);
+    }
+
+    @Override
+    public PackageInfo getPackageInfo(int flags) {
+        serviceCall();
+        return packageInfo;
+    }
+
+    @Override
+    public ApplicationInfo getApplicationInfo(int flags) {
+        serviceCall();
+        return applicationInfo;
+    }
+
+    @Override
+    public int getBluetoothState() {
+        serviceCall();
+        return bluetoothState;
+    }
+
+    @Override
+    public boolean isBluetoothMultipleAdvertisementSupported() {
+        serviceCall();
+        return bluetoothState != BLUETOOTH_ADAPTER_NONE && bluetoothMultipleAdvertisementSupported;
+    }
+
+    @Override
+    public boolean setBluetoothEnabled(boolean enabled) {
+        serviceCall();
+        if (bluetoothState == BLUETOOTH_ADAPTER_NONE) {
+            return false;
+        }
+        bluetoothState = enabled ? BluetoothAdapter.STATE_ON : BluetoothAdapter.STATE_OFF;
+        return true;
+    }
+
+    @Override
+    public boolean isLocationProviderEnabled(String provider) {
+        serviceCall();
+        return enabledLocationProviders.contains(provider);
+    }
+
+    @Override
+    public boolean hasNfcAdapter() {
+        serviceCall();
+        return nfcPresent;
+    }
+
+    @Override
+    public boolean isNfcEnabled() {
+        serviceCall();
+        return nfcPresent && nfcEnabled;
+    }
+
+    @Override
+    public boolean isWifiEnabled() {
+        serviceCall();
+        return wifiEnabled;
+    }
+
+    @Override
+    public boolean setWifiEnabled(boolean enabled) {
+        serviceCall();
+        wifiEnabled = enabled;
+        return true;
+    }
+
+    @Override
+    public boolean isMobileDataEnabled() {
+        serviceCall();
+        return mobileDataEnabled;
+    }
+
+    @Override
+    public int getNumberOfCameras() {
+        serviceCall();
+        return numberOfCameras;
+    }
+
+    @Override
+    public int getBatteryLevel() {
+        serviceCall();
+        return batteryLevel;
+    }
+
+    @Override
+    public long getFreeSpace(String path) {
+        serviceCall();
+        return freeSpace;
+    }
+
+    @Override
+    public File[] getExternalFilesDirs() {
+        serviceCall();
+        return externalFilesDirs.clone();
+    }
+
+    @Override
+    public boolean isRemovableStorage(File dir) {
+        serviceCall();
+        String path = dir.getPath();
+        for (String volume : removableVolumes) {
+            if (path.startsWith(volume + "/")) return true;
+        }
+        return false;
+    }
+
+    @Override
+    public boolean areNotificationsEnabled() {
+        serviceCall();
+        return notificationsEnabled;
+    }
+
+    @Override
+    public boolean isIgnoringBatteryOptimizations() {
+        serviceCall();
+        return ignoringBatteryOptimizations;
+    }
+
+    private void serviceCall() {
+        long nanos = serviceCallNanos;
+        if (nanos > 0) {
+            long end = System.nanoTime() + nanos;
+            while (System.nanoTime() < end) {
+                // busy-wait
+            }
+        }
+    }
+
+    private static int get(Map<String, Integer> settings, String name, int def) {
+        Integer value = settings.get(name);
+        return value != null ? value : def;
+    }
+}
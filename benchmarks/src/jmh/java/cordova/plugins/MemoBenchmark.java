@@ -0,0 +1,68 @@
+package cordova.plugins;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares serving probe results from DiagnosticMemo with computing them on every call.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MemoBenchmark {
+
+    private BenchmarkPlatform platform;
+
+    @Setup
+    public void setup() {
+        platform = new BenchmarkPlatform();
+    }
+
+    @TearDown
+    public void tearDown() {
+        platform.shutdown();
+    }
+
+    @Benchmark
+    public JSONObject buildOSVersionMemoized() throws Exception {
+        return platform.diagnostic.getBuildOSVersion();
+    }
+
+    @Benchmark
+    public JSONObject buildOSVersionUncached() throws Exception {
+        return platform.diagnostic.resolveBuildOSVersion();
+    }
+
+    @Benchmark
+    public Object externalSdCardDetailsMemoized() throws Exception {
+        return platform.diagnostic.memo.get(Diagnostic_External_Storage.EXTERNAL_SD_CARD_DETAILS_KEY,
+                Diagnostic_External_Storage.EXTERNAL_SD_CARD_DETAILS_TTL_MS, new Callable<JSONArray>() {
+                    @Override
+                    public JSONArray call() throws Exception {
+                        return platform.externalStorage.resolveExternalSdCardDetails();
+                    }
+                });
+    }
+
+    @Benchmark
+    public JSONArray externalSdCardDetailsUncached() throws Exception {
+        return platform.externalStorage.resolveExternalSdCardDetails();
+    }
+}
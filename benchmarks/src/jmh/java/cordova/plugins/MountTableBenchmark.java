@@ -0,0 +1,103 @@
+package cordova.plugins;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Finding removable volumes with DiagnosticMountTable, from the mount table of a device with an SD card,
+ * compared with the `mount | grep /dev/block/vold` subprocess it replaced.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MountTableBenchmark {
+
+    /**
+     * /proc/self/mountinfo of an Android 10 device with an SD card and vfat firmware partitions on its internal eMMC
+     */
+    static final String MOUNT_INFO =
+        "1 0 253:0 / / ro,relatime shared:1 - ext4 /dev/block/dm-0 ro,seclabel\n" +
+        "2 1 0:14 / /dev rw,nosuid,relatime shared:2 - tmpfs tmpfs rw,seclabel,size=1865084k,nr_inodes=466271,mode=755\n" +
+        "3 2 0:15 / /dev/pts rw,relatime shared:3 - devpts devpts rw,seclabel,mode=600,ptmxmode=000\n" +
+        "4 1 0:4 / /proc rw,relatime shared:4 - proc proc rw,gid=3009,hidepid=2\n" +
+        "5 1 0:16 / /sys rw,relatime shared:5 - sysfs sysfs rw,seclabel\n" +
+        "6 5 0:17 / /sys/fs/selinux rw,relatime shared:6 - selinuxfs selinuxfs rw\n" +
+        "7 1 0:18 / /mnt rw,nosuid,nodev,noexec,relatime shared:7 - tmpfs tmpfs rw,seclabel,size=1865084k,mode=755,gid=1000\n" +
+        "8 1 253:1 / /vendor ro,relatime shared:8 - ext4 /dev/block/dm-1 ro,seclabel\n" +
+        "9 1 253:2 / /product ro,relatime shared:9 - ext4 /dev/block/dm-2 ro,seclabel\n" +
+        "10 1 179:38 / /metadata rw,nosuid,nodev,noatime shared:10 - ext4 /dev/block/mmcblk0p38 rw,seclabel,discard\n" +
+        "11 1 254:3 / /data rw,nosuid,nodev,noatime shared:11 - f2fs /dev/block/dm-3 rw,lazytime,seclabel,background_gc=on\n" +
+        "12 1 0:19 / /apex rw,nosuid,nodev,noexec,relatime shared:12 - tmpfs tmpfs rw,seclabel,mode=755\n" +
+        "13 12 7:8 / /apex/com.android.runtime@1 ro,nodev,relatime - ext4 /dev/block/loop8 ro,seclabel\n" +
+        "14 7 0:20 / /mnt/runtime/default/emulated rw,nosuid,nodev,noexec,noatime shared:13 - sdcardfs /data/media rw,fsuid=1023,fsgid=1023,gid=1015,multiuser,mask=6,derive_gid,default_normal\n" +
+        "15 1 0:20 / /storage/emulated rw,nosuid,nodev,noexec,noatime shared:13 - sdcardfs /data/media rw,fsuid=1023,fsgid=1023,gid=1015,multiuser,mask=6,derive_gid,default_normal\n" +
+        "16 7 179:65 / /mnt/media_rw/1A2B-3C4D rw,nosuid,nodev,noexec,noatime shared:14 - vfat /dev/block/vold/public:179,65 rw,dirsync,uid=1023,gid=1023,fmask=0007,dmask=0007,allow_utime=0020,codepage=437,iocharset=iso8859-1,shortname=mixed,utf8,errors=remount-ro\n" +
+        "17 7 0:21 / /mnt/runtime/default/1A2B-3C4D rw,nosuid,nodev,noexec,noatime shared:15 - sdcardfs /mnt/media_rw/1A2B-3C4D rw,fsuid=1023,fsgid=1023,gid=1015,mask=6\n" +
+        "18 1 0:21 / /storage/1A2B-3C4D rw,nosuid,nodev,noexec,noatime shared:15 - sdcardfs /mnt/media_rw/1A2B-3C4D rw,fsuid=1023,fsgid=1023,gid=1015,mask=6\n" +
+        "19 1 0:22 / /config rw,nosuid,nodev,noexec,relatime shared:16 - configfs none rw\n" +
+        "20 5 0:23 / /sys/kernel/debug rw,relatime shared:17 - debugfs debugfs rw,seclabel\n" +
+        "21 8 179:4 / /vendor/firmware_mnt ro,relatime shared:18 - vfat /dev/block/mmcblk0p4 ro,context=u:object_r:firmware_file:s0,uid=1000,gid=1000,fmask=0337,dmask=0227\n" +
+        "22 8 179:11 / /vendor/dsp ro,nosuid,nodev,relatime shared:19 - vfat /dev/block/mmcblk0p11 ro,context=u:object_r:adsprpcd_file:s0,uid=1000,gid=1000\n";
+
+    private File mountInfo;
+    private DiagnosticMountTable mountTable;
+
+    @Setup
+    public void setup() throws IOException {
+        mountInfo = File.createTempFile("mountinfo", null);
+        FileOutputStream out = new FileOutputStream(mountInfo);
+        try {
+            out.write(MOUNT_INFO.getBytes("UTF-8"));
+        } finally {
+            out.close();
+        }
+        mountTable = new DiagnosticMountTable(mountInfo.getPath(), DiagnosticMountTable.PROC_MOUNTS);
+    }
+
+    @TearDown
+    public void tearDown() {
+        mountInfo.delete();
+    }
+
+    @Benchmark
+    public List<DiagnosticMountTable.Mount> mountTable() throws IOException {
+        return DiagnosticMountTable.getRemovable(mountTable.read());
+    }
+
+    /**
+     * The replaced fallback, run through a shell so the pipeline actually executes.
+     */
+    @Benchmark
+    public String shellMountGrep() throws Exception {
+        String output = "";
+        final Process process = new ProcessBuilder().command("sh", "-c", "mount | grep /dev/block/vold")
+                .redirectErrorStream(true).start();
+        process.waitFor();
+        final InputStream is = process.getInputStream();
+        final byte[] buffer = new byte[1024];
+        while (is.read(buffer) != -1) {
+            output = output + new String(buffer);
+        }
+        is.close();
+        return output;
+    }
+}
@@ -0,0 +1,88 @@
+package cordova.plugins;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.cordova.CallbackContext;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import android.content.pm.PackageManager;
+import android.os.Handler;
+
+/**
+ * Native cost of a runtime permission request, from queueing the request to the result being sent to JS,
+ * with the system dialog answered immediately.
+ * The merge window is bypassed by launching the dialog directly, so only CPU time is measured.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PermissionRequestBenchmark {
+
+    @Param({"1", "3", "40"})
+    public int permissionCount;
+
+    private BenchmarkPlatform platform;
+    private DiagnosticPermissionRequestQueue queue;
+    private DiagnosticPermission[] permissions;
+    private String[] androidPermissions;
+    private int[] grantResults;
+    private CallbackContext callbackContext;
+
+    @Setup
+    public void setup() {
+        platform = new BenchmarkPlatform();
+        final Diagnostic diagnostic = platform.diagnostic;
+        // Launches are driven by the benchmark, so the queue's own scheduling is disabled
+        queue = new DiagnosticPermissionRequestQueue(diagnostic, new Handler(null) {
+            @Override
+            public boolean post(Runnable r) {
+                return true;
+            }
+
+            @Override
+            public boolean postDelayed(Runnable r, long delayMillis) {
+                return true;
+            }
+        }, 0);
+        diagnostic.permissionRequests = queue;
+
+        permissions = new DiagnosticPermission[permissionCount];
+        androidPermissions = new String[permissionCount];
+        grantResults = new int[permissionCount];
+        for (int i = 0; i < permissionCount; i++) {
+            permissions[i] = DiagnosticPermission.get(i);
+            androidPermissions[i] = permissions[i].androidName;
+            grantResults[i] = i % 2 == 0 ? PackageManager.PERMISSION_GRANTED : PackageManager.PERMISSION_DENIED;
+        }
+        callbackContext = new CallbackContext("bench", platform.webView);
+    }
+
+    @TearDown
+    public void tearDown() {
+        platform.shutdown();
+    }
+
+    @Benchmark
+    public long requestAndReceiveResult() throws Exception {
+        Diagnostic diagnostic = platform.diagnostic;
+        DiagnosticPendingRequests.PendingRequest request = diagnostic.pendingRequests.create(callbackContext);
+        queue.submit(request, permissions);
+        queue.launchNext();
+        diagnostic.onRequestPermissionResult(request.id, androidPermissions, grantResults);
+        return platform.pluginResults.get();
+    }
+}
@@ -0,0 +1,67 @@
+package cordova.plugins;
+
+import java.util.concurrent.TimeUnit;
+
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Bulk permission status queries over all permissions, as polled by apps during onboarding,
+ * with the permission cache warm or invalidated before every query.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PermissionStatusBenchmark {
+
+    @Param({"true", "false"})
+    public boolean cached;
+
+    private BenchmarkPlatform platform;
+    private String[] permissions;
+
+    @Setup
+    public void setup() {
+        platform = new BenchmarkPlatform();
+        permissions = new String[DiagnosticPermission.count()];
+        for (int i = 0; i < permissions.length; i++) {
+            DiagnosticPermission permission = DiagnosticPermission.get(i);
+            permissions[i] = permission.name();
+            // Grant every other permission so both the granted and the rationale/requested paths are exercised
+            if (i % 2 == 0) {
+                platform.grantedPermissions.add(permission.androidName);
+            }
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        platform.shutdown();
+    }
+
+    @Benchmark
+    public JSONObject json() throws Exception {
+        if (!cached) platform.diagnostic.permissionCache.invalidate();
+        return platform.diagnostic._getPermissionsAuthorizationStatus(permissions);
+    }
+
+    @Benchmark
+    public byte[] compact() throws Exception {
+        if (!cached) platform.diagnostic.permissionCache.invalidate();
+        return platform.diagnostic._getPermissionsAuthorizationStatusCompact(permissions);
+    }
+}
@@ -0,0 +1,96 @@
+package cordova.plugins;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Root detection with the default probes run in parallel on the Cordova thread pool,
+ * compared with running them one after another on the calling thread and with the memoized result.
+ * The host's own file system, /proc/mounts and `which` are probed.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class RootDetectionBenchmark {
+
+    private BenchmarkPlatform platform;
+    private DiagnosticRootDetector detector;
+
+    /**
+     * Runs each task on the submitting thread as it is submitted, so probes run one after another
+     */
+    private final ExecutorService callingThread = new AbstractExecutorService() {
+        @Override
+        public void execute(Runnable command) {
+            command.run();
+        }
+
+        @Override
+        public void shutdown() {}
+
+        @Override
+        public List<Runnable> shutdownNow() {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public boolean isShutdown() {
+            return false;
+        }
+
+        @Override
+        public boolean isTerminated() {
+            return false;
+        }
+
+        @Override
+        public boolean awaitTermination(long timeout, TimeUnit unit) {
+            return true;
+        }
+    };
+
+    @Setup
+    public void setup() {
+        platform = new BenchmarkPlatform();
+        detector = new DiagnosticRootDetector(new DiagnosticMountTable());
+        detector.registerDefaultProbes();
+    }
+
+    @TearDown
+    public void tearDown() {
+        platform.shutdown();
+    }
+
+    @Benchmark
+    public DiagnosticRootDetector.Result parallel() throws Exception {
+        return detector.detect(platform.cordova.getThreadPool(), DiagnosticRootDetector.DEFAULT_BUDGET_MS);
+    }
+
+    @Benchmark
+    public DiagnosticRootDetector.Result sequential() throws Exception {
+        return detector.detect(callingThread, DiagnosticRootDetector.DEFAULT_BUDGET_MS);
+    }
+
+    @Benchmark
+    public boolean memoized() {
+        return platform.diagnostic.isDeviceRooted();
+    }
+}
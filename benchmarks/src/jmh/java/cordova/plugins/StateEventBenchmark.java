@@ -0,0 +1,88 @@
+package cordova.plugins;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.cordova.CallbackContext;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import android.bluetooth.BluetoothAdapter;
+import android.content.Intent;
+import android.location.LocationManager;
+
+/**
+ * State change notification paths, from the state being evaluated to the event being sent to JS,
+ * with or without a JS subscriber, and the cost of a raw broadcast entering the coalescing stage.
+ * Every notification carries a state change, so the event is always published.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class StateEventBenchmark {
+
+    @Param({"true", "false"})
+    public boolean subscribed;
+
+    private BenchmarkPlatform platform;
+    private Intent bluetoothIntent;
+    private Intent locationIntent;
+    private boolean toggle;
+
+    @Setup
+    public void setup() {
+        platform = new BenchmarkPlatform();
+        if (subscribed) {
+            platform.diagnostic.eventBus.subscribe(DiagnosticEventBus.ALL_TYPES, new CallbackContext("events", platform.webView));
+        }
+        bluetoothIntent = new Intent(BluetoothAdapter.ACTION_STATE_CHANGED);
+        locationIntent = new Intent(LocationManager.PROVIDERS_CHANGED_ACTION);
+    }
+
+    @TearDown
+    public void tearDown() {
+        platform.shutdown();
+    }
+
+    @Benchmark
+    public void publishEvent() {
+        platform.diagnostic.publishEvent(Diagnostic_Bluetooth.EVENT_BLUETOOTH_STATE, (toggle = !toggle) ? "powered_on" : "powered_off");
+    }
+
+    @Benchmark
+    public void bluetoothStateChange() {
+        platform.deviceState.bluetoothState = (toggle = !toggle) ? BluetoothAdapter.STATE_OFF : BluetoothAdapter.STATE_ON;
+        platform.bluetooth.notifyBluetoothStateChange();
+    }
+
+    @Benchmark
+    public void locationStateChange() {
+        platform.deviceState.setLocationProviderEnabled(LocationManager.GPS_PROVIDER, toggle = !toggle);
+        platform.location.notifyLocationStateChange();
+    }
+
+    /**
+     * A broadcast received during a burst: recorded by the coalescer, evaluated once the burst has settled.
+     */
+    @Benchmark
+    public void bluetoothBroadcast() {
+        platform.bluetooth.bluetoothStateChangeReceiver.onReceive(platform.activity, bluetoothIntent);
+    }
+
+    @Benchmark
+    public void locationBroadcast() {
+        platform.location.locationProviderChangedReceiver.onReceive(platform.activity, locationIntent);
+    }
+}
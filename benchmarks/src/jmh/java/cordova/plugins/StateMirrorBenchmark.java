@@ -0,0 +1,71 @@
+package cordova.plugins;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.cordova.CallbackContext;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Polled state queries with the state change receivers registered, so reads are served from the state mirrors,
+ * or unregistered, so each read queries the device state provider.
+ * Each provider call is given a nominal cost standing in for a system service call.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class StateMirrorBenchmark {
+
+    @Param({"true", "false"})
+    public boolean tracking;
+
+    /**
+     * Nominal cost of a system service call in ns
+     */
+    @Param({"5000"})
+    public long serviceCallNanos;
+
+    private BenchmarkPlatform platform;
+
+    @Setup
+    public void setup() {
+        platform = new BenchmarkPlatform();
+        platform.deviceState.serviceCallNanos = serviceCallNanos;
+        if (tracking) {
+            platform.diagnostic.eventBus.subscribe(DiagnosticEventBus.ALL_TYPES, new CallbackContext("events", platform.webView));
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        platform.shutdown();
+    }
+
+    @Benchmark
+    public String getBluetoothState() {
+        return platform.bluetooth.getBluetoothState();
+    }
+
+    @Benchmark
+    public String getLocationMode() throws Exception {
+        return platform.location.getLocationModeName();
+    }
+
+    @Benchmark
+    public boolean isNFCEnabled() {
+        return platform.nfc.isNFCEnabled();
+    }
+}
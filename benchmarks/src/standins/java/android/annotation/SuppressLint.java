@@ -0,0 +1,8 @@
+package android.annotation;
+
+/**
+ * Stand-in for android.annotation.SuppressLint.
+ */
+public @interface SuppressLint {
+    String[] value();
+}
@@ -0,0 +1,8 @@
+package android.annotation;
+
+/**
+ * Stand-in for android.annotation.TargetApi.
+ */
+public @interface TargetApi {
+    int value();
+}
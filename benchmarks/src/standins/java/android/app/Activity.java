@@ -0,0 +1,16 @@
+package android.app;
+
+import android.content.Context;
+
+/**
+ * Stand-in for android.app.Activity.
+ */
+public class Activity extends Context {
+    public void runOnUiThread(Runnable action) {
+        action.run();
+    }
+
+    public void recreate() {}
+
+    public void finishAffinity() {}
+}
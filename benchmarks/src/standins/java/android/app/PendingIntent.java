@@ -0,0 +1,6 @@
+package android.app;
+
+/**
+ * Stand-in for android.app.PendingIntent.
+ */
+public class PendingIntent {}
@@ -0,0 +1,42 @@
+package android.bluetooth;
+
+/**
+ * Stand-in for android.bluetooth.BluetoothAdapter.
+ */
+public class BluetoothAdapter {
+    public static final String ACTION_STATE_CHANGED = "android.bluetooth.adapter.action.STATE_CHANGED";
+    public static final String EXTRA_STATE = "android.bluetooth.adapter.extra.STATE";
+    public static final int STATE_OFF = 10;
+    public static final int STATE_TURNING_ON = 11;
+    public static final int STATE_ON = 12;
+    public static final int STATE_TURNING_OFF = 13;
+
+    private static final BluetoothAdapter defaultAdapter = new BluetoothAdapter();
+    private int state = STATE_ON;
+
+    public static BluetoothAdapter getDefaultAdapter() {
+        return defaultAdapter;
+    }
+
+    public int getState() {
+        return state;
+    }
+
+    public boolean isEnabled() {
+        return state == STATE_ON;
+    }
+
+    public boolean isMultipleAdvertisementSupported() {
+        return true;
+    }
+
+    public boolean enable() {
+        state = STATE_ON;
+        return true;
+    }
+
+    public boolean disable() {
+        state = STATE_OFF;
+        return true;
+    }
+}
@@ -0,0 +1,8 @@
+package android.content;
+
+/**
+ * Stand-in for android.content.BroadcastReceiver.
+ */
+public abstract class BroadcastReceiver {
+    public abstract void onReceive(Context context, Intent intent);
+}
@@ -0,0 +1,8 @@
+package android.content;
+
+/**
+ * Stand-in for android.content.ComponentName.
+ */
+public class ComponentName {
+    public ComponentName(String pkg, String cls) {}
+}
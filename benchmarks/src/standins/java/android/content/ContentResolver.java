@@ -0,0 +1,6 @@
+package android.content;
+
+/**
+ * Stand-in for android.content.ContentResolver.
+ */
+public class ContentResolver {}
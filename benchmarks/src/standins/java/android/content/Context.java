@@ -0,0 +1,60 @@
+package android.content;
+
+import android.content.pm.PackageManager;
+import android.os.Handler;
+
+import java.io.File;
+
+/**
+ * Stand-in for android.content.Context.
+ */
+public class Context {
+    public static final String BATTERY_SERVICE = "batterymanager";
+    public static final String CONNECTIVITY_SERVICE = "connectivity";
+    public static final String LOCATION_SERVICE = "location";
+    public static final String NFC_SERVICE = "nfc";
+    public static final String POWER_SERVICE = "power";
+    public static final String WIFI_SERVICE = "wifi";
+
+    public static final int MODE_PRIVATE = 0;
+
+    public Context getApplicationContext() {
+        return this;
+    }
+
+    public String getPackageName() {
+        return "cordova.plugins.diagnostic.benchmarks";
+    }
+
+    public ContentResolver getContentResolver() {
+        return null;
+    }
+
+    public PackageManager getPackageManager() {
+        return null;
+    }
+
+    public Object getSystemService(String name) {
+        return null;
+    }
+
+    public SharedPreferences getSharedPreferences(String name, int mode) {
+        return null;
+    }
+
+    public File[] getExternalFilesDirs(String type) {
+        return new File[0];
+    }
+
+    public Intent registerReceiver(BroadcastReceiver receiver, IntentFilter filter) {
+        return null;
+    }
+
+    public Intent registerReceiver(BroadcastReceiver receiver, IntentFilter filter, String broadcastPermission, Handler scheduler) {
+        return registerReceiver(receiver, filter);
+    }
+
+    public void unregisterReceiver(BroadcastReceiver receiver) {}
+
+    public void startActivity(Intent intent) {}
+}
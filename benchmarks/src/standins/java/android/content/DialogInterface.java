@@ -0,0 +1,10 @@
+package android.content;
+
+/**
+ * Stand-in for android.content.DialogInterface.
+ */
+public interface DialogInterface {
+    interface OnClickListener {
+        void onClick(DialogInterface dialog, int which);
+    }
+}
@@ -0,0 +1,38 @@
+package android.content;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Stand-in for android.content.IntentFilter.
+ */
+public class IntentFilter {
+    private final List<String> actions = new ArrayList<String>();
+    private final List<String> dataSchemes = new ArrayList<String>();
+
+    public IntentFilter() {}
+
+    public IntentFilter(String action) {
+        addAction(action);
+    }
+
+    public final void addAction(String action) {
+        actions.add(action);
+    }
+
+    public final int countActions() {
+        return actions.size();
+    }
+
+    public final boolean hasAction(String action) {
+        return actions.contains(action);
+    }
+
+    public final void addDataScheme(String scheme) {
+        dataSchemes.add(scheme);
+    }
+
+    public final boolean hasDataScheme(String scheme) {
+        return dataSchemes.contains(scheme);
+    }
+}
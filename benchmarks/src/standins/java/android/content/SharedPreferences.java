@@ -0,0 +1,33 @@
+package android.content;
+
+import java.util.Map;
+
+/**
+ * Stand-in for android.content.SharedPreferences.
+ */
+public interface SharedPreferences {
+
+    Map<String, ?> getAll();
+
+    boolean getBoolean(String key, boolean defValue);
+
+    long getLong(String key, long defValue);
+
+    boolean contains(String key);
+
+    Editor edit();
+
+    interface Editor {
+        Editor putBoolean(String key, boolean value);
+
+        Editor putLong(String key, long value);
+
+        Editor remove(String key);
+
+        Editor clear();
+
+        boolean commit();
+
+        void apply();
+    }
+}
@@ -0,0 +1,12 @@
+package android.content.pm;
+
+import android.os.Bundle;
+
+/**
+ * Stand-in for android.content.pm.ApplicationInfo.
+ */
+public class ApplicationInfo {
+    public int targetSdkVersion = 33;
+    public int minSdkVersion = 22;
+    public Bundle metaData = new Bundle();
+}
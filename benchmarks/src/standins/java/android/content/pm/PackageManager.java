@@ -0,0 +1,39 @@
+package android.content.pm;
+
+import android.content.Intent;
+
+/**
+ * Stand-in for android.content.pm.PackageManager.
+ */
+public class PackageManager {
+    public static final int GET_PERMISSIONS = 0x00001000;
+    public static final int GET_META_DATA = 0x00000080;
+    public static final int PERMISSION_GRANTED = 0;
+    public static final int PERMISSION_DENIED = -1;
+
+    public static final String FEATURE_BLUETOOTH = "android.hardware.bluetooth";
+    public static final String FEATURE_BLUETOOTH_LE = "android.hardware.bluetooth_le";
+    public static final String FEATURE_CAMERA = "android.hardware.camera";
+
+    public static class NameNotFoundException extends Exception {
+        public NameNotFoundException(String name) {
+            super(name);
+        }
+    }
+
+    public boolean hasSystemFeature(String name) {
+        return true;
+    }
+
+    public Intent getLaunchIntentForPackage(String packageName) {
+        return new Intent();
+    }
+
+    public PackageInfo getPackageInfo(String packageName, int flags) throws NameNotFoundException {
+        return new PackageInfo();
+    }
+
+    public ApplicationInfo getApplicationInfo(String packageName, int flags) throws NameNotFoundException {
+        return new ApplicationInfo();
+    }
+}
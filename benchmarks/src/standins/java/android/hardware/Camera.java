@@ -0,0 +1,10 @@
+package android.hardware;
+
+/**
+ * Stand-in for android.hardware.Camera.
+ */
+public class Camera {
+    public static int getNumberOfCameras() {
+        return 2;
+    }
+}
@@ -0,0 +1,25 @@
+package android.location;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Stand-in for android.location.LocationManager.
+ * All providers are enabled unless changed with setTestProviderEnabled().
+ */
+public class LocationManager {
+    public static final String GPS_PROVIDER = "gps";
+    public static final String NETWORK_PROVIDER = "network";
+    public static final String PROVIDERS_CHANGED_ACTION = "android.location.PROVIDERS_CHANGED";
+
+    private final Map<String, Boolean> enabled = new ConcurrentHashMap<String, Boolean>();
+
+    public boolean isProviderEnabled(String provider) {
+        Boolean value = enabled.get(provider);
+        return value == null || value;
+    }
+
+    public void setTestProviderEnabled(String provider, boolean enabled) {
+        this.enabled.put(provider, enabled);
+    }
+}
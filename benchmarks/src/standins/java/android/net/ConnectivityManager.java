@@ -0,0 +1,10 @@
+package android.net;
+
+/**
+ * Stand-in for android.net.ConnectivityManager.
+ */
+public class ConnectivityManager {
+    private boolean getMobileDataEnabled() {
+        return true;
+    }
+}
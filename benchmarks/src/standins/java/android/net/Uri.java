@@ -0,0 +1,30 @@
+package android.net;
+
+/**
+ * Stand-in for android.net.Uri.
+ */
+public class Uri {
+    private final String uri;
+
+    private Uri(String uri) {
+        this.uri = uri;
+    }
+
+    public static Uri parse(String uriString) {
+        return new Uri(uriString);
+    }
+
+    public static Uri fromParts(String scheme, String ssp, String fragment) {
+        return new Uri(scheme + ":" + ssp + (fragment != null ? "#" + fragment : ""));
+    }
+
+    public String getScheme() {
+        int colon = uri.indexOf(':');
+        return colon > 0 ? uri.substring(0, colon) : null;
+    }
+
+    @Override
+    public String toString() {
+        return uri;
+    }
+}
@@ -0,0 +1,17 @@
+package android.net.wifi;
+
+/**
+ * Stand-in for android.net.wifi.WifiManager.
+ */
+public class WifiManager {
+    private boolean wifiEnabled = true;
+
+    public boolean isWifiEnabled() {
+        return wifiEnabled;
+    }
+
+    public boolean setWifiEnabled(boolean enabled) {
+        wifiEnabled = enabled;
+        return true;
+    }
+}
@@ -0,0 +1,13 @@
+package android.nfc;
+
+/**
+ * Stand-in for android.nfc.NfcAdapter.
+ */
+public class NfcAdapter {
+    public static final String ACTION_ADAPTER_STATE_CHANGED = "android.nfc.action.ADAPTER_STATE_CHANGED";
+    public static final String EXTRA_ADAPTER_STATE = "android.nfc.extra.ADAPTER_STATE";
+
+    public boolean isEnabled() {
+        return true;
+    }
+}
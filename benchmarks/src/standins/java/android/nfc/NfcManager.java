@@ -0,0 +1,12 @@
+package android.nfc;
+
+/**
+ * Stand-in for android.nfc.NfcManager.
+ */
+public class NfcManager {
+    private final NfcAdapter adapter = new NfcAdapter();
+
+    public NfcAdapter getDefaultAdapter() {
+        return adapter;
+    }
+}
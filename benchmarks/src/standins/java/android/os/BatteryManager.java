@@ -0,0 +1,12 @@
+package android.os;
+
+/**
+ * Stand-in for android.os.BatteryManager.
+ */
+public class BatteryManager {
+    public static final int BATTERY_PROPERTY_CAPACITY = 4;
+
+    public int getIntProperty(int id) {
+        return 100;
+    }
+}
@@ -0,0 +1,17 @@
+package android.os;
+
+import java.io.File;
+
+/**
+ * Stand-in for android.os.Environment.
+ */
+public class Environment {
+    public static final String MEDIA_MOUNTED = "mounted";
+
+    /**
+     * As on a device, storage other than the emulated primary storage is treated as removable.
+     */
+    public static boolean isExternalStorageRemovable(File path) {
+        return !path.getPath().startsWith("/storage/emulated/");
+    }
+}
@@ -0,0 +1,45 @@
+package android.os;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Stand-in for android.os.Handler which runs messages on a single daemon thread per Handler.
+ */
+public class Handler {
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "Handler");
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
+
+    private final Looper looper;
+
+    public Handler(Looper looper) {
+        this.looper = looper;
+    }
+
+    public final Looper getLooper() {
+        return looper;
+    }
+
+    public boolean post(Runnable r) {
+        executor.execute(r);
+        return true;
+    }
+
+    public boolean postDelayed(Runnable r, long delayMillis) {
+        executor.schedule(r, delayMillis, TimeUnit.MILLISECONDS);
+        return true;
+    }
+
+    /**
+     * Not supported by the stand-in: callbacks which have been posted always run.
+     */
+    public void removeCallbacks(Runnable r) {}
+}
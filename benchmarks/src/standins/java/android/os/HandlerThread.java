@@ -0,0 +1,24 @@
+package android.os;
+
+/**
+ * Stand-in for android.os.HandlerThread. Handlers run on their own thread in the stand-ins, so the looper is a token.
+ */
+public class HandlerThread extends Thread {
+    private final Looper looper = new Looper();
+
+    public HandlerThread(String name) {
+        super(name);
+        setDaemon(true);
+    }
+
+    @Override
+    public void run() {}
+
+    public Looper getLooper() {
+        return looper;
+    }
+
+    public boolean quitSafely() {
+        return true;
+    }
+}
@@ -0,0 +1,12 @@
+package android.os;
+
+/**
+ * Stand-in for android.os.Looper.
+ */
+public class Looper {
+    private static final Looper mainLooper = new Looper();
+
+    public static Looper getMainLooper() {
+        return mainLooper;
+    }
+}
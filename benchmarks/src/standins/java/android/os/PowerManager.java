@@ -0,0 +1,10 @@
+package android.os;
+
+/**
+ * Stand-in for android.os.PowerManager.
+ */
+public class PowerManager {
+    public boolean isIgnoringBatteryOptimizations(String packageName) {
+        return false;
+    }
+}
@@ -0,0 +1,25 @@
+package android.os;
+
+import java.io.File;
+
+/**
+ * Stand-in for android.os.StatFs backed by java.io.File.
+ */
+public class StatFs {
+    private final File file;
+
+    public StatFs(String path) {
+        this.file = new File(path);
+        if (!file.exists()) {
+            throw new IllegalArgumentException("Invalid path: " + path);
+        }
+    }
+
+    public int getBlockSize() {
+        return 4096;
+    }
+
+    public int getAvailableBlocks() {
+        return (int) Math.min(Integer.MAX_VALUE, file.getUsableSpace() / 4096);
+    }
+}
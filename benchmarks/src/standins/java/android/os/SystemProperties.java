@@ -0,0 +1,21 @@
+package android.os;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Stand-in for the hidden android.os.SystemProperties, backed by a map benchmarks can populate.
+ */
+public class SystemProperties {
+    public static final ConcurrentMap<String, String> values = new ConcurrentHashMap<String, String>();
+
+    static {
+        values.put("ro.debuggable", "0");
+        values.put("ro.secure", "1");
+    }
+
+    public static String get(String key) {
+        String value = values.get(key);
+        return value != null ? value : "";
+    }
+}
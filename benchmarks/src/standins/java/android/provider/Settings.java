@@ -0,0 +1,90 @@
+package android.provider;
+
+import android.content.ContentResolver;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Stand-in for android.provider.Settings.
+ * Settings are held in memory and can be changed with putInt() to script device state.
+ */
+public final class Settings {
+    public static final String ACTION_APPLICATION_DETAILS_SETTINGS = "android.settings.APPLICATION_DETAILS_SETTINGS";
+    public static final String ACTION_APP_NOTIFICATION_SETTINGS = "android.settings.APP_NOTIFICATION_SETTINGS";
+    public static final String ACTION_BLUETOOTH_SETTINGS = "android.settings.BLUETOOTH_SETTINGS";
+    public static final String ACTION_DATA_ROAMING_SETTINGS = "android.settings.DATA_ROAMING_SETTINGS";
+    public static final String ACTION_LOCATION_SOURCE_SETTINGS = "android.settings.LOCATION_SOURCE_SETTINGS";
+    public static final String ACTION_NFC_SETTINGS = "android.settings.NFC_SETTINGS";
+    public static final String ACTION_REQUEST_IGNORE_BATTERY_OPTIMIZATIONS = "android.settings.REQUEST_IGNORE_BATTERY_OPTIMIZATIONS";
+    public static final String ACTION_WIFI_SETTINGS = "android.settings.WIFI_SETTINGS";
+    public static final String ACTION_WIRELESS_SETTINGS = "android.settings.WIRELESS_SETTINGS";
+    public static final String EXTRA_APP_PACKAGE = "android.provider.extra.APP_PACKAGE";
+
+    public static class SettingNotFoundException extends Exception {
+        public SettingNotFoundException(String msg) {
+            super(msg);
+        }
+    }
+
+    public static final class Global {
+        public static final String ADB_ENABLED = "adb_enabled";
+        public static final String AIRPLANE_MODE_ON = "airplane_mode_on";
+        public static final String DATA_ROAMING = "data_roaming";
+
+        private static final Map<String, Integer> values = new ConcurrentHashMap<String, Integer>();
+
+        public static int getInt(ContentResolver cr, String name, int def) {
+            Integer value = values.get(name);
+            return value != null ? value : def;
+        }
+
+        public static boolean putInt(ContentResolver cr, String name, int value) {
+            values.put(name, value);
+            return true;
+        }
+    }
+
+    public static final class Secure {
+        public static final String ADB_ENABLED = "adb_enabled";
+        public static final String LOCATION_MODE = "location_mode";
+        public static final int LOCATION_MODE_OFF = 0;
+        public static final int LOCATION_MODE_SENSORS_ONLY = 1;
+        public static final int LOCATION_MODE_BATTERY_SAVING = 2;
+        public static final int LOCATION_MODE_HIGH_ACCURACY = 3;
+
+        private static final Map<String, Integer> values = new ConcurrentHashMap<String, Integer>();
+
+        public static int getInt(ContentResolver cr, String name, int def) {
+            Integer value = values.get(name);
+            return value != null ? value : def;
+        }
+
+        public static int getInt(ContentResolver cr, String name) throws SettingNotFoundException {
+            Integer value = values.get(name);
+            if (value == null) {
+                throw new SettingNotFoundException(name);
+            }
+            return value;
+        }
+
+        public static boolean putInt(ContentResolver cr, String name, int value) {
+            values.put(name, value);
+            return true;
+        }
+    }
+
+    public static final class System {
+        private static final Map<String, Integer> values = new ConcurrentHashMap<String, Integer>();
+
+        public static int getInt(ContentResolver cr, String name, int def) {
+            Integer value = values.get(name);
+            return value != null ? value : def;
+        }
+
+        public static boolean putInt(ContentResolver cr, String name, int value) {
+            values.put(name, value);
+            return true;
+        }
+    }
+}
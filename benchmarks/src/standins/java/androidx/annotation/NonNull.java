@@ -0,0 +1,6 @@
+package androidx.annotation;
+
+/**
+ * Stand-in for androidx.annotation.NonNull.
+ */
+public @interface NonNull {}
@@ -0,0 +1,10 @@
+package androidx.annotation;
+
+/**
+ * Stand-in for androidx.annotation.RequiresApi.
+ */
+public @interface RequiresApi {
+    int value() default 1;
+
+    int api() default 1;
+}
@@ -0,0 +1,34 @@
+package androidx.appcompat.app;
+
+import android.content.Context;
+import android.content.DialogInterface;
+
+/**
+ * Stand-in for androidx.appcompat.app.AlertDialog.
+ */
+public class AlertDialog implements DialogInterface {
+
+    public static class Builder {
+        public Builder(Context context) {}
+
+        public Builder setTitle(CharSequence title) {
+            return this;
+        }
+
+        public Builder setMessage(CharSequence message) {
+            return this;
+        }
+
+        public Builder setNegativeButton(CharSequence text, DialogInterface.OnClickListener listener) {
+            return this;
+        }
+
+        public Builder setPositiveButton(CharSequence text, DialogInterface.OnClickListener listener) {
+            return this;
+        }
+
+        public AlertDialog show() {
+            return new AlertDialog();
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package androidx.core.app;
+
+import android.app.Activity;
+
+/**
+ * Stand-in for androidx.core.app.ActivityCompat.
+ */
+public class ActivityCompat {
+    public static boolean shouldShowRequestPermissionRationale(Activity activity, String permission) {
+        return false;
+    }
+}
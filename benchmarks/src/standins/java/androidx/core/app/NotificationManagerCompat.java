@@ -0,0 +1,18 @@
+package androidx.core.app;
+
+import android.content.Context;
+
+/**
+ * Stand-in for androidx.core.app.NotificationManagerCompat.
+ */
+public class NotificationManagerCompat {
+    private static final NotificationManagerCompat instance = new NotificationManagerCompat();
+
+    public static NotificationManagerCompat from(Context context) {
+        return instance;
+    }
+
+    public boolean areNotificationsEnabled() {
+        return true;
+    }
+}
@@ -0,0 +1,12 @@
+package androidx.core.os;
+
+import java.io.File;
+
+/**
+ * Stand-in for androidx.core.os.EnvironmentCompat.
+ */
+public class EnvironmentCompat {
+    public static String getStorageState(File path) {
+        return "mounted";
+    }
+}
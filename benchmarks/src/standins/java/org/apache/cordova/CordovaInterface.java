@@ -0,0 +1,22 @@
+package org.apache.cordova;
+
+import android.app.Activity;
+import android.content.Context;
+
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Minimal stand-in for the Cordova CordovaInterface.
+ */
+public interface CordovaInterface {
+
+    Activity getActivity();
+
+    Context getContext();
+
+    ExecutorService getThreadPool();
+
+    void requestPermissions(CordovaPlugin plugin, int requestCode, String[] permissions);
+
+    boolean hasPermission(String permission);
+}
@@ -0,0 +1,15 @@
+package org.apache.cordova;
+
+/**
+ * Minimal stand-in for the Cordova CordovaWebView.
+ */
+public interface CordovaWebView {
+
+    String CORDOVA_VERSION = "10.1.1";
+
+    void loadUrl(String url);
+
+    void sendPluginResult(PluginResult cr, String callbackId);
+
+    PluginManager getPluginManager();
+}
@@ -0,0 +1,107 @@
+package org.apache.cordova;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+/**
+ * Minimal stand-in for the Cordova PluginResult.
+ */
+public class PluginResult {
+
+    public static final int MESSAGE_TYPE_STRING = 1;
+    public static final int MESSAGE_TYPE_JSON = 2;
+    public static final int MESSAGE_TYPE_NUMBER = 3;
+    public static final int MESSAGE_TYPE_BOOLEAN = 4;
+    public static final int MESSAGE_TYPE_NULL = 5;
+    public static final int MESSAGE_TYPE_ARRAYBUFFER = 6;
+    public static final int MESSAGE_TYPE_BINARYSTRING = 7;
+
+    public enum Status {
+        NO_RESULT,
+        OK,
+        CLASS_NOT_FOUND_EXCEPTION,
+        ILLEGAL_ACCESS_EXCEPTION,
+        INSTANTIATION_EXCEPTION,
+        MALFORMED_URL_EXCEPTION,
+        IO_EXCEPTION,
+        INVALID_ACTION,
+        JSON_EXCEPTION,
+        ERROR
+    }
+
+    private final int status;
+    private final int messageType;
+    private final String encodedMessage;
+    private final String strMessage;
+    private final byte[] binaryMessage;
+    private boolean keepCallback = false;
+
+    public PluginResult(Status status) {
+        this(status, MESSAGE_TYPE_NULL, "null", null, null);
+    }
+
+    public PluginResult(Status status, String message) {
+        this(status, message == null ? MESSAGE_TYPE_NULL : MESSAGE_TYPE_STRING,
+                message == null ? "null" : JSONObject.quote(message), message, null);
+    }
+
+    public PluginResult(Status status, JSONArray message) {
+        this(status, MESSAGE_TYPE_JSON, message.toString(), null, null);
+    }
+
+    public PluginResult(Status status, JSONObject message) {
+        this(status, MESSAGE_TYPE_JSON, message.toString(), null, null);
+    }
+
+    public PluginResult(Status status, int i) {
+        this(status, MESSAGE_TYPE_NUMBER, String.valueOf(i), null, null);
+    }
+
+    public PluginResult(Status status, float f) {
+        this(status, MESSAGE_TYPE_NUMBER, String.valueOf(f), null, null);
+    }
+
+    public PluginResult(Status status, boolean b) {
+        this(status, MESSAGE_TYPE_BOOLEAN, String.valueOf(b), null, null);
+    }
+
+    public PluginResult(Status status, byte[] data) {
+        this(status, MESSAGE_TYPE_ARRAYBUFFER, null, null, data);
+    }
+
+    private PluginResult(Status status, int messageType, String encodedMessage, String strMessage, byte[] binaryMessage) {
+        this.status = status.ordinal();
+        this.messageType = messageType;
+        this.encodedMessage = encodedMessage;
+        this.strMessage = strMessage;
+        this.binaryMessage = binaryMessage;
+    }
+
+    public void setKeepCallback(boolean b) {
+        this.keepCallback = b;
+    }
+
+    public boolean getKeepCallback() {
+        return keepCallback;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    public int getMessageType() {
+        return messageType;
+    }
+
+    public String getMessage() {
+        return encodedMessage;
+    }
+
+    public String getStrMessage() {
+        return strMessage;
+    }
+
+    public byte[] getBinaryMessage() {
+        return binaryMessage;
+    }
+}
@@ -0,0 +1,170 @@
+package org.json;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Minimal stand-in for the Android org.json.JSONArray.
+ */
+public class JSONArray {
+
+    private final List<Object> values = new ArrayList<Object>();
+
+    public JSONArray() {}
+
+    public JSONArray(String json) throws JSONException {
+        Object value = new JSONTokener(json).nextValue();
+        if (!(value instanceof JSONArray)) {
+            throw new JSONException("Not a JSON array: " + json);
+        }
+        values.addAll(((JSONArray) value).values);
+    }
+
+    public int length() {
+        return values.size();
+    }
+
+    public JSONArray put(Object value) {
+        values.add(value);
+        return this;
+    }
+
+    public JSONArray put(int value) {
+        values.add(value);
+        return this;
+    }
+
+    public JSONArray put(long value) {
+        values.add(value);
+        return this;
+    }
+
+    public JSONArray put(boolean value) {
+        values.add(value);
+        return this;
+    }
+
+    public JSONArray put(int index, Object value) throws JSONException {
+        if (index < 0) {
+            throw new JSONException("Index " + index + " out of range");
+        }
+        while (values.size() <= index) {
+            values.add(JSONObject.NULL);
+        }
+        values.set(index, value);
+        return this;
+    }
+
+    public Object opt(int index) {
+        return index < 0 || index >= values.size() ? null : values.get(index);
+    }
+
+    public Object get(int index) throws JSONException {
+        Object value = opt(index);
+        if (value == null) {
+            throw new JSONException("Index " + index + " out of range");
+        }
+        return value;
+    }
+
+    public String getString(int index) throws JSONException {
+        return String.valueOf(get(index));
+    }
+
+    public String optString(int index) {
+        return optString(index, "");
+    }
+
+    public String optString(int index, String fallback) {
+        Object value = opt(index);
+        return (value == null || value == JSONObject.NULL) ? fallback : String.valueOf(value);
+    }
+
+    public boolean getBoolean(int index) throws JSONException {
+        Object value = get(index);
+        if (value instanceof Boolean) {
+            return (Boolean) value;
+        }
+        if ("true".equalsIgnoreCase(String.valueOf(value))) {
+            return true;
+        }
+        if ("false".equalsIgnoreCase(String.valueOf(value))) {
+            return false;
+        }
+        throw new JSONException("Value at " + index + " is not a boolean");
+    }
+
+    public boolean optBoolean(int index) {
+        return optBoolean(index, false);
+    }
+
+    public boolean optBoolean(int index, boolean fallback) {
+        Object value = opt(index);
+        return value instanceof Boolean ? (Boolean) value : fallback;
+    }
+
+    public int getInt(int index) throws JSONException {
+        Object value = get(index);
+        if (value instanceof Number) {
+            return ((Number) value).intValue();
+        }
+        try {
+            return Integer.parseInt(String.valueOf(value));
+        } catch (NumberFormatException e) {
+            throw new JSONException("Value at " + index + " is not an int");
+        }
+    }
+
+    public int optInt(int index, int fallback) {
+        Object value = opt(index);
+        return value instanceof Number ? ((Number) value).intValue() : fallback;
+    }
+
+    public long optLong(int index, long fallback) {
+        Object value = opt(index);
+        return value instanceof Number ? ((Number) value).longValue() : fallback;
+    }
+
+    public JSONArray getJSONArray(int index) throws JSONException {
+        Object value = get(index);
+        if (!(value instanceof JSONArray)) {
+            throw new JSONException("Value at " + index + " is not a JSONArray");
+        }
+        return (JSONArray) value;
+    }
+
+    public JSONArray optJSONArray(int index) {
+        Object value = opt(index);
+        return value instanceof JSONArray ? (JSONArray) value : null;
+    }
+
+    public JSONObject getJSONObject(int index) throws JSONException {
+        Object value = get(index);
+        if (!(value instanceof JSONObject)) {
+            throw new JSONException("Value at " + index + " is not a JSONObject");
+        }
+        return (JSONObject) value;
+    }
+
+    public JSONObject optJSONObject(int index) {
+        Object value = opt(index);
+        return value instanceof JSONObject ? (JSONObject) value : null;
+    }
+
+    public boolean isNull(int index) {
+        Object value = opt(index);
+        return value == null || value == JSONObject.NULL;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; i < values.size(); i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            JSONObject.appendValue(sb, values.get(i));
+        }
+        return sb.append(']').toString();
+    }
+}
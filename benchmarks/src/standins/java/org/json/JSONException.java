@@ -0,0 +1,10 @@
+package org.json;
+
+/**
+ * Stand-in for the Android org.json.JSONException (a checked exception on Android).
+ */
+public class JSONException extends Exception {
+    public JSONException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,210 @@
+package org.json;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Minimal stand-in for the Android org.json.JSONObject.
+ */
+public class JSONObject {
+
+    public static final Object NULL = new Object() {
+        @Override
+        public String toString() {
+            return "null";
+        }
+    };
+
+    private final Map<String, Object> values = new LinkedHashMap<String, Object>();
+
+    public JSONObject() {}
+
+    public JSONObject(String json) throws JSONException {
+        Object value = new JSONTokener(json).nextValue();
+        if (!(value instanceof JSONObject)) {
+            throw new JSONException("Not a JSON object: " + json);
+        }
+        values.putAll(((JSONObject) value).values);
+    }
+
+    public JSONObject put(String name, Object value) throws JSONException {
+        if (name == null) {
+            throw new JSONException("Names must be non-null");
+        }
+        if (value == null) {
+            values.remove(name);
+        } else {
+            values.put(name, value);
+        }
+        return this;
+    }
+
+    public JSONObject put(String name, boolean value) throws JSONException {
+        return put(name, (Object) value);
+    }
+
+    public JSONObject put(String name, int value) throws JSONException {
+        return put(name, (Object) value);
+    }
+
+    public JSONObject put(String name, long value) throws JSONException {
+        return put(name, (Object) value);
+    }
+
+    public JSONObject put(String name, double value) throws JSONException {
+        return put(name, (Object) value);
+    }
+
+    public boolean has(String name) {
+        return values.containsKey(name);
+    }
+
+    public Object opt(String name) {
+        return values.get(name);
+    }
+
+    public Object get(String name) throws JSONException {
+        Object value = values.get(name);
+        if (value == null) {
+            throw new JSONException("No value for " + name);
+        }
+        return value;
+    }
+
+    public String getString(String name) throws JSONException {
+        return String.valueOf(get(name));
+    }
+
+    public String optString(String name) {
+        Object value = values.get(name);
+        return value == null ? "" : String.valueOf(value);
+    }
+
+    public int getInt(String name) throws JSONException {
+        Object value = get(name);
+        if (value instanceof Number) {
+            return ((Number) value).intValue();
+        }
+        try {
+            return Integer.parseInt(String.valueOf(value));
+        } catch (NumberFormatException e) {
+            throw new JSONException("Value " + value + " at " + name + " is not an int");
+        }
+    }
+
+    public long optLong(String name, long fallback) {
+        Object value = values.get(name);
+        return value instanceof Number ? ((Number) value).longValue() : fallback;
+    }
+
+    public boolean optBoolean(String name, boolean fallback) {
+        Object value = values.get(name);
+        return value instanceof Boolean ? (Boolean) value : fallback;
+    }
+
+    public JSONObject optJSONObject(String name) {
+        Object value = values.get(name);
+        return value instanceof JSONObject ? (JSONObject) value : null;
+    }
+
+    public JSONArray optJSONArray(String name) {
+        Object value = values.get(name);
+        return value instanceof JSONArray ? (JSONArray) value : null;
+    }
+
+    public JSONObject getJSONObject(String name) throws JSONException {
+        Object value = get(name);
+        if (!(value instanceof JSONObject)) {
+            throw new JSONException("Value at " + name + " is not a JSONObject");
+        }
+        return (JSONObject) value;
+    }
+
+    public JSONArray getJSONArray(String name) throws JSONException {
+        Object value = get(name);
+        if (!(value instanceof JSONArray)) {
+            throw new JSONException("Value at " + name + " is not a JSONArray");
+        }
+        return (JSONArray) value;
+    }
+
+    public Object remove(String name) {
+        return values.remove(name);
+    }
+
+    public int length() {
+        return values.size();
+    }
+
+    public Iterator<String> keys() {
+        return values.keySet().iterator();
+    }
+
+    public JSONArray names() {
+        if (values.isEmpty()) {
+            return null;
+        }
+        JSONArray names = new JSONArray();
+        for (String name : values.keySet()) {
+            names.put(name);
+        }
+        return names;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("{");
+        boolean first = true;
+        for (Map.Entry<String, Object> entry : values.entrySet()) {
+            if (!first) {
+                sb.append(',');
+            }
+            first = false;
+            sb.append(quote(entry.getKey())).append(':');
+            appendValue(sb, entry.getValue());
+        }
+        return sb.append('}').toString();
+    }
+
+    static void appendValue(StringBuilder sb, Object value) {
+        if (value instanceof String) {
+            sb.append(quote((String) value));
+        } else {
+            sb.append(value);
+        }
+    }
+
+    public static String quote(String data) {
+        if (data == null) {
+            return "\"\"";
+        }
+        StringBuilder sb = new StringBuilder(data.length() + 2).append('"');
+        for (int i = 0; i < data.length(); i++) {
+            char c = data.charAt(i);
+            switch (c) {
+                case '"':
+                case '\\':
+                case '/':
+                    sb.append('\\').append(c);
+                    break;
+                case '\n':
+                    sb.append("\\n");
+                    break;
+                case '\r':
+                    sb.append("\\r");
+                    break;
+                case '\t':
+                    sb.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+            }
+        }
+        return sb.append('"').toString();
+    }
+}
@@ -0,0 +1,147 @@
+package org.json;
+
+/**
+ * Minimal stand-in for the Android org.json.JSONTokener.
+ */
+public class JSONTokener {
+
+    private final String in;
+    private int pos;
+
+    public JSONTokener(String in) {
+        this.in = in == null ? "" : in;
+    }
+
+    public Object nextValue() throws JSONException {
+        char c = nextClean();
+        switch (c) {
+            case '{':
+                return readObject();
+            case '[':
+                return readArray();
+            case '"':
+            case '\'':
+                return readString(c);
+            default:
+                pos--;
+                return readLiteral();
+        }
+    }
+
+    private char nextClean() throws JSONException {
+        while (pos < in.length()) {
+            char c = in.charAt(pos++);
+            if (!Character.isWhitespace(c)) {
+                return c;
+            }
+        }
+        throw new JSONException("End of input at character " + pos);
+    }
+
+    private JSONObject readObject() throws JSONException {
+        JSONObject result = new JSONObject();
+        char c = nextClean();
+        if (c == '}') {
+            return result;
+        }
+        pos--;
+        while (true) {
+            Object name = nextValue();
+            if (nextClean() != ':') {
+                throw new JSONException("Expected ':' after " + name);
+            }
+            result.put(String.valueOf(name), nextValue());
+            c = nextClean();
+            if (c == '}') {
+                return result;
+            }
+            if (c != ',') {
+                throw new JSONException("Unterminated object at character " + pos);
+            }
+        }
+    }
+
+    private JSONArray readArray() throws JSONException {
+        JSONArray result = new JSONArray();
+        char c = nextClean();
+        if (c == ']') {
+            return result;
+        }
+        pos--;
+        while (true) {
+            result.put(nextValue());
+            c = nextClean();
+            if (c == ']') {
+                return result;
+            }
+            if (c != ',') {
+                throw new JSONException("Unterminated array at character " + pos);
+            }
+        }
+    }
+
+    private String readString(char quote) throws JSONException {
+        StringBuilder sb = new StringBuilder();
+        while (pos < in.length()) {
+            char c = in.charAt(pos++);
+            if (c == quote) {
+                return sb.toString();
+            }
+            if (c == '\\') {
+                char escaped = in.charAt(pos++);
+                switch (escaped) {
+                    case 'n':
+                        sb.append('\n');
+                        break;
+                    case 'r':
+                        sb.append('\r');
+                        break;
+                    case 't':
+                        sb.append('\t');
+                        break;
+                    case 'u':
+                        sb.append((char) Integer.parseInt(in.substring(pos, pos + 4), 16));
+                        pos += 4;
+                        break;
+                    default:
+                        sb.append(escaped);
+                }
+            } else {
+                sb.append(c);
+            }
+        }
+        throw new JSONException("Unterminated string");
+    }
+
+    private Object readLiteral() throws JSONException {
+        int start = pos;
+        while (pos < in.length() && ",:]} \t\r\n".indexOf(in.charAt(pos)) < 0) {
+            pos++;
+        }
+        String literal = in.substring(start, pos);
+        if (literal.isEmpty()) {
+            throw new JSONException("Expected literal value at character " + start);
+        }
+        if ("null".equals(literal)) {
+            return JSONObject.NULL;
+        }
+        if ("true".equals(literal)) {
+            return Boolean.TRUE;
+        }
+        if ("false".equals(literal)) {
+            return Boolean.FALSE;
+        }
+        try {
+            if (literal.indexOf('.') >= 0 || literal.indexOf('e') >= 0 || literal.indexOf('E') >= 0) {
+                return Double.valueOf(literal);
+            }
+            long value = Long.parseLong(literal);
+            if (value >= Integer.MIN_VALUE && value <= Integer.MAX_VALUE) {
+                return (int) value;
+            }
+            return value;
+        } catch (NumberFormatException e) {
+            return literal;
+        }
+    }
+}
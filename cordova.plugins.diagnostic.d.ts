@@ -332,7 +332,8 @@ interface Diagnostic {
      * Debug mode is initially disabled on plugin initialisation.
      */
     enableDebug?: (
-        successCallback: () => void
+        successCallback: () => void,
+        logLevel?: string
     ) => void;
 
 
@@ -384,6 +385,47 @@ interface Diagnostic {
         errorCallback: (error: string) => void
     ) => void;
 
+    /**
+     * ANDROID ONLY
+     *
+     * Returns a snapshot of the device state reported by the loaded plugin modules, collected in a single call.
+     *
+     * @param successCallback
+     * @param errorCallback
+     * @param sections - names of the sections to collect; all sections of the loaded modules if not specified
+     */
+    getDiagnosticSnapshot?: (
+        successCallback: (snapshot: {sections: {[section: string]: any}, timings: {[section: string]: number}, errors: {[section: string]: string}, duration: number}) => void,
+        errorCallback: (error: string) => void,
+        sections?: string[]
+    ) => void;
+
+    /**
+     * ANDROID ONLY
+     *
+     * Returns the metrics recorded by the plugin for each native action.
+     *
+     * @param successCallback
+     * @param errorCallback
+     */
+    getMetrics?: (
+        successCallback: (metrics: {since: number, invalidActions: number, actions: {[action: string]: any}, permissionCache: any, logChannel?: any, pendingPermissionRequests: number}) => void,
+        errorCallback: (error: string) => void
+    ) => void;
+
+    /**
+     * ANDROID ONLY
+     *
+     * Discards the metrics recorded by the plugin.
+     *
+     * @param successCallback
+     * @param errorCallback
+     */
+    resetMetrics?: (
+        successCallback: () => void,
+        errorCallback: (error: string) => void
+    ) => void;
+
     /**
      * Returns true if the device setting for location is on.
      * On Android this returns true if Location Mode is switched on.
@@ -783,6 +825,15 @@ interface Diagnostic {
         permissions: string[]
     ) => void;
 
+    /**
+     * ANDROID ONLY
+     * Enables or disables compact results for bulk status queries.
+     * @param enabled - defaults to true
+     */
+    enableCompactResults?: (
+        enabled?: boolean
+    ) => void;
+
     /**
      * ANDROID ONLY
      * Requests app to be granted authorisation for a runtime permission.
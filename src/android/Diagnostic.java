@@ -21,17 +21,9 @@ package cordova.plugins;
 /*
  * Imports
  */
-import static android.content.Context.BATTERY_SERVICE;
-
-import java.io.BufferedReader;
-import java.io.File;
-import java.io.InputStreamReader;
-import java.lang.reflect.Field;
 import java.lang.reflect.Method;
-import java.util.Collections;
-import java.util.HashMap;
-import java.util.Map;
-import java.util.Random;
+import java.util.Arrays;
+import java.util.concurrent.Callable;
 
 
 import org.apache.cordova.CordovaWebView;
@@ -47,12 +39,9 @@ import android.annotation.TargetApi;
 import android.app.Activity;
 import android.app.AlarmManager;
 import android.app.PendingIntent;
-import android.content.SharedPreferences;
 import android.content.pm.ApplicationInfo;
 import android.content.pm.PackageInfo;
-import android.net.ConnectivityManager;
 import android.net.Uri;
-import android.os.BatteryManager;
 import android.os.Build;
 import android.util.Log;
 
@@ -61,9 +50,6 @@ import android.content.Intent;
 import android.content.pm.PackageManager;
 import android.provider.Settings;
 
-
-import androidx.core.app.ActivityCompat;
-
 /**
  * Diagnostic plugin implementation for Android
  */
@@ -80,79 +66,16 @@ public class Diagnostic extends CordovaPlugin{
     public static final String TAG = "Diagnostic";
 
 
-    /**
-     * Map of "dangerous" permissions that need to be requested at run-time (Android 6.0/API 23 and above)
-     * See http://developer.android.com/guide/topics/security/permissions.html#perm-groups
-     */
-    protected static final Map<String, String> permissionsMap;
-    static {
-        Map<String, String> _permissionsMap = new HashMap <String, String>();
-
-        // API 1-22+
-        Diagnostic.addBiDirMapEntry(_permissionsMap, "ACCESS_COARSE_LOCATION", "android.permission.ACCESS_COARSE_LOCATION");
-        Diagnostic.addBiDirMapEntry(_permissionsMap, "ACCESS_FINE_LOCATION", "android.permission.ACCESS_FINE_LOCATION");
-        Diagnostic.addBiDirMapEntry(_permissionsMap, "ADD_VOICEMAIL", "android.permission.ADD_VOICEMAIL");
-        Diagnostic.addBiDirMapEntry(_permissionsMap, "BODY_SENSORS", "android.permission.BODY_SENSORS");
-        Diagnostic.addBiDirMapEntry(_permissionsMap, "CALL_PHONE", "android.permission.CALL_PHONE");
-        Diagnostic.addBiDirMapEntry(_permissionsMap, "CAMERA", "android.permission.CAMERA");
-        Diagnostic.addBiDirMapEntry(_permissionsMap, "GET_ACCOUNTS", "android.permission.GET_ACCOUNTS");
-        Diagnostic.addBiDirMapEntry(_permissionsMap, "PROCESS_OUTGOING_CALLS", "android.permission.PROCESS_OUTGOING_CALLS");
-        Diagnostic.addBiDirMapEntry(_permissionsMap, "READ_CALENDAR", "android.permission.READ_CALENDAR");
-        Diagnostic.addBiDirMapEntry(_permissionsMap, "READ_CALL_LOG", "android.permission.READ_CALL_LOG");
-        Diagnostic.addBiDirMapEntry(_permissionsMap, "READ_CONTACTS", "android.permission.READ_CONTACTS");
-        Diagnostic.addBiDirMapEntry(_permissionsMap, "READ_EXTERNAL_STORAGE", "android.permission.READ_EXTERNAL_STORAGE");
-        Diagnostic.addBiDirMapEntry(_permissionsMap, "READ_PHONE_STATE", "android.permission.READ_PHONE_STATE");
-        Diagnostic.addBiDirMapEntry(_permissionsMap, "READ_SMS", "android.permission.READ_SMS");
-        Diagnostic.addBiDirMapEntry(_permissionsMap, "RECEIVE_MMS", "android.permission.RECEIVE_MMS");
-        Diagnostic.addBiDirMapEntry(_permissionsMap, "RECEIVE_SMS", "android.permission.RECEIVE_SMS");
-        Diagnostic.addBiDirMapEntry(_permissionsMap, "RECEIVE_WAP_PUSH", "android.permission.RECEIVE_WAP_PUSH");
-        Diagnostic.addBiDirMapEntry(_permissionsMap, "RECORD_AUDIO", "android.permission.RECORD_AUDIO");
-        Diagnostic.addBiDirMapEntry(_permissionsMap, "SEND_SMS", "android.permission.SEND_SMS");
-        Diagnostic.addBiDirMapEntry(_permissionsMap, "USE_SIP", "android.permission.USE_SIP");
-        Diagnostic.addBiDirMapEntry(_permissionsMap, "WRITE_CALENDAR", "android.permission.WRITE_CALENDAR");
-        Diagnostic.addBiDirMapEntry(_permissionsMap, "WRITE_CALL_LOG", "android.permission.WRITE_CALL_LOG");
-        Diagnostic.addBiDirMapEntry(_permissionsMap, "WRITE_CONTACTS", "android.permission.WRITE_CONTACTS");
-        Diagnostic.addBiDirMapEntry(_permissionsMap, "WRITE_EXTERNAL_STORAGE", "android.permission.WRITE_EXTERNAL_STORAGE");
-
-        // API 26+
-        Diagnostic.addBiDirMapEntry(_permissionsMap, "ANSWER_PHONE_CALLS", "android.permission.ANSWER_PHONE_CALLS");
-        Diagnostic.addBiDirMapEntry(_permissionsMap, "READ_PHONE_NUMBERS", "android.permission.READ_PHONE_NUMBERS");
-
-        // API 28+
-        Diagnostic.addBiDirMapEntry(_permissionsMap, "ACCEPT_HANDOVER", "android.permission.ACCEPT_HANDOVER");
-
-        // API 29+
-        Diagnostic.addBiDirMapEntry(_permissionsMap, "ACCESS_BACKGROUND_LOCATION", "android.permission.ACCESS_BACKGROUND_LOCATION");
-        Diagnostic.addBiDirMapEntry(_permissionsMap, "ACCESS_MEDIA_LOCATION", "android.permission.ACCESS_MEDIA_LOCATION");
-        Diagnostic.addBiDirMapEntry(_permissionsMap, "ACTIVITY_RECOGNITION", "android.permission.ACTIVITY_RECOGNITION");
-
-        // API 31+
-        Diagnostic.addBiDirMapEntry(_permissionsMap, "BLUETOOTH_ADVERTISE", "android.permission.BLUETOOTH_ADVERTISE");
-        Diagnostic.addBiDirMapEntry(_permissionsMap, "BLUETOOTH_CONNECT", "android.permission.BLUETOOTH_CONNECT");
-        Diagnostic.addBiDirMapEntry(_permissionsMap, "BLUETOOTH_SCAN", "android.permission.BLUETOOTH_SCAN");
-        Diagnostic.addBiDirMapEntry(_permissionsMap, "UWB_RANGING", "android.permission.UWB_RANGING");
-
-        // API 33+
-        Diagnostic.addBiDirMapEntry(_permissionsMap, "BODY_SENSORS_BACKGROUND", "android.permission.BODY_SENSORS_BACKGROUND");
-        Diagnostic.addBiDirMapEntry(_permissionsMap, "NEARBY_WIFI_DEVICES", "android.permission.NEARBY_WIFI_DEVICES");
-        Diagnostic.addBiDirMapEntry(_permissionsMap, "POST_NOTIFICATIONS", "android.permission.POST_NOTIFICATIONS");
-        Diagnostic.addBiDirMapEntry(_permissionsMap, "READ_MEDIA_AUDIO", "android.permission.READ_MEDIA_AUDIO");
-        Diagnostic.addBiDirMapEntry(_permissionsMap, "READ_MEDIA_IMAGES", "android.permission.READ_MEDIA_IMAGES");
-        Diagnostic.addBiDirMapEntry(_permissionsMap, "READ_MEDIA_VIDEO", "android.permission.READ_MEDIA_VIDEO");
-
-        permissionsMap = Collections.unmodifiableMap(_permissionsMap);
-    }
-
-
     /*
-     * Map of permission request code to callback context
+     * Runtime permission requests awaiting a result, keyed by request code
      */
-    protected HashMap<String, CallbackContext> callbackContexts = new HashMap<String, CallbackContext>();
+    protected DiagnosticPendingRequests pendingRequests = new DiagnosticPendingRequests(
+            DiagnosticPendingRequests.DEFAULT_TIMEOUT_MS, GET_EXTERNAL_SD_CARD_DETAILS_PERMISSION_REQUEST);
 
     /*
-     * Map of permission request code to permission statuses
+     * Permission requests waiting for the system permission dialog
      */
-    protected HashMap<String, JSONObject> permissionStatuses = new HashMap<String, JSONObject>();
+    protected DiagnosticPermissionRequestQueue permissionRequests;
 
 
     /**
@@ -175,6 +98,29 @@ public class Diagnostic extends CordovaPlugin{
      */
     protected static final String STATUS_NOT_REQUESTED = "NOT_REQUESTED";
 
+    /*
+     * Status codes used internally, indexing STATUS_NAMES
+     */
+    protected static final int STATUS_CODE_NOT_REQUESTED = 0;
+    protected static final int STATUS_CODE_GRANTED = 1;
+    protected static final int STATUS_CODE_DENIED_ONCE = 2;
+    protected static final int STATUS_CODE_DENIED_ALWAYS = 3;
+
+    /**
+     * Status names returned to JS, indexed by status code
+     */
+    protected static final String[] STATUS_NAMES = {
+        STATUS_NOT_REQUESTED,
+        STATUS_GRANTED,
+        STATUS_DENIED_ONCE,
+        STATUS_DENIED_ALWAYS
+    };
+
+    /**
+     * Value of a permission which was not queried in a compact status result
+     */
+    protected static final byte COMPACT_STATUS_NONE = (byte) 0xFF;
+
     public static final String CPU_ARCH_UNKNOWN = "unknown";
     public static final String CPU_ARCH_ARMv6 = "ARMv6";
     public static final String CPU_ARCH_ARMv7 = "ARMv7";
@@ -187,6 +133,40 @@ public class Diagnostic extends CordovaPlugin{
     protected static final String externalStorageClassName = "cordova.plugins.Diagnostic_External_Storage";
     protected static final Integer GET_EXTERNAL_SD_CARD_DETAILS_PERMISSION_REQUEST = 1000;
 
+    /**
+     * config.xml preference which, if true, dispatches state change broadcasts on a dedicated thread rather than the main looper
+     */
+    protected static final String BROADCAST_THREAD_PREFERENCE = "DiagnosticBroadcastThread";
+
+    /**
+     * config.xml preference for the quiet window in ms after which a burst of state change broadcasts is delivered as one event; 0 disables coalescing
+     */
+    protected static final String EVENT_QUIET_WINDOW_PREFERENCE = "DiagnosticEventQuietWindow";
+    protected static final int DEFAULT_EVENT_QUIET_WINDOW_MS = 200;
+
+    /**
+     * config.xml preference for which broadcasts of a burst are delivered: "trailing" (default) or "both".
+     * "leading" is accepted as an alias of "both": the settled state at the end of a burst is always delivered.
+     */
+    protected static final String EVENT_DELIVERY_PREFERENCE = "DiagnosticEventDelivery";
+
+    /**
+     * Time in ms after which a device state mirrored from state change broadcasts is queried again
+     */
+    protected static final long STATE_MIRROR_MAX_AGE_MS = 10000;
+
+    /**
+     * config.xml preference for the maximum time in ms root detection waits for its probes
+     */
+    protected static final String ROOT_DETECTION_BUDGET_PREFERENCE = "DiagnosticRootDetectionBudget";
+
+    protected static final String ROOT_DETECTION_KEY = "getRootDetection";
+
+    /**
+     * Time in ms for which a root detection in which probes timed out or failed is reused before it is run again
+     */
+    protected static final long INCOMPLETE_ROOT_DETECTION_TTL_MS = 30000;
+
     /*************
      * Variables *
      *************/
@@ -199,15 +179,77 @@ public class Diagnostic extends CordovaPlugin{
     boolean debugEnabled = false;
 
 
+    protected Context applicationContext;
+
     /**
-     * Current Cordova callback context (on this thread)
+     * Sections of the diagnostic snapshot contributed by the loaded modules
      */
-    protected CallbackContext currentContext;
+    protected DiagnosticSnapshot snapshot = new DiagnosticSnapshot();
 
-    protected Context applicationContext;
+    /**
+     * Subscriptions of the JS layer to native state change events
+     */
+    protected DiagnosticEventBus eventBus = new DiagnosticEventBus();
+
+    /**
+     * Executes batches of calls coalesced by the JS layer
+     */
+    protected DiagnosticBatch batch = new DiagnosticBatch(this);
+
+    /**
+     * Call counts, error counts and latencies of the actions of all modules
+     */
+    protected DiagnosticMetrics metrics = new DiagnosticMetrics();
 
-    protected SharedPreferences sharedPref;
-    protected SharedPreferences.Editor editor;
+    /**
+     * Batched channel for debug log messages to the JS console
+     */
+    protected DiagnosticLogChannel logChannel;
+
+    /**
+     * Persistent record of which permissions have been requested
+     */
+    protected DiagnosticPermissionStore permissionStore;
+
+    /**
+     * Handlers for the actions exposed by this module
+     */
+    protected DiagnosticActionRegistry actions;
+
+    /**
+     * Reflective method handles resolved on initialisation
+     */
+    protected DiagnosticMethodBindings bindings;
+
+    /**
+     * Snapshot of permission authorisation statuses, invalidated when they may have changed
+     */
+    protected DiagnosticPermissionCache permissionCache = new DiagnosticPermissionCache();
+
+    /**
+     * Memoized results of slow probes, shared by all modules
+     */
+    protected DiagnosticMemo memo = new DiagnosticMemo();
+
+    /**
+     * Parser of the kernel mount table
+     */
+    protected DiagnosticMountTable mountTable = new DiagnosticMountTable();
+
+    /**
+     * Probes run to detect whether the device is rooted
+     */
+    protected DiagnosticRootDetector rootDetector = new DiagnosticRootDetector(mountTable);
+
+    /**
+     * Source of the device state read by the plugin modules
+     */
+    protected volatile DiagnosticDeviceStateProvider deviceState;
+
+    /**
+     * Shared receiver for the broadcasts the plugin modules listen for
+     */
+    protected DiagnosticBroadcastMultiplexer broadcasts;
 
     /*************
      * Public API
@@ -234,8 +276,22 @@ public class Diagnostic extends CordovaPlugin{
         instance = this;
 
         applicationContext = this.cordova.getActivity().getApplicationContext();
-        sharedPref = cordova.getActivity().getSharedPreferences(TAG, Activity.MODE_PRIVATE);
-        editor = sharedPref.edit();
+        logChannel = new DiagnosticLogChannel();
+        permissionRequests = new DiagnosticPermissionRequestQueue(this);
+        permissionStore = new DiagnosticPermissionStore(applicationContext);
+        permissionStore.loadAsync(cordova.getThreadPool());
+        bindings = new DiagnosticMethodBindings(cordova, applicationContext);
+        if(deviceState == null){
+            deviceState = new DiagnosticAndroidDeviceState(applicationContext, bindings);
+        }
+        broadcasts = new DiagnosticBroadcastMultiplexer(this, applicationContext,
+                preferences != null && preferences.getBoolean(BROADCAST_THREAD_PREFERENCE, false));
+
+        rootDetector.registerDefaultProbes();
+
+        actions = new DiagnosticActionRegistry(this);
+        registerActions();
+        registerSnapshotProviders();
 
         super.initialize(cordova, webView);
     }
@@ -249,67 +305,318 @@ public class Diagnostic extends CordovaPlugin{
      * @return                  True if the action was valid, false if not.
      */
     public boolean execute(String action, JSONArray args, CallbackContext callbackContext) throws JSONException {
-        currentContext = callbackContext;
+        return actions.dispatch(action, args, callbackContext);
+    }
 
-        try {
-            if (action.equals("enableDebug")){
+    /**
+     * Registers the providers of the core sections of the diagnostic snapshot.
+     */
+    protected void registerSnapshotProviders(){
+        registerSnapshotProvider("device", new DiagnosticSnapshot.Provider() {
+            @Override
+            public JSONObject getSnapshot() throws Exception {
+                JSONObject section = new JSONObject();
+                section.put("airplaneModeEnabled", isAirplaneModeEnabled());
+                section.put("mobileDataEnabled", isMobileDataEnabled());
+                section.put("dataRoamingEnabled", isDataRoamingEnabled());
+                section.put("batteryLevel", getCurrentBatteryLevel());
+                return section;
+            }
+        });
+        registerSnapshotProvider("permissions", new DiagnosticSnapshot.Provider() {
+            @Override
+            public JSONObject getSnapshot() throws Exception {
+                String[] permissions = new String[DiagnosticPermission.count()];
+                for(int i = 0; i < permissions.length; i++){
+                    permissions[i] = DiagnosticPermission.get(i).name();
+                }
+                return _getPermissionsAuthorizationStatus(permissions);
+            }
+        });
+    }
+
+    /**
+     * Registers the handlers for the actions exposed by this module.
+     */
+    protected void registerActions(){
+        actions.register("enableDebug", new DiagnosticActionRegistry.Action() {
+            @Override
+            public void execute(JSONArray args, CallbackContext callbackContext) throws Exception {
                 debugEnabled = true;
                 logDebug("Debug enabled");
                 callbackContext.success();
-            } else if (action.equals("switchToSettings")){
+            }
+        });
+        actions.register("getMetrics", new DiagnosticActionRegistry.Action() {
+            @Override
+            public void execute(JSONArray args, CallbackContext callbackContext) throws Exception {
+                callbackContext.success(getMetrics());
+            }
+        });
+        actions.register("resetMetrics", new DiagnosticActionRegistry.Action() {
+            @Override
+            public void execute(JSONArray args, CallbackContext callbackContext) throws Exception {
+                metrics.reset();
+                callbackContext.success();
+            }
+        });
+        actions.register("batch", new DiagnosticActionRegistry.Action() {
+            @Override
+            public void execute(JSONArray args, CallbackContext callbackContext) throws Exception {
+                batch.execute(args.getJSONArray(0), callbackContext);
+            }
+        });
+        actions.register("openLogChannel", new DiagnosticActionRegistry.Action() {
+            @Override
+            public void execute(JSONArray args, CallbackContext callbackContext) throws Exception {
+                logChannel.open(callbackContext, DiagnosticLogChannel.parseLevel(args.optString(0)));
+            }
+        });
+        actions.register("subscribeEvents", new DiagnosticActionRegistry.Action() {
+            @Override
+            public void execute(JSONArray args, CallbackContext callbackContext) throws Exception {
+                eventBus.subscribe(args.optString(0, DiagnosticEventBus.ALL_TYPES), callbackContext);
+            }
+        });
+        actions.register("unsubscribeEvents", new DiagnosticActionRegistry.Action() {
+            @Override
+            public void execute(JSONArray args, CallbackContext callbackContext) throws Exception {
+                eventBus.unsubscribe(args.optString(0, DiagnosticEventBus.ALL_TYPES));
+                callbackContext.success();
+            }
+        });
+        actions.register("getDiagnosticSnapshot", DiagnosticActionRegistry.ThreadPolicy.BACKGROUND, new DiagnosticActionRegistry.Action() {
+            @Override
+            public void execute(JSONArray args, CallbackContext callbackContext) throws Exception {
+                callbackContext.success(getDiagnosticSnapshot(args.optJSONArray(0)));
+            }
+        });
+        actions.register("switchToSettings", DiagnosticActionRegistry.ThreadPolicy.UI, new DiagnosticActionRegistry.Action() {
+            @Override
+            public void execute(JSONArray args, CallbackContext callbackContext) throws Exception {
                 switchToAppSettings();
                 callbackContext.success();
-            } else if (action.equals("switchToMobileDataSettings")){
+            }
+        });
+        actions.register("switchToMobileDataSettings", DiagnosticActionRegistry.ThreadPolicy.UI, new DiagnosticActionRegistry.Action() {
+            @Override
+            public void execute(JSONArray args, CallbackContext callbackContext) throws Exception {
                 switchToMobileDataSettings();
                 callbackContext.success();
-            } else if (action.equals("switchToWirelessSettings")){
+            }
+        });
+        actions.register("switchToWirelessSettings", DiagnosticActionRegistry.ThreadPolicy.UI, new DiagnosticActionRegistry.Action() {
+            @Override
+            public void execute(JSONArray args, CallbackContext callbackContext) throws Exception {
                 switchToWirelessSettings();
                 callbackContext.success();
-            } else if(action.equals("isDataRoamingEnabled")) {
+            }
+        });
+        actions.register("isDataRoamingEnabled", new DiagnosticActionRegistry.Action() {
+            @Override
+            public void execute(JSONArray args, CallbackContext callbackContext) throws Exception {
                 callbackContext.success(isDataRoamingEnabled() ? 1 : 0);
-            } else if(action.equals("getPermissionAuthorizationStatus")) {
-                this.getPermissionAuthorizationStatus(args);
-            } else if(action.equals("getPermissionsAuthorizationStatus")) {
-                this.getPermissionsAuthorizationStatus(args);
-            } else if(action.equals("requestRuntimePermission")) {
-                this.requestRuntimePermission(args);
-            } else if(action.equals("requestRuntimePermissions")) {
-                this.requestRuntimePermissions(args);
-            } else if(action.equals("isADBModeEnabled")) {
+            }
+        });
+        actions.register("getPermissionAuthorizationStatus", new DiagnosticActionRegistry.Action() {
+            @Override
+            public void execute(JSONArray args, CallbackContext callbackContext) throws Exception {
+                getPermissionAuthorizationStatus(args, callbackContext);
+            }
+        });
+        actions.register("getCompactStatusTable", new DiagnosticActionRegistry.Action() {
+            @Override
+            public void execute(JSONArray args, CallbackContext callbackContext) throws Exception {
+                callbackContext.success(getCompactStatusTable());
+            }
+        });
+        actions.register("getPermissionsAuthorizationStatus", new DiagnosticActionRegistry.Action() {
+            @Override
+            public void execute(JSONArray args, CallbackContext callbackContext) throws Exception {
+                getPermissionsAuthorizationStatus(args, callbackContext);
+            }
+        });
+        actions.register("requestRuntimePermission", new DiagnosticActionRegistry.Action() {
+            @Override
+            public void execute(JSONArray args, CallbackContext callbackContext) throws Exception {
+                requestRuntimePermission(args, callbackContext);
+            }
+        });
+        actions.register("requestRuntimePermissions", new DiagnosticActionRegistry.Action() {
+            @Override
+            public void execute(JSONArray args, CallbackContext callbackContext) throws Exception {
+                requestRuntimePermissions(args, callbackContext);
+            }
+        });
+        actions.register("isADBModeEnabled", new DiagnosticActionRegistry.Action() {
+            @Override
+            public void execute(JSONArray args, CallbackContext callbackContext) throws Exception {
                 callbackContext.success(isADBModeEnabled() ? 1 : 0);
-            } else if(action.equals("isDeviceRooted")) {
+            }
+        });
+        actions.register("isDeviceRooted", DiagnosticActionRegistry.ThreadPolicy.BACKGROUND, new DiagnosticActionRegistry.Action() {
+            @Override
+            public void execute(JSONArray args, CallbackContext callbackContext) throws Exception {
                 callbackContext.success(isDeviceRooted() ? 1 : 0);
-            } else if(action.equals("isMobileDataEnabled")) {
+            }
+        });
+        actions.register("getRootDetectionDetails", DiagnosticActionRegistry.ThreadPolicy.BACKGROUND, new DiagnosticActionRegistry.Action() {
+            @Override
+            public void execute(JSONArray args, CallbackContext callbackContext) throws Exception {
+                callbackContext.success(getRootDetection().toJSON());
+            }
+        });
+        actions.register("isMobileDataEnabled", new DiagnosticActionRegistry.Action() {
+            @Override
+            public void execute(JSONArray args, CallbackContext callbackContext) throws Exception {
                 callbackContext.success(isMobileDataEnabled() ? 1 : 0);
-            } else if(action.equals("restart")) {
-                this.restart(args);
-            } else if(action.equals("getArchitecture")) {
+            }
+        });
+        actions.register("restart", DiagnosticActionRegistry.ThreadPolicy.UI, new DiagnosticActionRegistry.Action() {
+            @Override
+            public void execute(JSONArray args, CallbackContext callbackContext) throws Exception {
+                restart(args, callbackContext);
+            }
+        });
+        actions.register("getArchitecture", new DiagnosticActionRegistry.Action() {
+            @Override
+            public void execute(JSONArray args, CallbackContext callbackContext) throws Exception {
                 callbackContext.success(getCPUArchitecture());
-            } else if(action.equals("getCurrentBatteryLevel")) {
+            }
+        });
+        actions.register("getCurrentBatteryLevel", new DiagnosticActionRegistry.Action() {
+            @Override
+            public void execute(JSONArray args, CallbackContext callbackContext) throws Exception {
                 callbackContext.success(getCurrentBatteryLevel());
-            } else if(action.equals("isAirplaneModeEnabled")) {
+            }
+        });
+        actions.register("isAirplaneModeEnabled", new DiagnosticActionRegistry.Action() {
+            @Override
+            public void execute(JSONArray args, CallbackContext callbackContext) throws Exception {
                 callbackContext.success(isAirplaneModeEnabled() ? 1 : 0);
-            } else if(action.equals("getDeviceOSVersion")) {
+            }
+        });
+        actions.register("getDeviceOSVersion", DiagnosticActionRegistry.ThreadPolicy.BACKGROUND, new DiagnosticActionRegistry.Action() {
+            @Override
+            public void execute(JSONArray args, CallbackContext callbackContext) throws Exception {
                 callbackContext.success(getDeviceOSVersion());
-            } else if(action.equals("getBuildOSVersion")) {
+            }
+        });
+        actions.register("getBuildOSVersion", DiagnosticActionRegistry.ThreadPolicy.BACKGROUND, new DiagnosticActionRegistry.Action() {
+            @Override
+            public void execute(JSONArray args, CallbackContext callbackContext) throws Exception {
                 callbackContext.success(getBuildOSVersion());
-            } else {
-                handleError("Invalid action");
-                return false;
             }
-        }catch(Exception e ) {
-            handleError("Exception occurred: ".concat(e.getMessage()));
-            return false;
+        });
+    }
+
+    /**
+     * Runs the handler of an action on the thread declared by its policy.
+     * Its queue wait and run time are recorded in the metrics and, if debug is enabled, logged.
+     * Exceptions thrown by the handler are reported to the JS error callback.
+     *
+     * @param name              Name of the action.
+     * @param policy            Thread the action runs on.
+     * @param action            Handler of the action.
+     * @param args              JSONArray of arguments for the action.
+     * @param callbackContext   The callback context used when calling back into JavaScript.
+     * @return                  False if the action ran inline and threw an exception, otherwise true.
+     */
+    public boolean runAction(final String name, final DiagnosticActionRegistry.ThreadPolicy policy, final DiagnosticActionRegistry.Action action,
+                             final JSONArray args, final CallbackContext callbackContext){
+        if(policy == DiagnosticActionRegistry.ThreadPolicy.INLINE){
+            return executeAction(name, policy, action, args, callbackContext, 0);
+        }
+
+        final long queuedAt = System.nanoTime();
+        Runnable task = new Runnable() {
+            @Override
+            public void run() {
+                executeAction(name, policy, action, args, callbackContext, queuedAt);
+            }
+        };
+        try{
+            if(policy == DiagnosticActionRegistry.ThreadPolicy.UI){
+                cordova.getActivity().runOnUiThread(task);
+            }else{
+                cordova.getThreadPool().execute(task);
+            }
+        }catch(Exception e){
+            metrics.recordError(name);
+            handleError("Unable to schedule action " + name + ": " + e.getMessage(), callbackContext);
         }
         return true;
     }
 
-    public void restart(JSONArray args) throws Exception{
+    protected boolean executeAction(String name, DiagnosticActionRegistry.ThreadPolicy policy, DiagnosticActionRegistry.Action action,
+                                    JSONArray args, CallbackContext callbackContext, long queuedAt){
+        long startedAt = System.nanoTime();
+        if(queuedAt == 0){
+            queuedAt = startedAt; // ran inline
+        }
+        boolean success = true;
+        try{
+            action.execute(args, callbackContext);
+        }catch(Exception e){
+            handleError("Exception occurred: ".concat(String.valueOf(e.getMessage())), callbackContext);
+            success = false;
+        }
+        long finishedAt = System.nanoTime();
+        metrics.record(name, startedAt - queuedAt, finishedAt - queuedAt, success);
+        if(debugEnabled){
+            Log.d(TAG, name + " [" + policy + "] waited " + (startedAt - queuedAt) / 1000 + "us, ran " + (finishedAt - startedAt) / 1000 + "us");
+        }
+        return success;
+    }
+
+    /**
+     * Registers the provider of a section of the diagnostic snapshot.
+     * Called by each module on initialisation.
+     *
+     * @param section   Name of the section, as passed to getDiagnosticSnapshot()
+     * @param provider  Provider of the section
+     */
+    public void registerSnapshotProvider(String section, DiagnosticSnapshot.Provider provider){
+        snapshot.register(section, provider);
+    }
+
+    /**
+     * Collects the given sections of the diagnostic snapshot in parallel.
+     * @param sections Names of the sections to collect, or null to collect all sections of the loaded modules
+     */
+    public JSONObject getDiagnosticSnapshot(JSONArray sections) throws Exception{
+        return snapshot.collect(sections, cordova.getThreadPool(), DiagnosticSnapshot.DEFAULT_TIMEOUT_MS);
+    }
+
+    /**
+     * Returns the recorded action metrics, along with the statistics of the permission cache, memo and log channel.
+     */
+    public JSONObject getMetrics() throws JSONException{
+        JSONObject result = metrics.toJSON();
+        result.put("permissionCache", permissionCache.getStats());
+        result.put("memo", memo.getStats());
+        if(logChannel != null){
+            result.put("logChannel", logChannel.getStats());
+        }
+        result.put("pendingPermissionRequests", pendingRequests.size());
+        return result;
+    }
+
+    /**
+     * Returns the plugin instance registered for a Cordova service name, or null if there is none.
+     */
+    protected CordovaPlugin getServicePlugin(String service){
+        if(TAG.equals(service)) return this;
+        if(webView == null || webView.getPluginManager() == null) return null;
+        return webView.getPluginManager().getPlugin(service);
+    }
+
+    public void restart(JSONArray args, CallbackContext callbackContext) throws Exception{
         boolean cold = args.getBoolean(0);
         if(cold){
-            doColdRestart();
+            doColdRestart(callbackContext);
         }else{
-            doWarmRestart();
+            doWarmRestart(callbackContext);
         }
     }
 
@@ -317,9 +624,9 @@ public class Diagnostic extends CordovaPlugin{
     public boolean isDataRoamingEnabled() throws Exception {
         boolean result;
         if (Build.VERSION.SDK_INT < 17) {
-            result = Settings.System.getInt(this.cordova.getActivity().getContentResolver(), Settings.Global.DATA_ROAMING, 0) == 1;
+            result = deviceState.getSystemSetting(Settings.Global.DATA_ROAMING, 0) == 1;
         }else{
-            result = Settings.Global.getInt(this.cordova.getActivity().getContentResolver(), Settings.Global.DATA_ROAMING, 0) == 1;
+            result = deviceState.getGlobalSetting(Settings.Global.DATA_ROAMING, 0) == 1;
         }
         return result;
     }
@@ -345,32 +652,33 @@ public class Diagnostic extends CordovaPlugin{
         cordova.getActivity().startActivity(settingsIntent);
     }
 
-    public void getPermissionsAuthorizationStatus(JSONArray args) throws Exception{
+    public void getPermissionsAuthorizationStatus(JSONArray args, CallbackContext callbackContext) throws Exception{
         JSONArray permissions = args.getJSONArray(0);
+        if(args.optBoolean(1)){
+            callbackContext.success(_getPermissionsAuthorizationStatusCompact(jsonArrayToStringArray(permissions)));
+            return;
+        }
         JSONObject statuses = _getPermissionsAuthorizationStatus(jsonArrayToStringArray(permissions));
-        currentContext.success(statuses);
+        callbackContext.success(statuses);
     }
 
-    public void getPermissionAuthorizationStatus(JSONArray args) throws Exception{
+    public void getPermissionAuthorizationStatus(JSONArray args, CallbackContext callbackContext) throws Exception{
         String permission = args.getString(0);
-        JSONArray permissions = new JSONArray();
-        permissions.put(permission);
-        JSONObject statuses = _getPermissionsAuthorizationStatus(jsonArrayToStringArray(permissions));
-        currentContext.success(statuses.getString(permission));
+        callbackContext.success(_getPermissionAuthorizationStatus(permission));
     }
 
-    public void requestRuntimePermissions(JSONArray args) throws Exception{
+    public void requestRuntimePermissions(JSONArray args, CallbackContext callbackContext) throws Exception{
         JSONArray permissions = args.getJSONArray(0);
-        int requestId = storeCurrentContextByRequestId();
+        int requestId = storeContextByRequestId(callbackContext);
         _requestRuntimePermissions(permissions, requestId);
     }
 
-    public void requestRuntimePermission(JSONArray args) throws Exception{
-        requestRuntimePermission(args.getString(0));
+    public void requestRuntimePermission(JSONArray args, CallbackContext callbackContext) throws Exception{
+        requestRuntimePermission(args.getString(0), callbackContext);
     }
 
-    public void requestRuntimePermission(String permission) throws Exception{
-        requestRuntimePermission(permission, storeCurrentContextByRequestId());
+    public void requestRuntimePermission(String permission, CallbackContext callbackContext) throws Exception{
+        requestRuntimePermission(permission, storeContextByRequestId(callbackContext));
     }
 
     public void requestRuntimePermission(String permission, int requestId) throws Exception{
@@ -385,9 +693,9 @@ public class Diagnostic extends CordovaPlugin{
     public int getADBMode(){
         int mode;
         if (Build.VERSION.SDK_INT >= 17){ // Jelly_Bean_MR1 and above
-            mode = Settings.Global.getInt(applicationContext.getContentResolver(), Settings.Global.ADB_ENABLED, 0);
+            mode = deviceState.getGlobalSetting(Settings.Global.ADB_ENABLED, 0);
         } else { // Pre-Jelly_Bean_MR1
-            mode = Settings.Secure.getInt(applicationContext.getContentResolver(), Settings.Secure.ADB_ENABLED, 0);
+            mode = deviceState.getSecureSetting(Settings.Secure.ADB_ENABLED, 0);
         }
         return mode;
     }
@@ -412,55 +720,39 @@ public class Diagnostic extends CordovaPlugin{
      * refer to: https://stackoverflow.com/questions/1101380
      */
     public boolean isDeviceRooted(){
-        // from build info
-        String buildTags = android.os.Build.TAGS;
-        if (buildTags != null && buildTags.contains("test-keys")) {
-            return true;
-        }
-
-        // from binary exists
         try {
-            String[] paths = { "/system/app/Superuser.apk", "/sbin/su", "/system/bin/su", "/system/xbin/su", "/data/local/xbin/su",
-                    "/data/local/bin/su", "/system/sd/xbin/su", "/system/bin/failsafe/su", "/data/local/su" };
-            for (String path : paths) {
-                if (new File(path).exists()) {
-                    return true;
-                }
-            }
+            return getRootDetection().isRooted();
         } catch (Exception e) {
-            logDebug(e.getMessage());
+            logError("Error checking if device is rooted: " + e.getMessage());
+            return false;
         }
+    }
 
-        // from command authority
-        Process process = null;
-        try {
-            process = Runtime.getRuntime().exec(new String[] { "/system/xbin/which", "su" });
-            BufferedReader in = new BufferedReader(new InputStreamReader(process.getInputStream()));
-            if (in.readLine() != null) {
-                return true;
+    /**
+     * Runs the root detection probes within the budget set by the DiagnosticRootDetectionBudget preference.
+     * A complete result is memoized for the lifetime of the process; one in which probes timed out or failed
+     * is kept for INCOMPLETE_ROOT_DETECTION_TTL_MS and then retried. Concurrent callers share a single detection.
+     */
+    public DiagnosticRootDetector.Result getRootDetection() throws Exception{
+        return memo.get(ROOT_DETECTION_KEY, DiagnosticMemo.PROCESS_LIFETIME, new Callable<DiagnosticRootDetector.Result>() {
+            @Override
+            public DiagnosticRootDetector.Result call() throws Exception {
+                long budget = DiagnosticRootDetector.DEFAULT_BUDGET_MS;
+                if(preferences != null){
+                    budget = preferences.getInteger(ROOT_DETECTION_BUDGET_PREFERENCE, (int) budget);
+                }
+                DiagnosticRootDetector.Result result = rootDetector.detect(cordova.getThreadPool(), budget);
+                logDebug("Root detection score: " + result.getScore() + (result.isComplete() ? "" : " (incomplete)"));
+                if(!result.isComplete()){
+                    memo.setTtl(ROOT_DETECTION_KEY, INCOMPLETE_ROOT_DETECTION_TTL_MS);
+                }
+                return result;
             }
-        } catch (Exception e) {
-            logDebug(e.getMessage());
-        } finally {
-            if (process != null) process.destroy();
-        }
-
-        return false;
+        });
     }
 
-    // https://stackoverflow.com/a/12864897/777265
     public boolean isMobileDataEnabled(){
-        boolean mobileDataEnabled = false; // Assume disabled
-        ConnectivityManager cm = (ConnectivityManager) cordova.getContext().getSystemService(Context.CONNECTIVITY_SERVICE);
-        try {
-            Class cmClass = Class.forName(cm.getClass().getName());
-            Method method = cmClass.getDeclaredMethod("getMobileDataEnabled");
-            method.setAccessible(true);
-            mobileDataEnabled = (Boolean)method.invoke(cm);
-        } catch (Exception e) {
-            logDebug(e.getMessage());
-        }
-        return mobileDataEnabled;
+        return deviceState.isMobileDataEnabled();
     }
 
     /************
@@ -471,7 +763,7 @@ public class Diagnostic extends CordovaPlugin{
         if(msg == null) return;
         if(debugEnabled){
             Log.d(TAG, msg);
-            executeGlobalJavascript("console.log(\""+TAG+"[native]: "+escapeDoubleQuotes(msg)+"\")");
+            logToConsole(DiagnosticLogChannel.LEVEL_DEBUG, "log", msg);
         }
     }
 
@@ -479,7 +771,7 @@ public class Diagnostic extends CordovaPlugin{
         if(msg == null) return;
         Log.i(TAG, msg);
         if(debugEnabled){
-            executeGlobalJavascript("console.info(\""+TAG+"[native]: "+escapeDoubleQuotes(msg)+"\")");
+            logToConsole(DiagnosticLogChannel.LEVEL_INFO, "info", msg);
         }
     }
 
@@ -487,7 +779,7 @@ public class Diagnostic extends CordovaPlugin{
         if(msg == null) return;
         Log.w(TAG, msg);
         if(debugEnabled){
-            executeGlobalJavascript("console.warn(\""+TAG+"[native]: "+escapeDoubleQuotes(msg)+"\")");
+            logToConsole(DiagnosticLogChannel.LEVEL_WARN, "warn", msg);
         }
     }
 
@@ -495,10 +787,19 @@ public class Diagnostic extends CordovaPlugin{
         if(msg == null) return;
         Log.e(TAG, msg);
         if(debugEnabled){
-            executeGlobalJavascript("console.error(\""+TAG+"[native]: "+escapeDoubleQuotes(msg)+"\")");
+            logToConsole(DiagnosticLogChannel.LEVEL_ERROR, "error", msg);
         }
     }
 
+    /**
+     * Sends a message to the JS console via the log channel,
+     * or directly if the channel has not been opened by the JS layer.
+     */
+    protected void logToConsole(int level, String consoleMethod, String msg){
+        if(logChannel != null && logChannel.log(level, msg)) return;
+        executeGlobalJavascript("console."+consoleMethod+"(\""+TAG+"[native]: "+escapeDoubleQuotes(msg)+"\")");
+    }
+
     public String escapeDoubleQuotes(String string){
         String escapedString = string.replace("\"", "\\\"");
         escapedString = escapedString.replace("%22", "\\%22");
@@ -519,15 +820,6 @@ public class Diagnostic extends CordovaPlugin{
         }
     }
 
-    /**
-     * Handles an error while executing a plugin API method in the current context.
-     * Calls the registered Javascript plugin error handler callback.
-     * @param errorMsg Error message to pass to the JS error handler
-     */
-    public void handleError(String errorMsg) {
-        handleError(errorMsg, currentContext);
-    }
-
     /**
      * Handles error during a runtime permissions request.
      * Calls the registered Javascript plugin error handler callback
@@ -536,73 +828,157 @@ public class Diagnostic extends CordovaPlugin{
      * @param requestId The ID of the runtime request
      */
     public void handleError(String errorMsg, int requestId){
-        CallbackContext context;
-        String sRequestId = String.valueOf(requestId);
-        if (callbackContexts.containsKey(sRequestId)) {
-            context = callbackContexts.get(sRequestId);
+        DiagnosticPendingRequests.PendingRequest request = pendingRequests.remove(requestId);
+        if (request != null) {
+            handleError(errorMsg, request.context);
         }else{
-            context = currentContext;
+            logError(errorMsg + " (no pending request for id=" + requestId + ")");
         }
-        handleError(errorMsg, context);
-        clearRequest(requestId);
     }
 
     protected JSONObject _getPermissionsAuthorizationStatus(String[] permissions) throws Exception{
+        DiagnosticPermission[] resolved = resolvePermissions(permissions);
+        int[] codes = _getPermissionStatusCodes(resolved);
         JSONObject statuses = new JSONObject();
+        for(int i=0; i<resolved.length; i++){
+            statuses.put(resolved[i].name(), STATUS_NAMES[codes[i]]);
+        }
+        return statuses;
+    }
+
+    /**
+     * Returns the statuses of the given permissions in compact form:
+     * a byte per DiagnosticPermission ordinal containing the status code of the permission, or COMPACT_STATUS_NONE if it was not queried.
+     * The JS layer decodes it to the same map as _getPermissionsAuthorizationStatus() using the table returned by getCompactStatusTable().
+     */
+    protected byte[] _getPermissionsAuthorizationStatusCompact(String[] permissions) throws Exception{
+        DiagnosticPermission[] resolved = resolvePermissions(permissions);
+        int[] codes = _getPermissionStatusCodes(resolved);
+        byte[] statuses = new byte[DiagnosticPermission.count()];
+        Arrays.fill(statuses, COMPACT_STATUS_NONE);
+        for(int i=0; i<resolved.length; i++){
+            statuses[resolved[i].ordinal()] = (byte) codes[i];
+        }
+        return statuses;
+    }
+
+    /**
+     * Returns the table used by the JS layer to decode compact status results:
+     * the permission names indexed by ordinal and the status names indexed by status code.
+     */
+    protected JSONObject getCompactStatusTable() throws JSONException{
+        JSONArray permissions = new JSONArray();
+        for(int i=0; i<DiagnosticPermission.count(); i++){
+            permissions.put(DiagnosticPermission.get(i).name());
+        }
+        JSONArray statuses = new JSONArray();
+        for(String status : STATUS_NAMES){
+            statuses.put(status);
+        }
+        JSONObject table = new JSONObject();
+        table.put("permissions", permissions);
+        table.put("statuses", statuses);
+        return table;
+    }
+
+    /**
+     * Returns the authorisation status of a permission.
+     * @param permission Short name of the permission, e.g. "CAMERA"
+     */
+    protected String _getPermissionAuthorizationStatus(String permission) throws Exception{
+        DiagnosticPermission p = DiagnosticPermission.forName(permission);
+        if(p == null){
+            throw new Exception("Permission name '"+permission+"' is not a valid permission");
+        }
+        return STATUS_NAMES[_getPermissionStatusCode(p.resolve(Build.VERSION.SDK_INT))];
+    }
+
+    /**
+     * Looks up permissions by short name, substituting the fallback of any permission not supported by this version of Android
+     * (e.g. ACCESS_COARSE_LOCATION for ACCESS_BACKGROUND_LOCATION below API 29).
+     * @throws Exception if a name is not a valid permission
+     */
+    protected DiagnosticPermission[] resolvePermissions(String[] permissions) throws Exception{
+        DiagnosticPermission[] resolved;
+        try{
+            resolved = DiagnosticPermission.forNames(permissions);
+        }catch(IllegalArgumentException e){
+            throw new Exception(e.getMessage());
+        }
+        for(int i=0; i<resolved.length; i++){
+            resolved[i] = resolved[i].resolve(Build.VERSION.SDK_INT);
+        }
+        return resolved;
+    }
+
+    /**
+     * Returns the status codes of the given permissions, in the same order.
+     */
+    protected int[] _getPermissionStatusCodes(DiagnosticPermission[] permissions) throws Exception{
+        int[] codes = new int[permissions.length];
         for(int i=0; i<permissions.length; i++){
-            String permission = permissions[i];
-            if(!permissionsMap.containsKey(permission)){
-                throw new Exception("Permission name '"+permission+"' is not a valid permission");
-            }
-            if(Build.VERSION.SDK_INT < 29 && permission.equals("ACCESS_BACKGROUND_LOCATION")){
-                // This version of Android doesn't support background location permission so check for standard coarse location permission
-                permission = "ACCESS_COARSE_LOCATION";
-            }
-            if(Build.VERSION.SDK_INT < 29 && permission.equals("ACTIVITY_RECOGNITION")){
-                // This version of Android doesn't support activity recognition permission so check for body sensors permission
-                permission = "BODY_SENSORS";
-            }
-            String androidPermission = permissionsMap.get(permission);
-            Log.v(TAG, "Get authorisation status for "+androidPermission);
-            boolean granted = hasRuntimePermission(androidPermission);
-            if(granted){
-                statuses.put(permission, Diagnostic.STATUS_GRANTED);
-            }else{
-                boolean showRationale = shouldShowRequestPermissionRationale(this.cordova.getActivity(), androidPermission);
-                if(!showRationale){
-                    if(isPermissionRequested(permission)){
-                        statuses.put(permission, Diagnostic.STATUS_DENIED_ALWAYS);
-                    }else{
-                        statuses.put(permission, Diagnostic.STATUS_NOT_REQUESTED);
-                    }
+            codes[i] = _getPermissionStatusCode(permissions[i]);
+        }
+        return codes;
+    }
+
+    /**
+     * Returns the status code of a permission, from the permission cache if possible.
+     */
+    protected int _getPermissionStatusCode(DiagnosticPermission permission) throws Exception{
+        int status = permissionCache.get(permission);
+        if(status != DiagnosticPermissionCache.MISS){
+            return status;
+        }
+
+        int generation = permissionCache.getGeneration();
+        String androidPermission = permission.androidName;
+        Log.v(TAG, "Get authorisation status for "+androidPermission);
+        boolean granted = hasRuntimePermission(androidPermission);
+        if(granted){
+            status = STATUS_CODE_GRANTED;
+        }else{
+            boolean showRationale = shouldShowRequestPermissionRationale(this.cordova.getActivity(), androidPermission);
+            if(!showRationale){
+                if(isPermissionRequested(permission)){
+                    status = STATUS_CODE_DENIED_ALWAYS;
                 }else{
-                    statuses.put(permission, Diagnostic.STATUS_DENIED_ONCE);
+                    status = STATUS_CODE_NOT_REQUESTED;
                 }
+            }else{
+                status = STATUS_CODE_DENIED_ONCE;
             }
         }
-        return statuses;
+        permissionCache.put(permission, status, generation);
+        return status;
     }
 
     protected void _requestRuntimePermissions(JSONArray permissions, int requestId) throws Exception{
-        JSONObject currentPermissionsStatuses = _getPermissionsAuthorizationStatus(jsonArrayToStringArray(permissions));
-        JSONArray permissionsToRequest = new JSONArray();
-        for(int i = 0; i<currentPermissionsStatuses.names().length(); i++){
-            String permission = currentPermissionsStatuses.names().getString(i);
-            boolean granted = currentPermissionsStatuses.getString(permission) == Diagnostic.STATUS_GRANTED;
-            if(granted){
-                Log.d(TAG, "Permission already granted for "+permission);
-                JSONObject requestStatuses = permissionStatuses.get(String.valueOf(requestId));
-                requestStatuses.put(permission, Diagnostic.STATUS_GRANTED);
-                permissionStatuses.put(String.valueOf(requestId), requestStatuses);
-            }else{
-                String androidPermission = permissionsMap.get(permission);
-                Log.d(TAG, "Requesting permission for "+androidPermission);
-                permissionsToRequest.put(androidPermission);
+        DiagnosticPermission[] resolved = resolvePermissions(jsonArrayToStringArray(permissions));
+        int[] codes = _getPermissionStatusCodes(resolved);
+        DiagnosticPendingRequests.PendingRequest request = getRequestById(requestId);
+        boolean[] toRequest = new boolean[DiagnosticPermission.count()];
+        int requestCount = 0;
+        for(int i = 0; i<resolved.length; i++){
+            DiagnosticPermission permission = resolved[i];
+            if(codes[i] == STATUS_CODE_GRANTED){
+                Log.d(TAG, "Permission already granted for "+permission.name());
+                request.setStatus(permission, STATUS_CODE_GRANTED);
+            }else if(!toRequest[permission.ordinal()]){
+                Log.d(TAG, "Requesting permission for "+permission.androidName);
+                toRequest[permission.ordinal()] = true;
+                requestCount++;
             }
         }
-        if(permissionsToRequest.length() > 0){
-            Log.v(TAG, "Requesting permissions");
-            requestPermissions(this, requestId, jsonArrayToStringArray(permissionsToRequest));
+        if(requestCount > 0){
+            DiagnosticPermission[] permissionsToRequest = new DiagnosticPermission[requestCount];
+            for(int i = 0, j = 0; j < requestCount; i++){
+                if(toRequest[i]){
+                    permissionsToRequest[j++] = DiagnosticPermission.get(i);
+                }
+            }
+            Log.v(TAG, "Queueing permissions request id="+requestId);
+            permissionRequests.submit(request, permissionsToRequest);
 
         }else{
             Log.d(TAG, "No permissions to request: returning result");
@@ -610,41 +986,48 @@ public class Diagnostic extends CordovaPlugin{
         }
     }
 
-    protected void sendRuntimeRequestResult(int requestId){
-        String sRequestId = String.valueOf(requestId);
-        CallbackContext context = callbackContexts.get(sRequestId);
-        JSONObject statuses = permissionStatuses.get(sRequestId);
-        Log.v(TAG, "Sending runtime request result for id="+sRequestId);
-        context.success(statuses);
-    }
+    /**
+     * Sends the result of a permission dialog to a caller whose request was shown in it.
+     * @param member Caller's request
+     * @param statuses Status codes resulting from the dialog, indexed by DiagnosticPermission ordinal
+     */
+    protected void sendPermissionRequestResult(DiagnosticPermissionRequestQueue.Member member, int[] statuses) throws Exception{
+        DiagnosticPendingRequests.PendingRequest request = member.request;
+        for(DiagnosticPermission permission : member.permissions){
+            int status = statuses[permission.ordinal()];
+            if(status < 0){
+                // No result for the permission (e.g. the dialog was interrupted) so resolve its current status
+                status = _getPermissionStatusCode(permission);
+            }
+            request.setStatus(permission, status);
+        }
+        if(!clearRequest(request.id)){
+            // The caller has already been sent an error
+            Log.w(TAG, "Dropping permission request result for id="+request.id+": request is no longer pending");
+            return;
+        }
 
-    protected int storeCurrentContextByRequestId(){
-        return storeContextByRequestId(currentContext);
+        Method externalStorageResultMethod = bindings.onReceiveExternalStoragePermissionResult;
+        if(request.id == GET_EXTERNAL_SD_CARD_DETAILS_PERMISSION_REQUEST && externalStorageResultMethod != null){
+            externalStorageResultMethod.invoke(null, request.context);
+        }else{
+            request.context.success(request.toJSON());
+        }
     }
 
-    protected int storeContextByRequestId(CallbackContext callbackContext){
-        String requestId = generateRandomRequestId();
-        callbackContexts.put(requestId, callbackContext);
-        permissionStatuses.put(requestId, new JSONObject());
-        return Integer.valueOf(requestId);
+    protected void sendRuntimeRequestResult(int requestId) throws Exception{
+        DiagnosticPendingRequests.PendingRequest request = getRequestById(requestId);
+        Log.v(TAG, "Sending runtime request result for id="+requestId);
+        clearRequest(requestId);
+        request.context.success(request.toJSON());
     }
 
-    protected String generateRandomRequestId(){
-        String requestId = null;
-
-        while(requestId == null){
-            requestId = generateRandom();
-            if(callbackContexts.containsKey(requestId)){
-                requestId = null;
-            }
-        }
-        return requestId;
+    protected int storeContextByRequestId(CallbackContext callbackContext){
+        return pendingRequests.create(callbackContext).id;
     }
 
-    protected String generateRandom(){
-        Random rn = new Random();
-        int random = rn.nextInt(1000000) + 1;
-        return Integer.toString(random);
+    protected int storeContextByRequestId(CallbackContext callbackContext, int requestId){
+        return pendingRequests.create(callbackContext, requestId).id;
     }
 
     protected String[] jsonArrayToStringArray(JSONArray array) throws JSONException{
@@ -658,68 +1041,51 @@ public class Diagnostic extends CordovaPlugin{
         return arr;
     }
 
-    protected CallbackContext getContextById(String requestId) throws Exception{
-        if (!callbackContexts.containsKey(requestId)) {
+    protected DiagnosticPendingRequests.PendingRequest getRequestById(int requestId) throws Exception{
+        DiagnosticPendingRequests.PendingRequest request = pendingRequests.get(requestId);
+        if (request == null) {
             throw new Exception("No context found for request id=" + requestId);
         }
-        return callbackContexts.get(requestId);
-    }
-
-    protected void clearRequest(int requestId){
-        String sRequestId = String.valueOf(requestId);
-        if (!callbackContexts.containsKey(sRequestId)) {
-            return;
-        }
-        callbackContexts.remove(sRequestId);
-        permissionStatuses.remove(sRequestId);
+        return request;
     }
 
-    /**
-     * Adds a bi-directional entry to a map in the form on 2 entries: key>value and value>key
-     * @param map
-     * @param key
-     * @param value
-     */
-    protected static void addBiDirMapEntry(Map map, Object key, Object value){
-        map.put(key, value);
-        map.put(value, key);
+    protected boolean clearRequest(int requestId){
+        return pendingRequests.remove(requestId) != null;
     }
 
     protected boolean hasRuntimePermission(String permission) throws Exception{
         boolean hasRuntimePermission = true;
-        Method method = null;
-        try {
-            method = cordova.getClass().getMethod("hasPermission", permission.getClass());
+        Method method = bindings.hasPermission;
+        if(method != null){
             Boolean bool = (Boolean) method.invoke(cordova, permission);
             hasRuntimePermission = bool.booleanValue();
-        } catch (NoSuchMethodException e) {
+        }else{
             logWarning("Cordova v" + CordovaWebView.CORDOVA_VERSION + " does not support runtime permissions so defaulting to GRANTED for " + permission);
         }
         return hasRuntimePermission;
     }
 
     protected void requestPermissions(CordovaPlugin plugin, int requestCode, String [] permissions) throws Exception{
-        try {
-            java.lang.reflect.Method method = cordova.getClass().getMethod("requestPermissions", org.apache.cordova.CordovaPlugin.class ,int.class, java.lang.String[].class);
-            method.invoke(cordova, plugin, requestCode, permissions);
-            for(String permission : permissions){
-                setPermissionRequested(permissionsMap.get(permission));
-            }
-        } catch (NoSuchMethodException e) {
+        Method method = bindings.requestPermissions;
+        if(method == null){
             throw new Exception("requestPermissions() method not found in CordovaInterface implementation of Cordova v" + CordovaWebView.CORDOVA_VERSION);
         }
+        method.invoke(cordova, plugin, requestCode, permissions);
+        DiagnosticPermission[] requested = new DiagnosticPermission[permissions.length];
+        for(int i = 0; i < permissions.length; i++){
+            requested[i] = DiagnosticPermission.forAndroidName(permissions[i]);
+        }
+        permissionStore.setRequested(requested);
+        permissionCache.invalidate();
     }
 
     protected boolean shouldShowRequestPermissionRationale(Activity activity, String permission) throws Exception{
-        boolean shouldShow;
-        try {
-            java.lang.reflect.Method method = ActivityCompat.class.getMethod("shouldShowRequestPermissionRationale", Activity.class, java.lang.String.class);
-            Boolean bool = (Boolean) method.invoke(null, activity, permission);
-            shouldShow = bool.booleanValue();
-        } catch (NoSuchMethodException e) {
+        Method method = bindings.shouldShowRequestPermissionRationale;
+        if(method == null){
             throw new Exception("shouldShowRequestPermissionRationale() method not found in ActivityCompat class.");
         }
-        return shouldShow;
+        Boolean bool = (Boolean) method.invoke(null, activity, permission);
+        return bool.booleanValue();
     }
 
     public void executeGlobalJavascript(final String jsString){
@@ -731,6 +1097,46 @@ public class Diagnostic extends CordovaPlugin{
         });
     }
 
+    /**
+     * Sends a state change event to the JS layer.
+     *
+     * @param type  Event type, e.g. "bluetoothState"
+     * @param state New state
+     */
+    public void publishEvent(String type, String state){
+        publishEvent(type, state, 1);
+    }
+
+    /**
+     * Sends a state change event which coalesces several state change broadcasts to the JS layer.
+     *
+     * @param type      Event type, e.g. "bluetoothState"
+     * @param state     New state
+     * @param absorbed  Number of broadcasts coalesced into the event
+     */
+    public void publishEvent(String type, String state, int absorbed){
+        if(!eventBus.publish(type, state, absorbed)){
+            Log.v(TAG, "No subscribers for " + type + " event");
+        }
+    }
+
+    /**
+     * Creates the stage which coalesces a module's state change broadcasts before they are evaluated,
+     * configured by the DiagnosticEventQuietWindow and DiagnosticEventDelivery preferences.
+     *
+     * @param target Module handler the coalesced broadcasts are delivered to
+     */
+    public DiagnosticEventCoalescer createEventCoalescer(DiagnosticEventCoalescer.Target target){
+        int quietWindow = DEFAULT_EVENT_QUIET_WINDOW_MS;
+        String delivery = "trailing";
+        if(preferences != null){
+            quietWindow = preferences.getInteger(EVENT_QUIET_WINDOW_PREFERENCE, quietWindow);
+            delivery = preferences.getString(EVENT_DELIVERY_PREFERENCE, delivery);
+        }
+        boolean leading = delivery.equals("leading") || delivery.equals("both");
+        return new DiagnosticEventCoalescer(target, broadcasts, quietWindow, leading);
+    }
+
     public void executePluginJavascript(final String jsString){
         executeGlobalJavascript("cordova.plugins.diagnostic." + jsString);
     }
@@ -738,7 +1144,7 @@ public class Diagnostic extends CordovaPlugin{
     /**
      * Performs a warm app restart - restarts only Cordova main activity
      */
-    protected void doWarmRestart() {
+    protected void doWarmRestart(final CallbackContext callbackContext) {
         cordova.getActivity().runOnUiThread(new Runnable() {
             @Override
             public void run() {
@@ -746,7 +1152,7 @@ public class Diagnostic extends CordovaPlugin{
                     logInfo("Warm restarting main activity");
                     instance.cordova.getActivity().recreate();
                 } catch (Exception ex) {
-                    handleError("Unable to warm restart main activity: " + ex.getMessage());
+                    handleError("Unable to warm restart main activity: " + ex.getMessage(), callbackContext);
                 }
             }
         });
@@ -756,7 +1162,7 @@ public class Diagnostic extends CordovaPlugin{
      * Performs a full cold app restart - restarts application
      * https://stackoverflow.com/a/58530756/777265
      */
-    protected void doColdRestart() {
+    protected void doColdRestart(CallbackContext callbackContext) {
         String baseError = "Unable to cold restart application: ";
         try {
             logInfo("Cold restarting application");
@@ -772,10 +1178,10 @@ public class Diagnostic extends CordovaPlugin{
                 activity.startActivity(intent);    // Start the launch activity
                 System.exit(0);    // System finishes and automatically relaunches us.
             } else {
-                handleError(baseError+"Activity is null");
+                handleError(baseError+"Activity is null", callbackContext);
             }
         } catch (Exception ex) {
-            handleError(baseError+ ex.getMessage());
+            handleError(baseError+ ex.getMessage(), callbackContext);
         }
     }
 
@@ -810,28 +1216,23 @@ public class Diagnostic extends CordovaPlugin{
         return arch;
     }
 
-    protected void setPermissionRequested(String permission){
-        editor.putBoolean(permission, true);
-        boolean success = editor.commit();
-        if(!success){
-            handleError("Failed to set permission requested flag for " + permission);
-        }
+    protected void setPermissionRequested(DiagnosticPermission permission){
+        permissionStore.setRequested(permission);
     }
 
-    protected boolean isPermissionRequested(String permission){
-        return sharedPref.getBoolean(permission, false);
+    protected boolean isPermissionRequested(DiagnosticPermission permission){
+        return permissionStore.isRequested(permission);
     }
 
     protected int getCurrentBatteryLevel(){
-        BatteryManager bm = (BatteryManager) cordova.getContext().getApplicationContext().getSystemService(BATTERY_SERVICE);
-        return bm.getIntProperty(BatteryManager.BATTERY_PROPERTY_CAPACITY);
+        return deviceState.getBatteryLevel();
     }
 
     // https://stackoverflow.com/a/18237962/777265
     protected boolean hasBuildPermission(String permission)
     {
         try {
-            PackageInfo info = this.cordova.getActivity().getPackageManager().getPackageInfo(this.cordova.getContext().getPackageName(), PackageManager.GET_PERMISSIONS);
+            PackageInfo info = deviceState.getPackageInfo(PackageManager.GET_PERMISSIONS);
             if (info.requestedPermissions != null) {
                 for (String p : info.requestedPermissions) {
                     if (p.equals("android.permission."+permission)) {
@@ -846,11 +1247,22 @@ public class Diagnostic extends CordovaPlugin{
     }
 
     public boolean isAirplaneModeEnabled() {
-        return Settings.Global.getInt(this.cordova.getActivity().getContentResolver(),
-                Settings.Global.AIRPLANE_MODE_ON, 0) != 0;
+        return deviceState.getGlobalSetting(Settings.Global.AIRPLANE_MODE_ON, 0) != 0;
     }
 
+    /**
+     * Returns the device OS version, which is resolved once per process.
+     */
     public JSONObject getDeviceOSVersion() throws Exception{
+        return memo.get("getDeviceOSVersion", DiagnosticMemo.PROCESS_LIFETIME, new Callable<JSONObject>() {
+            @Override
+            public JSONObject call() throws Exception {
+                return resolveDeviceOSVersion();
+            }
+        });
+    }
+
+    protected JSONObject resolveDeviceOSVersion() throws Exception{
         JSONObject details = new JSONObject();
         details.put("version", Build.VERSION.RELEASE);
         details.put("apiLevel", Build.VERSION.SDK_INT);
@@ -858,12 +1270,23 @@ public class Diagnostic extends CordovaPlugin{
         return details;
     }
 
+    /**
+     * Returns the target and minimum API levels of the app, which are resolved once per process.
+     */
     public JSONObject getBuildOSVersion() throws Exception{
+        return memo.get("getBuildOSVersion", DiagnosticMemo.PROCESS_LIFETIME, new Callable<JSONObject>() {
+            @Override
+            public JSONObject call() throws Exception {
+                return resolveBuildOSVersion();
+            }
+        });
+    }
+
+    protected JSONObject resolveBuildOSVersion() throws Exception{
         JSONObject details = new JSONObject();
         int targetVersion = 0;
         int minVersion = 0;
-        Activity activity = instance.cordova.getActivity();
-        ApplicationInfo applicationInfo = activity.getPackageManager().getApplicationInfo(activity.getPackageName(), 0);
+        ApplicationInfo applicationInfo = deviceState.getApplicationInfo(0);
         if (applicationInfo != null) {
             targetVersion = applicationInfo.targetSdkVersion;
             if(Build.VERSION.SDK_INT >= 24){
@@ -880,85 +1303,110 @@ public class Diagnostic extends CordovaPlugin{
 
     // https://stackoverflow.com/a/55946200/777265
     protected String getNameForApiLevel(int apiLevel) throws Exception{
-        Field[] fields = Build.VERSION_CODES.class.getFields();
-        String codeName = "UNKNOWN";
-        for (Field field : fields) {
-            if (field.getInt(Build.VERSION_CODES.class) == apiLevel) {
-                codeName = field.getName();
-            }
-        }
-        return codeName;
+        return DiagnosticApiLevelNames.getName(apiLevel);
     }
 
     /************
      * Overrides
      ***********/
 
+    /**
+     * Called when the activity comes to the foreground.
+     * Permission statuses may have been changed (e.g. via the Settings app) while the app was in the background.
+     */
+    @Override
+    public void onResume(boolean multitasking) {
+        permissionCache.invalidate();
+        super.onResume(multitasking);
+    }
+
+    /**
+     * Called on destroying activity
+     */
+    @Override
+    public void onDestroy() {
+        if(broadcasts != null){
+            broadcasts.close();
+        }
+        super.onDestroy();
+    }
+
+    /**
+     * Called when the webview navigates or is reloaded: the JS callbacks of the log channel and event subscriptions no longer exist.
+     */
+    @Override
+    public void onReset() {
+        if(logChannel != null){
+            logChannel.close();
+        }
+        eventBus.clear();
+        if(permissionRequests != null){
+            permissionRequests.clear();
+        }
+        super.onReset();
+    }
+
     /**
      * Callback received when a runtime permissions request has been completed.
-     * Retrieves the stateful Cordova context and permission statuses associated with the requestId,
-     * then updates the list of status based on the grantResults before passing the result back via the context.
+     * Retrieves the queued requests shown in the dialog with the requestId, resolves the status of each permission
+     * from the grantResults, then passes each caller the statuses of the permissions it requested via its context.
      *
      * @param requestCode - ID that was used when requesting permissions
      * @param permissions - list of permissions that were requested
      * @param grantResults - list of flags indicating if above permissions were granted or denied
      */
     public void onRequestPermissionResult(int requestCode, String[] permissions, int[] grantResults) throws JSONException {
-        String sRequestId = String.valueOf(requestCode);
-        Log.v(TAG, "Received result for permissions request id=" + sRequestId);
+        Log.v(TAG, "Received result for permissions request id=" + requestCode);
+        permissionCache.invalidate();
+        DiagnosticPermissionRequestQueue.Batch batch = permissionRequests.complete(requestCode);
+        if(batch == null){
+            handleError("No queued permissions request for id=" + requestCode, requestCode);
+            return;
+        }
         try {
-
-            CallbackContext context = getContextById(sRequestId);
-            JSONObject statuses = permissionStatuses.get(sRequestId);
+            // Status code of each permission in the dialog, indexed by DiagnosticPermission ordinal
+            int[] statuses = new int[DiagnosticPermission.count()];
+            Arrays.fill(statuses, -1);
 
             for (int i = 0, len = permissions.length; i < len; i++) {
                 String androidPermission = permissions[i];
-                String permission = permissionsMap.get(androidPermission);
-                if(Build.VERSION.SDK_INT < 29 && permission.equals("ACCESS_BACKGROUND_LOCATION")){
-                    // This version of Android doesn't support background location permission so use standard coarse location permission
-                    permission = "ACCESS_COARSE_LOCATION";
-                }
-                if(Build.VERSION.SDK_INT < 29 && permission.equals("ACTIVITY_RECOGNITION")){
-                    // This version of Android doesn't support activity recognition permission so check for body sensors permission
-                    permission = "BODY_SENSORS";
+                DiagnosticPermission permission = DiagnosticPermission.forAndroidName(androidPermission);
+                if(permission == null){
+                    Log.w(TAG, "Ignoring result for unknown permission " + androidPermission);
+                    continue;
                 }
-                String status;
+                // Use the fallback of a permission not supported by this version of Android (e.g. ACCESS_COARSE_LOCATION for ACCESS_BACKGROUND_LOCATION)
+                permission = permission.resolve(Build.VERSION.SDK_INT);
+                int status;
                 if (grantResults[i] == PackageManager.PERMISSION_DENIED) {
                     boolean showRationale = shouldShowRequestPermissionRationale(this.cordova.getActivity(), androidPermission);
                     if (!showRationale) {
                         if(isPermissionRequested(permission)){
                             // user denied WITH "never ask again"
-                            status = Diagnostic.STATUS_DENIED_ALWAYS;
+                            status = STATUS_CODE_DENIED_ALWAYS;
                         }else{
                             // The app doesn't have permission and the user has not been asked for the permission before
-                            status = Diagnostic.STATUS_NOT_REQUESTED;
+                            status = STATUS_CODE_NOT_REQUESTED;
                         }
                     } else {
                         // user denied WITHOUT "never ask again"
-                        status = Diagnostic.STATUS_DENIED_ONCE;
+                        status = STATUS_CODE_DENIED_ONCE;
                     }
                 } else {
                     // Permission granted
-                    status = Diagnostic.STATUS_GRANTED;
+                    status = STATUS_CODE_GRANTED;
                 }
-                statuses.put(permission, status);
-                Log.v(TAG, "Authorisation for " + permission + " is " + statuses.get(permission));
-                clearRequest(requestCode);
+                statuses[permission.ordinal()] = status;
+                Log.v(TAG, "Authorisation for " + permission.name() + " is " + STATUS_NAMES[status]);
             }
 
-            Class<?> externalStorageClass = null;
-            try {
-                externalStorageClass = Class.forName(externalStorageClassName);
-            } catch( ClassNotFoundException e ){}
-
-            if(requestCode == GET_EXTERNAL_SD_CARD_DETAILS_PERMISSION_REQUEST && externalStorageClass != null){
-                Method method = externalStorageClass.getMethod("onReceivePermissionResult");
-                method.invoke(null);
-            }else{
-                context.success(statuses);
+            for (DiagnosticPermissionRequestQueue.Member member : batch.getMembers()) {
+                sendPermissionRequestResult(member, statuses);
             }
         }catch(Exception e ) {
-            handleError("Exception occurred onRequestPermissionsResult: ".concat(e.getMessage()), requestCode);
+            for (DiagnosticPermissionRequestQueue.Member member : batch.getMembers()) {
+                handleError("Exception occurred onRequestPermissionsResult: ".concat(String.valueOf(e.getMessage())), member.request.id);
+            }
         }
     }
 
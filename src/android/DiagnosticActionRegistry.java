@@ -0,0 +1,161 @@
+/*
+       Licensed to the Apache Software Foundation (ASF) under one
+       or more contributor license agreements.  See the NOTICE file
+       distributed with this work for additional information
+       regarding copyright ownership.  The ASF licenses this file
+       to you under the Apache License, Version 2.0 (the
+       "License"); you may not use this file except in compliance
+       with the License.  You may obtain a copy of the License at
+
+         http://www.apache.org/licenses/LICENSE-2.0
+
+       Unless required by applicable law or agreed to in writing,
+       software distributed under the License is distributed on an
+       "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+       KIND, either express or implied.  See the License for the
+       specific language governing permissions and limitations
+       under the License.
+*/
+package cordova.plugins;
+
+/*
+ * Imports
+ */
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.cordova.CallbackContext;
+import org.json.JSONArray;
+
+/**
+ * Table of the plugin actions exposed by a Diagnostic module, keyed by action name.
+ * Each module fills its registry in initialize() and dispatches execute() calls through it.
+ * Each action declares the thread it runs on; Diagnostic.runAction() schedules it accordingly.
+ */
+public class DiagnosticActionRegistry {
+
+    /**
+     * Handler for a single plugin action.
+     */
+    public interface Action {
+        /**
+         * Executes the action.
+         *
+         * @param args              JSONArray of arguments for the action.
+         * @param callbackContext   The callback context used when calling back into JavaScript.
+         */
+        void execute(JSONArray args, CallbackContext callbackContext) throws Exception;
+    }
+
+    /**
+     * Thread an action runs on.
+     */
+    public enum ThreadPolicy {
+        /**
+         * On the Cordova bridge thread which called execute(). For fast, non-blocking actions.
+         */
+        INLINE,
+        /**
+         * On the Cordova thread pool. For actions which block on I/O, processes or reflection.
+         */
+        BACKGROUND,
+        /**
+         * On the UI thread. For actions which start activities or otherwise touch the UI.
+         */
+        UI
+    }
+
+    private static final class Entry {
+        final Action action;
+        final ThreadPolicy policy;
+
+        Entry(Action action, ThreadPolicy policy) {
+            this.action = action;
+            this.policy = policy;
+        }
+    }
+
+    /*************
+     * Variables *
+     *************/
+
+    private final Diagnostic diagnostic;
+
+    private final Map<String, Entry> actions = new HashMap<String, Entry>();
+
+    /*************
+     * Public API
+     ************/
+
+    /**
+     * Constructor.
+     *
+     * @param diagnostic Core Diagnostic plugin instance used to report errors.
+     */
+    public DiagnosticActionRegistry(Diagnostic diagnostic) {
+        this.diagnostic = diagnostic;
+    }
+
+    /**
+     * Registers the handler for an action to run inline, replacing any existing handler of the same name.
+     *
+     * @param name      Name of the action as passed to cordova.exec()
+     * @param action    Handler to invoke for the action
+     * @return          This registry, to allow chaining
+     */
+    public DiagnosticActionRegistry register(String name, Action action) {
+        return register(name, ThreadPolicy.INLINE, action);
+    }
+
+    /**
+     * Registers the handler for an action, replacing any existing handler of the same name.
+     *
+     * @param name      Name of the action as passed to cordova.exec()
+     * @param policy    Thread the action runs on
+     * @param action    Handler to invoke for the action
+     * @return          This registry, to allow chaining
+     */
+    public DiagnosticActionRegistry register(String name, ThreadPolicy policy, Action action) {
+        actions.put(name, new Entry(action, policy));
+        return this;
+    }
+
+    /**
+     * Returns the handler registered for an action, or null if there is none.
+     */
+    public Action get(String name) {
+        Entry entry = actions.get(name);
+        return entry != null ? entry.action : null;
+    }
+
+    /**
+     * Returns the thread policy of an action, or null if there is no such action.
+     */
+    public ThreadPolicy getPolicy(String name) {
+        Entry entry = actions.get(name);
+        return entry != null ? entry.policy : null;
+    }
+
+    public boolean has(String name) {
+        return actions.containsKey(name);
+    }
+
+    /**
+     * Looks up the handler for an action and runs it according to its thread policy.
+     * Invalid actions and exceptions thrown by the handler are reported to the JS error callback.
+     *
+     * @param action            The action to execute.
+     * @param args              JSONArray of arguments for the action.
+     * @param callbackContext   The callback context used when calling back into JavaScript.
+     * @return                  True if the action was valid and (if run inline) executed without error, false if not.
+     */
+    public boolean dispatch(String action, JSONArray args, CallbackContext callbackContext) {
+        Entry entry = actions.get(action);
+        if (entry == null) {
+            diagnostic.metrics.recordInvalidAction();
+            diagnostic.handleError("Invalid action", callbackContext);
+            return false;
+        }
+        return diagnostic.runAction(action, entry.policy, entry.action, args, callbackContext);
+    }
+}
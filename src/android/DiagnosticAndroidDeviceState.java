@@ -0,0 +1,266 @@
+/*
+       Licensed to the Apache Software Foundation (ASF) under one
+       or more contributor license agreements.  See the NOTICE file
+       distributed with this work for additional information
+       regarding copyright ownership.  The ASF licenses this file
+       to you under the Apache License, Version 2.0 (the
+       "License"); you may not use this file except in compliance
+       with the License.  You may obtain a copy of the License at
+
+         http://www.apache.org/licenses/LICENSE-2.0
+
+       Unless required by applicable law or agreed to in writing,
+       software distributed under the License is distributed on an
+       "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+       KIND, either express or implied.  See the License for the
+       specific language governing permissions and limitations
+       under the License.
+*/
+package cordova.plugins;
+
+/*
+ * Imports
+ */
+import java.io.File;
+
+import android.bluetooth.BluetoothAdapter;
+import android.content.ContentResolver;
+import android.content.Context;
+import android.content.pm.ApplicationInfo;
+import android.content.pm.PackageInfo;
+import android.content.pm.PackageManager;
+import android.hardware.Camera;
+import android.location.LocationManager;
+import android.net.ConnectivityManager;
+import android.net.wifi.WifiManager;
+import android.nfc.NfcAdapter;
+import android.nfc.NfcManager;
+import android.os.BatteryManager;
+import android.os.Build;
+import android.os.Environment;
+import android.os.PowerManager;
+import android.os.StatFs;
+import android.provider.Settings;
+import android.util.Log;
+
+import androidx.core.app.NotificationManagerCompat;
+import androidx.core.os.EnvironmentCompat;
+
+/**
+ * Default DiagnosticDeviceStateProvider, which reads device state from the Android system services of the app.
+ */
+public class DiagnosticAndroidDeviceState implements DiagnosticDeviceStateProvider {
+
+    /*************
+     * Constants *
+     *************/
+
+    public static final String TAG = "DiagnosticAndroidDeviceState";
+
+    /*************
+     * Variables *
+     *************/
+
+    private final Context context;
+    private final DiagnosticMethodBindings bindings;
+
+    /*************
+     * Public API
+     ************/
+
+    /**
+     * Constructor.
+     *
+     * @param context   Application context used to obtain system services.
+     * @param bindings  Reflective method handles resolved by the plugin.
+     */
+    public DiagnosticAndroidDeviceState(Context context, DiagnosticMethodBindings bindings) {
+        this.context = context;
+        this.bindings = bindings;
+    }
+
+    /*
+     * Settings
+     */
+
+    @Override
+    public int getGlobalSetting(String name, int def) {
+        return Settings.Global.getInt(getContentResolver(), name, def);
+    }
+
+    @Override
+    public int getSecureSetting(String name, int def) {
+        return Settings.Secure.getInt(getContentResolver(), name, def);
+    }
+
+    @Override
+    public int getSecureSetting(String name) throws Settings.SettingNotFoundException {
+        return Settings.Secure.getInt(getContentResolver(), name);
+    }
+
+    @Override
+    public int getSystemSetting(String name, int def) {
+        return Settings.System.getInt(getContentResolver(), name, def);
+    }
+
+    /*
+     * Package
+     */
+
+    @Override
+    public boolean hasSystemFeature(String feature) {
+        return context.getPackageManager().hasSystemFeature(feature);
+    }
+
+    @Override
+    public PackageInfo getPackageInfo(int flags) throws PackageManager.NameNotFoundException {
+        return context.getPackageManager().getPackageInfo(context.getPackageName(), flags);
+    }
+
+    @Override
+    public ApplicationInfo getApplicationInfo(int flags) throws PackageManager.NameNotFoundException {
+        return context.getPackageManager().getApplicationInfo(context.getPackageName(), flags);
+    }
+
+    /*
+     * Radios
+     */
+
+    @Override
+    public int getBluetoothState() {
+        BluetoothAdapter adapter = BluetoothAdapter.getDefaultAdapter();
+        return adapter != null ? adapter.getState() : BLUETOOTH_ADAPTER_NONE;
+    }
+
+    @Override
+    public boolean isBluetoothMultipleAdvertisementSupported() {
+        BluetoothAdapter adapter = BluetoothAdapter.getDefaultAdapter();
+        return adapter != null && adapter.isMultipleAdvertisementSupported();
+    }
+
+    @Override
+    public boolean setBluetoothEnabled(boolean enabled) {
+        BluetoothAdapter adapter = BluetoothAdapter.getDefaultAdapter();
+        if (adapter == null) {
+            return false;
+        }
+        return enabled ? adapter.enable() : adapter.disable();
+    }
+
+    @Override
+    public boolean isLocationProviderEnabled(String provider) {
+        LocationManager locationManager = (LocationManager) context.getSystemService(Context.LOCATION_SERVICE);
+        return locationManager != null && locationManager.isProviderEnabled(provider);
+    }
+
+    @Override
+    public boolean hasNfcAdapter() {
+        return getNfcAdapter() != null;
+    }
+
+    @Override
+    public boolean isNfcEnabled() {
+        NfcAdapter adapter = getNfcAdapter();
+        return adapter != null && adapter.isEnabled();
+    }
+
+    @Override
+    public boolean isWifiEnabled() {
+        WifiManager wifiManager = (WifiManager) context.getSystemService(Context.WIFI_SERVICE);
+        return wifiManager != null && wifiManager.isWifiEnabled();
+    }
+
+    @Override
+    public boolean setWifiEnabled(boolean enabled) {
+        WifiManager wifiManager = (WifiManager) context.getSystemService(Context.WIFI_SERVICE);
+        return wifiManager != null && wifiManager.setWifiEnabled(enabled);
+    }
+
+    // https://stackoverflow.com/a/12864897/777265
+    @Override
+    public boolean isMobileDataEnabled() {
+        if (bindings.getMobileDataEnabled == null) {
+            Log.d(TAG, "getMobileDataEnabled() is not available");
+            return false;
+        }
+        ConnectivityManager cm = (ConnectivityManager) context.getSystemService(Context.CONNECTIVITY_SERVICE);
+        try {
+            return (Boolean) bindings.getMobileDataEnabled.invoke(cm);
+        } catch (Exception e) {
+            Log.d(TAG, "Unable to get mobile data state: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /*
+     * Hardware
+     */
+
+    @Override
+    public int getNumberOfCameras() {
+        return Camera.getNumberOfCameras();
+    }
+
+    @Override
+    public int getBatteryLevel() {
+        BatteryManager bm = (BatteryManager) context.getSystemService(Context.BATTERY_SERVICE);
+        return bm.getIntProperty(BatteryManager.BATTERY_PROPERTY_CAPACITY);
+    }
+
+    @Override
+    public long getFreeSpace(String path) {
+        try {
+            StatFs stat = new StatFs(path);
+            long blockSize = stat.getBlockSize();
+            long availableBlocks = stat.getAvailableBlocks();
+            return availableBlocks * blockSize;
+        } catch (IllegalArgumentException e) {
+            // The path was invalid. Just return 0 free bytes.
+            return 0;
+        }
+    }
+
+    @Override
+    public File[] getExternalFilesDirs() {
+        return context.getExternalFilesDirs(null);
+    }
+
+    @Override
+    public boolean isRemovableStorage(File dir) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) {
+            return Environment.isExternalStorageRemovable(dir);
+        }
+        return Environment.MEDIA_MOUNTED.equals(EnvironmentCompat.getStorageState(dir));
+    }
+
+    /*
+     * Notifications
+     */
+
+    @Override
+    public boolean areNotificationsEnabled() {
+        return NotificationManagerCompat.from(context).areNotificationsEnabled();
+    }
+
+    @Override
+    public boolean isIgnoringBatteryOptimizations() {
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.M) {
+            return false;
+        }
+        PowerManager powerManager = (PowerManager) context.getSystemService(Context.POWER_SERVICE);
+        return powerManager != null && powerManager.isIgnoringBatteryOptimizations(context.getPackageName());
+    }
+
+    /************
+     * Internals
+     ***********/
+
+    private ContentResolver getContentResolver() {
+        return context.getContentResolver();
+    }
+
+    private NfcAdapter getNfcAdapter() {
+        NfcManager nfcManager = (NfcManager) context.getSystemService(Context.NFC_SERVICE);
+        return nfcManager != null ? nfcManager.getDefaultAdapter() : null;
+    }
+}
@@ -0,0 +1,91 @@
+/*
+       Licensed to the Apache Software Foundation (ASF) under one
+       or more contributor license agreements.  See the NOTICE file
+       distributed with this work for additional information
+       regarding copyright ownership.  The ASF licenses this file
+       to you under the Apache License, Version 2.0 (the
+       "License"); you may not use this file except in compliance
+       with the License.  You may obtain a copy of the License at
+
+         http://www.apache.org/licenses/LICENSE-2.0
+
+       Unless required by applicable law or agreed to in writing,
+       software distributed under the License is distributed on an
+       "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+       KIND, either express or implied.  See the License for the
+       specific language governing permissions and limitations
+       under the License.
+*/
+package cordova.plugins;
+
+/*
+ * Imports
+ */
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+
+import android.os.Build;
+import android.util.Log;
+
+/**
+ * Table of API level to codename (e.g. 33 to "TIRAMISU"), built from the fields of Build.VERSION_CODES.
+ * The table is built once, on first use, and held as a sorted array of API levels for binary search.
+ */
+public final class DiagnosticApiLevelNames {
+
+    /*************
+     * Constants *
+     *************/
+
+    public static final String TAG = "DiagnosticApiLevelNames";
+
+    /**
+     * Name returned for an API level without a codename
+     */
+    public static final String UNKNOWN = "UNKNOWN";
+
+    /*************
+     * Variables *
+     *************/
+
+    private static final int[] levels;
+    private static final String[] names;
+    static {
+        // If two codenames share an API level, the last field wins, as with the previous reflective scan
+        Map<Integer, String> table = new TreeMap<Integer, String>();
+        try {
+            for (Field field : Build.VERSION_CODES.class.getFields()) {
+                if (Modifier.isStatic(field.getModifiers()) && field.getType() == int.class) {
+                    table.put(field.getInt(null), field.getName());
+                }
+            }
+        } catch (Exception e) {
+            Log.e(TAG, "Unable to read Build.VERSION_CODES: " + e.getMessage());
+        }
+        levels = new int[table.size()];
+        names = new String[table.size()];
+        int i = 0;
+        for (Map.Entry<Integer, String> entry : table.entrySet()) {
+            levels[i] = entry.getKey();
+            names[i] = entry.getValue();
+            i++;
+        }
+    }
+
+    private DiagnosticApiLevelNames() {}
+
+    /*************
+     * Public API
+     ************/
+
+    /**
+     * Returns the codename of an API level, or UNKNOWN if it has none.
+     */
+    public static String getName(int apiLevel) {
+        int i = Arrays.binarySearch(levels, apiLevel);
+        return i >= 0 ? names[i] : UNKNOWN;
+    }
+}
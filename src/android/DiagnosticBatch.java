@@ -0,0 +1,215 @@
+/*
+       Licensed to the Apache Software Foundation (ASF) under one
+       or more contributor license agreements.  See the NOTICE file
+       distributed with this work for additional information
+       regarding copyright ownership.  The ASF licenses this file
+       to you under the Apache License, Version 2.0 (the
+       "License"); you may not use this file except in compliance
+       with the License.  You may obtain a copy of the License at
+
+         http://www.apache.org/licenses/LICENSE-2.0
+
+       Unless required by applicable law or agreed to in writing,
+       software distributed under the License is distributed on an
+       "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+       KIND, either express or implied.  See the License for the
+       specific language governing permissions and limitations
+       under the License.
+*/
+package cordova.plugins;
+
+/*
+ * Imports
+ */
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.cordova.CallbackContext;
+import org.apache.cordova.CordovaPlugin;
+import org.apache.cordova.PluginResult;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.json.JSONTokener;
+
+/**
+ * Executes a batch of plugin actions coalesced by the JS layer into a single bridge call.
+ *
+ * Each call in the batch is an array of [service, action, args]. Each call is executed through the execute() method
+ * of its plugin with its own callback context which captures the result instead of sending it to JavaScript.
+ * Once every call has completed, the captured results are sent to JavaScript as a single array in call order,
+ * where each result is {ok, message} or null if the call completed with no result.
+ */
+public class DiagnosticBatch {
+
+    /*************
+     * Constants *
+     *************/
+
+    /**
+     * Only actions of the Diagnostic modules can be batched
+     */
+    public static final String SERVICE_PREFIX = "Diagnostic";
+
+    /*************
+     * Variables *
+     *************/
+
+    private final Diagnostic diagnostic;
+
+    /*************
+     * Public API
+     ************/
+
+    /**
+     * Constructor.
+     *
+     * @param diagnostic Core Diagnostic plugin instance which executes calls to the core module.
+     */
+    public DiagnosticBatch(Diagnostic diagnostic) {
+        this.diagnostic = diagnostic;
+    }
+
+    /**
+     * Executes a batch of calls and sends the array of their results to the batch callback once all have completed.
+     *
+     * @param calls             JSONArray of [service, action, args] calls.
+     * @param callbackContext   The callback context of the batch.
+     */
+    public void execute(JSONArray calls, CallbackContext callbackContext) throws JSONException {
+        int count = calls.length();
+        if (count == 0) {
+            callbackContext.success(new JSONArray());
+            return;
+        }
+
+        Object[] results = new Object[count];
+        AtomicInteger remaining = new AtomicInteger(count);
+        for (int i = 0; i < count; i++) {
+            JSONArray call = calls.getJSONArray(i);
+            String service = call.getString(0);
+            String action = call.getString(1);
+            JSONArray args = call.optJSONArray(2);
+            if (args == null) args = new JSONArray();
+
+            CallContext callContext = new CallContext(callbackContext, results, remaining, i);
+            CordovaPlugin plugin = getPlugin(service);
+            if (plugin == null) {
+                callContext.error("Service not found: " + service);
+                continue;
+            }
+            try {
+                if (!plugin.execute(action, args, callContext)) {
+                    callContext.error("Invalid action");
+                }
+            } catch (Exception e) {
+                callContext.error(e.getMessage());
+            }
+        }
+    }
+
+    /************
+     * Internals
+     ***********/
+
+    /**
+     * Returns the Diagnostic module registered for a service name, or null if none is.
+     */
+    protected CordovaPlugin getPlugin(String service) {
+        if (!service.startsWith(SERVICE_PREFIX)) {
+            return null;
+        }
+        return diagnostic.getServicePlugin(service);
+    }
+
+    /**
+     * Decodes the message of a plugin result to the value the JS callback would have received.
+     */
+    protected static Object decodeMessage(PluginResult result) throws JSONException {
+        switch (result.getMessageType()) {
+            case PluginResult.MESSAGE_TYPE_STRING:
+                return result.getStrMessage();
+            case PluginResult.MESSAGE_TYPE_JSON:
+            case PluginResult.MESSAGE_TYPE_NUMBER:
+            case PluginResult.MESSAGE_TYPE_BOOLEAN:
+                return new JSONTokener(result.getMessage()).nextValue();
+            case PluginResult.MESSAGE_TYPE_NULL:
+                return JSONObject.NULL;
+            case PluginResult.MESSAGE_TYPE_ARRAYBUFFER:
+                // Sent as an array of byte values, which the JS layer can wrap in a typed array
+                JSONArray bytes = new JSONArray();
+                for (byte b : result.getBinaryMessage()) {
+                    bytes.put(b & 0xFF);
+                }
+                return bytes;
+            default:
+                return result.getMessage();
+        }
+    }
+
+    /**
+     * Callback context of a single call in a batch, which captures its result.
+     */
+    protected static class CallContext extends CallbackContext {
+
+        private final CallbackContext batchContext;
+        private final Object[] results;
+        private final AtomicInteger remaining;
+        private final int index;
+        private boolean completed = false;
+
+        CallContext(CallbackContext batchContext, Object[] results, AtomicInteger remaining, int index) {
+            super(batchContext.getCallbackId(), null);
+            this.batchContext = batchContext;
+            this.results = results;
+            this.remaining = remaining;
+            this.index = index;
+        }
+
+        @Override
+        public void sendPluginResult(PluginResult pluginResult) {
+            synchronized (this) {
+                if (completed || pluginResult.getKeepCallback()) {
+                    // Intermediate results of long-lived callbacks are not supported in a batch
+                    return;
+                }
+                completed = true;
+            }
+
+            Object result = JSONObject.NULL;
+            if (pluginResult.getStatus() != PluginResult.Status.NO_RESULT.ordinal()) {
+                try {
+                    JSONObject entry = new JSONObject();
+                    entry.put("ok", pluginResult.getStatus() == PluginResult.Status.OK.ordinal());
+                    entry.put("message", decodeMessage(pluginResult));
+                    result = entry;
+                } catch (JSONException e) {
+                    result = errorEntry(e.getMessage());
+                }
+            }
+
+            synchronized (results) {
+                results[index] = result;
+            }
+            if (remaining.decrementAndGet() == 0) {
+                JSONArray batchResults = new JSONArray();
+                synchronized (results) {
+                    for (Object r : results) {
+                        batchResults.put(r);
+                    }
+                }
+                batchContext.success(batchResults);
+            }
+        }
+
+        private static Object errorEntry(String message) {
+            try {
+                JSONObject entry = new JSONObject();
+                entry.put("ok", false);
+                entry.put("message", message);
+                return entry;
+            } catch (JSONException e) {
+                return JSONObject.NULL;
+            }
+        }
+    }
+}
@@ -0,0 +1,346 @@
+/*
+       Licensed to the Apache Software Foundation (ASF) under one
+       or more contributor license agreements.  See the NOTICE file
+       distributed with this work for additional information
+       regarding copyright ownership.  The ASF licenses this file
+       to you under the Apache License, Version 2.0 (the
+       "License"); you may not use this file except in compliance
+       with the License.  You may obtain a copy of the License at
+
+         http://www.apache.org/licenses/LICENSE-2.0
+
+       Unless required by applicable law or agreed to in writing,
+       software distributed under the License is distributed on an
+       "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+       KIND, either express or implied.  See the License for the
+       specific language governing permissions and limitations
+       under the License.
+*/
+package cordova.plugins;
+
+/*
+ * Imports
+ */
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.net.Uri;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Looper;
+import android.util.Log;
+
+/**
+ * Single broadcast receiver shared by all Diagnostic modules.
+ *
+ * Modules register a handler for each broadcast action they need; the multiplexer registers one receiver
+ * with an IntentFilter combining the actions which currently have handlers, and dispatches each intent received
+ * to the handlers of its action. The receiver is unregistered while there are no handlers.
+ *
+ * Handlers of broadcasts which carry a data URI (e.g. media mount broadcasts with the "file" scheme) register
+ * with that scheme: an IntentFilter with a data scheme only matches intents with data, so each scheme gets
+ * a receiver of its own alongside the one for plain actions.
+ *
+ * Intents are dispatched on the main looper or, if enabled, on a dedicated HandlerThread
+ * so handlers which evaluate device state do not hold up the UI.
+ */
+public class DiagnosticBroadcastMultiplexer {
+
+    /*************
+     * Constants *
+     *************/
+
+    public static final String TAG = "DiagnosticBroadcasts";
+
+    /*************
+     * Variables *
+     *************/
+
+    private final Diagnostic diagnostic;
+    private final Context context;
+    private final boolean dedicatedThread;
+
+    /**
+     * Channels by data scheme; the channel of plain actions is keyed by NO_SCHEME. Guarded by this.
+     */
+    private final Map<String, Channel> channels = new HashMap<String, Channel>();
+
+    private volatile Map<String, Channel> channelTable = Collections.emptyMap();
+
+    private HandlerThread thread;
+    private Handler scheduler;
+
+    private static final String NO_SCHEME = "";
+
+    /**
+     * Receiver and handlers for the broadcasts of one data scheme
+     */
+    private final class Channel {
+        final String scheme;
+
+        /**
+         * Handlers by action. Guarded by the multiplexer; the lists are copy-on-write so intents are dispatched without locking.
+         */
+        final Map<String, List<BroadcastReceiver>> handlers = new HashMap<String, List<BroadcastReceiver>>();
+
+        volatile Map<String, List<BroadcastReceiver>> dispatchTable = Collections.emptyMap();
+
+        /**
+         * Currently registered receiver, or null
+         */
+        ChannelReceiver receiver;
+
+        Channel(String scheme) {
+            this.scheme = scheme;
+        }
+    }
+
+    /**
+     * Receiver registered with the filter of a channel.
+     * When the filter changes, the receiver with the new filter is registered before the previous one is unregistered
+     * so no broadcast of an unchanged action is missed; while both are registered, each action is dispatched by one of them.
+     */
+    private final class ChannelReceiver extends BroadcastReceiver {
+        /**
+         * Actions whose intents this receiver dispatches
+         */
+        volatile Set<String> actions;
+
+        ChannelReceiver(Set<String> actions) {
+            this.actions = actions;
+        }
+
+        @Override
+        public void onReceive(Context context, Intent intent) {
+            if (actions.contains(intent.getAction())) {
+                dispatch(context, intent);
+            }
+        }
+    }
+
+    /*************
+     * Public API
+     ************/
+
+    /**
+     * Constructor.
+     *
+     * @param diagnostic        Core Diagnostic plugin instance used to report errors.
+     * @param context           Application context the receiver is registered with.
+     * @param dedicatedThread   True to dispatch intents on a dedicated HandlerThread rather than the main looper.
+     */
+    public DiagnosticBroadcastMultiplexer(Diagnostic diagnostic, Context context, boolean dedicatedThread) {
+        this.diagnostic = diagnostic;
+        this.context = context;
+        this.dedicatedThread = dedicatedThread;
+    }
+
+    /**
+     * Adds a handler for a broadcast action. A handler registered for several actions receives the intents of each.
+     *
+     * @param action    Broadcast action, e.g. BluetoothAdapter.ACTION_STATE_CHANGED
+     * @param handler   Handler to pass the intents of the action to
+     */
+    public void register(String action, BroadcastReceiver handler) {
+        register(action, null, handler);
+    }
+
+    /**
+     * Adds a handler for a broadcast action whose intents carry a data URI of the given scheme.
+     *
+     * @param action        Broadcast action, e.g. Intent.ACTION_MEDIA_MOUNTED
+     * @param dataScheme    Scheme of the intent data, e.g. "file", or null for intents without data
+     * @param handler       Handler to pass the intents of the action to
+     */
+    public synchronized void register(String action, String dataScheme, BroadcastReceiver handler) {
+        String scheme = dataScheme != null ? dataScheme : NO_SCHEME;
+        Channel channel = channels.get(scheme);
+        if (channel == null) {
+            channel = new Channel(scheme);
+            channels.put(scheme, channel);
+            channelTable = new HashMap<String, Channel>(channels);
+        }
+        List<BroadcastReceiver> actionHandlers = channel.handlers.get(action);
+        boolean newAction = actionHandlers == null;
+        if (newAction) {
+            actionHandlers = new CopyOnWriteArrayList<BroadcastReceiver>();
+            channel.handlers.put(action, actionHandlers);
+        }
+        if (!actionHandlers.contains(handler)) {
+            actionHandlers.add(handler);
+        }
+        if (newAction) {
+            updateRegistration(channel);
+        }
+    }
+
+    /**
+     * Removes a handler for a broadcast action.
+     */
+    public void unregister(String action, BroadcastReceiver handler) {
+        unregister(action, null, handler);
+    }
+
+    /**
+     * Removes a handler for a broadcast action with data of the given scheme.
+     */
+    public synchronized void unregister(String action, String dataScheme, BroadcastReceiver handler) {
+        Channel channel = channels.get(dataScheme != null ? dataScheme : NO_SCHEME);
+        if (channel == null) {
+            return;
+        }
+        List<BroadcastReceiver> actionHandlers = channel.handlers.get(action);
+        if (actionHandlers == null || !actionHandlers.remove(handler)) {
+            return;
+        }
+        if (actionHandlers.isEmpty()) {
+            channel.handlers.remove(action);
+            updateRegistration(channel);
+        }
+    }
+
+    /**
+     * Returns true if a receiver is currently registered.
+     */
+    public synchronized boolean isRegistered() {
+        for (Channel channel : channels.values()) {
+            if (channel.receiver != null) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the number of actions with handlers, counting an action once per data scheme.
+     */
+    public synchronized int getActionCount() {
+        int count = 0;
+        for (Channel channel : channels.values()) {
+            count += channel.handlers.size();
+        }
+        return count;
+    }
+
+    /**
+     * Returns the looper intents are dispatched on.
+     */
+    public synchronized Looper getLooper() {
+        return dedicatedThread ? getScheduler().getLooper() : Looper.getMainLooper();
+    }
+
+    /**
+     * Removes all handlers, unregisters the receivers and stops the dedicated thread.
+     */
+    public synchronized void close() {
+        for (Channel channel : channels.values()) {
+            channel.handlers.clear();
+            updateRegistration(channel);
+        }
+        channels.clear();
+        channelTable = Collections.emptyMap();
+        if (thread != null) {
+            thread.quitSafely();
+            thread = null;
+            scheduler = null;
+        }
+    }
+
+    /************
+     * Internals
+     ***********/
+
+    /**
+     * Passes an intent to the handlers of its action and data scheme. An exception thrown by one handler does not stop the others.
+     */
+    protected void dispatch(Context context, Intent intent) {
+        String action = intent.getAction();
+        if (action == null) {
+            return;
+        }
+        Uri data = intent.getData();
+        String scheme = data != null ? data.getScheme() : null;
+        Channel channel = channelTable.get(scheme != null ? scheme : NO_SCHEME);
+        List<BroadcastReceiver> actionHandlers = channel != null ? channel.dispatchTable.get(action) : null;
+        if (actionHandlers == null) {
+            return;
+        }
+        for (BroadcastReceiver handler : actionHandlers) {
+            try {
+                handler.onReceive(context, intent);
+            } catch (Exception e) {
+                diagnostic.logError("Error handling " + action + " broadcast: " + e.toString());
+            }
+        }
+    }
+
+    /**
+     * Replaces the receiver of a channel with one whose filter covers its current set of actions, or unregisters it if there are none.
+     * The new receiver is registered before the previous one is unregistered, and only takes over the actions of the previous one
+     * once that has been unregistered. Must be called while holding the lock.
+     */
+    private void updateRegistration(Channel channel) {
+        channel.dispatchTable = new HashMap<String, List<BroadcastReceiver>>(channel.handlers);
+        ChannelReceiver previous = channel.receiver;
+        ChannelReceiver next = null;
+        Set<String> actions = new HashSet<String>(channel.handlers.keySet());
+
+        if (!actions.isEmpty()) {
+            Set<String> added = new HashSet<String>(actions);
+            if (previous != null) {
+                added.removeAll(previous.actions);
+            }
+            next = new ChannelReceiver(added);
+
+            IntentFilter filter = new IntentFilter();
+            for (String action : actions) {
+                filter.addAction(action);
+            }
+            if (!NO_SCHEME.equals(channel.scheme)) {
+                filter.addDataScheme(channel.scheme);
+            }
+            try {
+                if (dedicatedThread) {
+                    context.registerReceiver(next, filter, null, getScheduler());
+                } else {
+                    context.registerReceiver(next, filter);
+                }
+                Log.d(TAG, "Registered broadcast receiver for " + actions.size() + " actions"
+                        + (NO_SCHEME.equals(channel.scheme) ? "" : " with " + channel.scheme + " data"));
+            } catch (Exception e) {
+                diagnostic.logWarning("Unable to register broadcast receiver: " + e.getMessage());
+                return;
+            }
+        }
+
+        if (previous != null) {
+            try {
+                context.unregisterReceiver(previous);
+            } catch (Exception e) {
+                diagnostic.logWarning("Unable to unregister broadcast receiver: " + e.getMessage());
+            }
+        }
+        if (next != null) {
+            next.actions = actions;
+        }
+        channel.receiver = next;
+    }
+
+    private Handler getScheduler() {
+        if (scheduler == null) {
+            thread = new HandlerThread(TAG);
+            thread.start();
+            scheduler = new Handler(thread.getLooper());
+        }
+        return scheduler;
+    }
+}
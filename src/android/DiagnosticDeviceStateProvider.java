@@ -0,0 +1,182 @@
+/*
+       Licensed to the Apache Software Foundation (ASF) under one
+       or more contributor license agreements.  See the NOTICE file
+       distributed with this work for additional information
+       regarding copyright ownership.  The ASF licenses this file
+       to you under the Apache License, Version 2.0 (the
+       "License"); you may not use this file except in compliance
+       with the License.  You may obtain a copy of the License at
+
+         http://www.apache.org/licenses/LICENSE-2.0
+
+       Unless required by applicable law or agreed to in writing,
+       software distributed under the License is distributed on an
+       "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+       KIND, either express or implied.  See the License for the
+       specific language governing permissions and limitations
+       under the License.
+*/
+package cordova.plugins;
+
+/*
+ * Imports
+ */
+import java.io.File;
+
+import android.content.pm.ApplicationInfo;
+import android.content.pm.PackageInfo;
+import android.content.pm.PackageManager;
+import android.provider.Settings;
+
+/**
+ * Source of the device state read by the Diagnostic modules.
+ *
+ * The modules read settings, adapter states and hardware features through this interface rather than calling
+ * the Android system services directly, so the plugin logic can run against another implementation.
+ * DiagnosticAndroidDeviceState is the default and wraps the system services of the app.
+ *
+ * Implementations must be safe to call from any thread.
+ */
+public interface DiagnosticDeviceStateProvider {
+
+    /**
+     * Returned by getBluetoothState() if the device has no Bluetooth adapter
+     */
+    int BLUETOOTH_ADAPTER_NONE = -1;
+
+    /*
+     * Settings
+     */
+
+    /**
+     * Returns the value of a Settings.Global integer, or def if it is not set.
+     */
+    int getGlobalSetting(String name, int def);
+
+    /**
+     * Returns the value of a Settings.Secure integer, or def if it is not set.
+     */
+    int getSecureSetting(String name, int def);
+
+    /**
+     * Returns the value of a Settings.Secure integer.
+     *
+     * @throws Settings.SettingNotFoundException if it is not set
+     */
+    int getSecureSetting(String name) throws Settings.SettingNotFoundException;
+
+    /**
+     * Returns the value of a Settings.System integer, or def if it is not set.
+     */
+    int getSystemSetting(String name, int def);
+
+    /*
+     * Package
+     */
+
+    /**
+     * Returns true if the device has a PackageManager.FEATURE_* system feature.
+     */
+    boolean hasSystemFeature(String feature);
+
+    /**
+     * Returns the PackageInfo of the app.
+     */
+    PackageInfo getPackageInfo(int flags) throws PackageManager.NameNotFoundException;
+
+    /**
+     * Returns the ApplicationInfo of the app.
+     */
+    ApplicationInfo getApplicationInfo(int flags) throws PackageManager.NameNotFoundException;
+
+    /*
+     * Radios
+     */
+
+    /**
+     * Returns the BluetoothAdapter.STATE_* of the default adapter, or BLUETOOTH_ADAPTER_NONE if there is none.
+     */
+    int getBluetoothState();
+
+    /**
+     * Returns true if the default Bluetooth adapter supports multiple advertisement (BLE peripheral mode).
+     */
+    boolean isBluetoothMultipleAdvertisementSupported();
+
+    /**
+     * Starts enabling or disabling the default Bluetooth adapter.
+     *
+     * @return false if there is no adapter or the change could not be started
+     */
+    boolean setBluetoothEnabled(boolean enabled);
+
+    /**
+     * Returns true if a LocationManager provider is enabled.
+     */
+    boolean isLocationProviderEnabled(String provider);
+
+    /**
+     * Returns true if the device has an NFC adapter.
+     */
+    boolean hasNfcAdapter();
+
+    /**
+     * Returns true if the device has an NFC adapter and it is enabled.
+     */
+    boolean isNfcEnabled();
+
+    boolean isWifiEnabled();
+
+    /**
+     * Enables or disables Wifi.
+     *
+     * @return false if the change could not be made
+     */
+    boolean setWifiEnabled(boolean enabled);
+
+    /**
+     * Returns true if mobile data is enabled, or false if this cannot be determined.
+     */
+    boolean isMobileDataEnabled();
+
+    /*
+     * Hardware
+     */
+
+    int getNumberOfCameras();
+
+    /**
+     * Returns the battery level as a percentage.
+     */
+    int getBatteryLevel();
+
+    /**
+     * Returns the number of bytes available in the filesystem containing a path, or 0 if the path is invalid.
+     */
+    long getFreeSpace(String path);
+
+    /**
+     * Returns the app-specific directories on each external storage volume; an entry is null if its volume is unavailable.
+     */
+    File[] getExternalFilesDirs();
+
+    /**
+     * Returns true if the volume containing a directory is removable (i.e. an SD card).
+     * Before Lollipop, where this cannot be determined, returns true if the volume is mounted.
+     */
+    boolean isRemovableStorage(File dir);
+
+    /*
+     * Notifications
+     */
+
+    /**
+     * Returns true if the user allows the app to post notifications.
+     */
+    boolean areNotificationsEnabled();
+
+    /**
+     * Returns true if the app is exempt from battery optimizations.
+     */
+    boolean isIgnoringBatteryOptimizations();
+}
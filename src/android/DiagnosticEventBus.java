@@ -0,0 +1,261 @@
+/*
+       Licensed to the Apache Software Foundation (ASF) under one
+       or more contributor license agreements.  See the NOTICE file
+       distributed with this work for additional information
+       regarding copyright ownership.  The ASF licenses this file
+       to you under the Apache License, Version 2.0 (the
+       "License"); you may not use this file except in compliance
+       with the License.  You may obtain a copy of the License at
+
+         http://www.apache.org/licenses/LICENSE-2.0
+
+       Unless required by applicable law or agreed to in writing,
+       software distributed under the License is distributed on an
+       "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+       KIND, either express or implied.  See the License for the
+       specific language governing permissions and limitations
+       under the License.
+*/
+package cordova.plugins;
+
+/*
+ * Imports
+ */
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.cordova.CallbackContext;
+import org.apache.cordova.PluginResult;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import android.util.Log;
+
+/**
+ * Delivers native state change events to JS via persistent (keep-callback) subscriptions.
+ *
+ * JS subscribes to an event type (e.g. "bluetoothState") or to all types (ALL_TYPES).
+ * Each event is sent as a JSON object: {"type": type, "state": state, "timestamp": ms since epoch, "absorbed": n}
+ * where absorbed is the number of raw state change broadcasts coalesced into the event.
+ *
+ * Modules register a Source for each event type they produce. A source is only started while its type has subscribers,
+ * so broadcast receivers are not registered and the initial state is not read until JS registers a handler.
+ */
+public class DiagnosticEventBus {
+
+    /**
+     * Native producer of the events of one type.
+     */
+    public interface Source {
+        /**
+         * Starts producing events: captures the current state and registers for changes to it.
+         * Called when the first subscriber to the type of the source is added.
+         */
+        void start();
+
+        /**
+         * Stops producing events. Called when the last subscriber to the type of the source is removed.
+         */
+        void stop();
+    }
+
+    /*************
+     * Constants *
+     *************/
+
+    public static final String TAG = "DiagnosticEventBus";
+
+    /**
+     * Subscribes to events of all types
+     */
+    public static final String ALL_TYPES = "*";
+
+    /*************
+     * Variables *
+     *************/
+
+    private final Map<String, CallbackContext> subscriptions = new ConcurrentHashMap<String, CallbackContext>();
+
+    /**
+     * Event sources by type and the types of those which are started. Guarded by this.
+     */
+    private final Map<String, Source> sources = new HashMap<String, Source>();
+    private final Set<String> startedSources = new HashSet<String>();
+
+    /*************
+     * Public API
+     ************/
+
+    /**
+     * Subscribes a JS callback to an event type, replacing any existing subscription to the type.
+     *
+     * @param type              Event type, or ALL_TYPES.
+     * @param callbackContext   Persistent callback to send events to.
+     */
+    public void subscribe(String type, CallbackContext callbackContext) {
+        CallbackContext previous;
+        synchronized (this) {
+            previous = subscriptions.put(type, callbackContext);
+            updateSources(type);
+        }
+        if (previous != null && previous != callbackContext) {
+            release(previous);
+        }
+        PluginResult result = new PluginResult(PluginResult.Status.NO_RESULT);
+        result.setKeepCallback(true);
+        callbackContext.sendPluginResult(result);
+    }
+
+    /**
+     * Removes the subscription to an event type and releases its JS callback.
+     */
+    public void unsubscribe(String type) {
+        CallbackContext previous;
+        synchronized (this) {
+            previous = subscriptions.remove(type);
+            updateSources(type);
+        }
+        if (previous != null) {
+            release(previous);
+        }
+    }
+
+    /**
+     * Removes all subscriptions without releasing their JS callbacks.
+     * Called when the webview is reset, since the callbacks no longer exist.
+     */
+    public synchronized void clear() {
+        subscriptions.clear();
+        updateSources(ALL_TYPES);
+    }
+
+    /**
+     * Registers the source of an event type, replacing any existing source of the type.
+     * The source is started immediately if the type already has subscribers.
+     */
+    public synchronized void registerSource(String type, Source source) {
+        unregisterSource(type);
+        sources.put(type, source);
+        updateSource(type);
+    }
+
+    /**
+     * Removes the source of an event type, stopping it if it is started.
+     */
+    public synchronized void unregisterSource(String type) {
+        Source source = sources.remove(type);
+        if (source != null && startedSources.remove(type)) {
+            source.stop();
+        }
+    }
+
+    /**
+     * Returns true if the source of an event type is started.
+     */
+    public synchronized boolean isSourceStarted(String type) {
+        return startedSources.contains(type);
+    }
+
+    /**
+     * Returns true if there is a subscription which would receive events of the given type.
+     */
+    public boolean hasSubscribers(String type) {
+        return subscriptions.containsKey(type) || subscriptions.containsKey(ALL_TYPES);
+    }
+
+    /**
+     * Sends an event resulting from a single state change broadcast to the subscribers of its type and of all types.
+     *
+     * @param type  Event type
+     * @param state New state
+     * @return true if the event was sent to at least one subscriber.
+     */
+    public boolean publish(String type, String state) {
+        return publish(type, state, 1);
+    }
+
+    /**
+     * Sends an event to the subscribers of its type and of all types.
+     *
+     * @param type      Event type
+     * @param state     New state
+     * @param absorbed  Number of state change broadcasts coalesced into the event
+     * @return true if the event was sent to at least one subscriber.
+     */
+    public boolean publish(String type, String state, int absorbed) {
+        CallbackContext typeSubscriber = subscriptions.get(type);
+        CallbackContext allSubscriber = subscriptions.get(ALL_TYPES);
+        if (typeSubscriber == null && allSubscriber == null) {
+            return false;
+        }
+
+        JSONObject event = new JSONObject();
+        try {
+            event.put("type", type);
+            event.put("state", state);
+            event.put("timestamp", System.currentTimeMillis());
+            event.put("absorbed", absorbed);
+        } catch (JSONException e) {
+            Log.e(TAG, "Failed to build event: " + e.getMessage());
+            return false;
+        }
+        if (typeSubscriber != null) {
+            send(typeSubscriber, event);
+        }
+        if (allSubscriber != null && allSubscriber != typeSubscriber) {
+            send(allSubscriber, event);
+        }
+        return true;
+    }
+
+    /************
+     * Internals
+     ***********/
+
+    /**
+     * Starts or stops the sources affected by a change to the subscriptions to a type.
+     */
+    private void updateSources(String type) {
+        if (ALL_TYPES.equals(type)) {
+            for (String sourceType : sources.keySet()) {
+                updateSource(sourceType);
+            }
+        } else {
+            updateSource(type);
+        }
+    }
+
+    /**
+     * Starts the source of a type if the type has subscribers, or stops it if not.
+     */
+    private void updateSource(String type) {
+        Source source = sources.get(type);
+        if (source == null) {
+            return;
+        }
+        boolean wanted = hasSubscribers(type);
+        if (wanted && startedSources.add(type)) {
+            Log.d(TAG, "Starting " + type + " event source");
+            source.start();
+        } else if (!wanted && startedSources.remove(type)) {
+            Log.d(TAG, "Stopping " + type + " event source");
+            source.stop();
+        }
+    }
+
+    private void send(CallbackContext callbackContext, JSONObject event) {
+        PluginResult result = new PluginResult(PluginResult.Status.OK, event);
+        result.setKeepCallback(true);
+        callbackContext.sendPluginResult(result);
+    }
+
+    /**
+     * Lets the JS layer discard a callback which will no longer be called.
+     */
+    private void release(CallbackContext callbackContext) {
+        callbackContext.sendPluginResult(new PluginResult(PluginResult.Status.NO_RESULT));
+    }
+}
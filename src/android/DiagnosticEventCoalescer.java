@@ -0,0 +1,176 @@
+/*
+       Licensed to the Apache Software Foundation (ASF) under one
+       or more contributor license agreements.  See the NOTICE file
+       distributed with this work for additional information
+       regarding copyright ownership.  The ASF licenses this file
+       to you under the Apache License, Version 2.0 (the
+       "License"); you may not use this file except in compliance
+       with the License.  You may obtain a copy of the License at
+
+         http://www.apache.org/licenses/LICENSE-2.0
+
+       Unless required by applicable law or agreed to in writing,
+       software distributed under the License is distributed on an
+       "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+       KIND, either express or implied.  See the License for the
+       specific language governing permissions and limitations
+       under the License.
+*/
+package cordova.plugins;
+
+/*
+ * Imports
+ */
+import android.content.Intent;
+import android.os.Handler;
+import android.os.SystemClock;
+
+/**
+ * Coalesces bursts of state change broadcasts into a single delivery to a module's notify method.
+ *
+ * A burst lasts until no broadcast has been received for the quiet window. The target is called once the burst has ended,
+ * with the last intent of the burst, so only the settled state is evaluated and sent to JS. With leading delivery,
+ * the target is also called immediately for the first intent of a burst; the trailing delivery is then only made
+ * if further broadcasts were received, so the settled state is never dropped.
+ * Each delivery reports how many broadcasts it absorbed.
+ *
+ * A quiet window of 0 disables coalescing: every broadcast is delivered as it is received.
+ */
+public class DiagnosticEventCoalescer {
+
+    /**
+     * Receives the coalesced broadcasts.
+     */
+    public interface Target {
+        /**
+         * @param intent    Last intent received
+         * @param absorbed  Number of broadcasts received since the previous delivery, including this one
+         */
+        void deliver(Intent intent, int absorbed);
+    }
+
+    /*************
+     * Variables *
+     *************/
+
+    private final Target target;
+    private final DiagnosticBroadcastMultiplexer broadcasts;
+    private final long quietWindowMs;
+    private final boolean leading;
+
+    /**
+     * State of the current burst. Guarded by this.
+     */
+    private boolean inBurst = false;
+    private long quietDeadline;
+    private int pending = 0;
+    private Intent lastIntent;
+
+    /**
+     * Created on the first burst, so the dispatch thread of the multiplexer is not started before any broadcast arrives. Guarded by this.
+     */
+    private Handler scheduler;
+
+    private final Runnable quietCheck = new Runnable() {
+        @Override
+        public void run() {
+            onQuietCheck();
+        }
+    };
+
+    /*************
+     * Public API
+     ************/
+
+    /**
+     * Constructor.
+     *
+     * @param target        Target to deliver coalesced broadcasts to
+     * @param broadcasts    Multiplexer on whose dispatch thread bursts are timed and trailing deliveries are made
+     * @param quietWindowMs Time in ms without broadcasts after which a burst has ended; 0 to disable coalescing
+     * @param leading       True to also deliver the first broadcast of a burst immediately
+     */
+    public DiagnosticEventCoalescer(Target target, DiagnosticBroadcastMultiplexer broadcasts, long quietWindowMs, boolean leading) {
+        this.target = target;
+        this.broadcasts = broadcasts;
+        this.quietWindowMs = quietWindowMs;
+        this.leading = leading;
+    }
+
+    /**
+     * Records a broadcast.
+     */
+    public void signal(Intent intent) {
+        if (quietWindowMs <= 0) {
+            target.deliver(intent, 1);
+            return;
+        }
+        boolean deliverNow = false;
+        synchronized (this) {
+            lastIntent = intent;
+            pending++;
+            quietDeadline = SystemClock.uptimeMillis() + quietWindowMs;
+            if (!inBurst) {
+                inBurst = true;
+                deliverNow = leading;
+                if (deliverNow) {
+                    pending = 0;
+                }
+                getScheduler().postDelayed(quietCheck, quietWindowMs);
+            }
+        }
+        if (deliverNow) {
+            target.deliver(intent, 1);
+        }
+    }
+
+    /**
+     * Discards the current burst without delivering it.
+     */
+    public synchronized void cancel() {
+        pending = 0;
+        lastIntent = null;
+    }
+
+    public long getQuietWindow() {
+        return quietWindowMs;
+    }
+
+    /************
+     * Internals
+     ***********/
+
+    /**
+     * Ends the burst if the quiet window has elapsed since the last broadcast, otherwise checks again when it will have.
+     * The deadline is extended by each broadcast rather than the check being rescheduled, so a burst posts one check per window.
+     */
+    private void onQuietCheck() {
+        Intent intent;
+        int absorbed;
+        synchronized (this) {
+            long remaining = quietDeadline - SystemClock.uptimeMillis();
+            if (remaining > 0) {
+                getScheduler().postDelayed(quietCheck, remaining);
+                return;
+            }
+            inBurst = false;
+            intent = lastIntent;
+            absorbed = pending;
+            lastIntent = null;
+            pending = 0;
+        }
+        if (absorbed > 0 && intent != null) {
+            target.deliver(intent, absorbed);
+        }
+    }
+
+    /**
+     * Must be called while holding the lock.
+     */
+    private Handler getScheduler() {
+        if (scheduler == null) {
+            scheduler = new Handler(broadcasts.getLooper());
+        }
+        return scheduler;
+    }
+}
@@ -0,0 +1,232 @@
+/*
+       Licensed to the Apache Software Foundation (ASF) under one
+       or more contributor license agreements.  See the NOTICE file
+       distributed with this work for additional information
+       regarding copyright ownership.  The ASF licenses this file
+       to you under the Apache License, Version 2.0 (the
+       "License"); you may not use this file except in compliance
+       with the License.  You may obtain a copy of the License at
+
+         http://www.apache.org/licenses/LICENSE-2.0
+
+       Unless required by applicable law or agreed to in writing,
+       software distributed under the License is distributed on an
+       "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+       KIND, either express or implied.  See the License for the
+       specific language governing permissions and limitations
+       under the License.
+*/
+package cordova.plugins;
+
+/*
+ * Imports
+ */
+import org.apache.cordova.CallbackContext;
+import org.apache.cordova.PluginResult;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+/**
+ * Channel for native debug log messages to the JS console.
+ *
+ * Messages are held in a bounded ring buffer and sent to JS in batches via a single persistent callback,
+ * at most once per flush interval. If the buffer fills before it is flushed, the oldest messages are dropped
+ * and the number dropped is reported with the next batch.
+ *
+ * Each batch is a JSON object: {"entries": [{"level", "message", "timestamp"}, ...], "dropped": n}
+ */
+public class DiagnosticLogChannel {
+
+    /*************
+     * Constants *
+     *************/
+
+    public static final String TAG = "DiagnosticLogChannel";
+
+    public static final int LEVEL_DEBUG = 0;
+    public static final int LEVEL_INFO = 1;
+    public static final int LEVEL_WARN = 2;
+    public static final int LEVEL_ERROR = 3;
+
+    /**
+     * Level names, as passed from and to JS, indexed by level
+     */
+    public static final String[] LEVEL_NAMES = {"debug", "info", "warn", "error"};
+
+    public static final int DEFAULT_CAPACITY = 256;
+
+    public static final long DEFAULT_FLUSH_INTERVAL_MS = 100;
+
+    /*************
+     * Variables *
+     *************/
+
+    private final Handler handler;
+    private final long flushIntervalMs;
+
+    private final int[] levels;
+    private final String[] messages;
+    private final long[] timestamps;
+    private int head = 0; // index of oldest message
+    private int size = 0;
+    private int dropped = 0;
+    private long totalDropped = 0;
+    private long batches = 0;
+    private boolean flushScheduled = false;
+
+    private CallbackContext callbackContext;
+    private volatile int minLevel = LEVEL_DEBUG;
+
+    private final Runnable flushTask = new Runnable() {
+        @Override
+        public void run() {
+            flush();
+        }
+    };
+
+    /*************
+     * Public API
+     ************/
+
+    public DiagnosticLogChannel() {
+        this(new Handler(Looper.getMainLooper()), DEFAULT_CAPACITY, DEFAULT_FLUSH_INTERVAL_MS);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param handler         Handler on which batches are flushed.
+     * @param capacity        Maximum number of messages buffered between flushes.
+     * @param flushIntervalMs Delay between the first message of a batch being logged and the batch being flushed.
+     */
+    public DiagnosticLogChannel(Handler handler, int capacity, long flushIntervalMs) {
+        this.handler = handler;
+        this.flushIntervalMs = flushIntervalMs;
+        levels = new int[capacity];
+        messages = new String[capacity];
+        timestamps = new long[capacity];
+    }
+
+    /**
+     * Opens the channel, replacing any existing JS callback.
+     *
+     * @param callbackContext Persistent callback to send batches to.
+     * @param minLevel        Messages below this level are discarded.
+     */
+    public void open(CallbackContext callbackContext, int minLevel) {
+        this.minLevel = minLevel;
+        synchronized (this) {
+            this.callbackContext = callbackContext;
+        }
+        PluginResult result = new PluginResult(PluginResult.Status.NO_RESULT);
+        result.setKeepCallback(true);
+        callbackContext.sendPluginResult(result);
+    }
+
+    /**
+     * Closes the channel, discarding any buffered messages.
+     * Called when the webview is reset, since the JS callback no longer exists.
+     */
+    public synchronized void close() {
+        callbackContext = null;
+        head = size = dropped = 0;
+        for (int i = 0; i < messages.length; i++) {
+            messages[i] = null;
+        }
+    }
+
+    public synchronized boolean isOpen() {
+        return callbackContext != null;
+    }
+
+    /**
+     * Returns the level with the given name, or LEVEL_DEBUG if the name is not recognised.
+     */
+    public static int parseLevel(String name) {
+        for (int i = 0; i < LEVEL_NAMES.length; i++) {
+            if (LEVEL_NAMES[i].equalsIgnoreCase(name)) return i;
+        }
+        return LEVEL_DEBUG;
+    }
+
+    /**
+     * Buffers a message to be sent with the next batch.
+     *
+     * @return false if the channel is not open, in which case the message was not buffered.
+     */
+    public boolean log(int level, String message) {
+        boolean schedule = false;
+        synchronized (this) {
+            if (callbackContext == null) return false;
+            if (level < minLevel) return true;
+            int tail = (head + size) % messages.length;
+            if (size == messages.length) {
+                // Buffer full: overwrite the oldest message
+                head = (head + 1) % messages.length;
+                dropped++;
+                totalDropped++;
+            } else {
+                size++;
+            }
+            levels[tail] = level;
+            messages[tail] = message;
+            timestamps[tail] = System.currentTimeMillis();
+            if (!flushScheduled) {
+                flushScheduled = schedule = true;
+            }
+        }
+        if (schedule) {
+            handler.postDelayed(flushTask, flushIntervalMs);
+        }
+        return true;
+    }
+
+    /**
+     * Sends the buffered messages to JS.
+     */
+    public void flush() {
+        CallbackContext context;
+        JSONObject batch = new JSONObject();
+        try {
+            synchronized (this) {
+                flushScheduled = false;
+                context = callbackContext;
+                if (context == null || (size == 0 && dropped == 0)) return;
+                JSONArray entries = new JSONArray();
+                for (int i = 0; i < size; i++) {
+                    int index = (head + i) % messages.length;
+                    JSONObject entry = new JSONObject();
+                    entry.put("level", LEVEL_NAMES[levels[index]]);
+                    entry.put("message", messages[index]);
+                    entry.put("timestamp", timestamps[index]);
+                    entries.put(entry);
+                    messages[index] = null;
+                }
+                batch.put("entries", entries);
+                batch.put("dropped", dropped);
+                head = size = dropped = 0;
+                batches++;
+            }
+        } catch (JSONException e) {
+            Log.e(TAG, "Failed to build log batch: " + e.getMessage());
+            return;
+        }
+        PluginResult result = new PluginResult(PluginResult.Status.OK, batch);
+        result.setKeepCallback(true);
+        context.sendPluginResult(result);
+    }
+
+    public synchronized JSONObject getStats() throws JSONException {
+        JSONObject stats = new JSONObject();
+        stats.put("open", callbackContext != null);
+        stats.put("buffered", size);
+        stats.put("dropped", totalDropped);
+        stats.put("batches", batches);
+        return stats;
+    }
+}
@@ -0,0 +1,176 @@
+/*
+       Licensed to the Apache Software Foundation (ASF) under one
+       or more contributor license agreements.  See the NOTICE file
+       distributed with this work for additional information
+       regarding copyright ownership.  The ASF licenses this file
+       to you under the Apache License, Version 2.0 (the
+       "License"); you may not use this file except in compliance
+       with the License.  You may obtain a copy of the License at
+
+         http://www.apache.org/licenses/LICENSE-2.0
+
+       Unless required by applicable law or agreed to in writing,
+       software distributed under the License is distributed on an
+       "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+       KIND, either express or implied.  See the License for the
+       specific language governing permissions and limitations
+       under the License.
+*/
+package cordova.plugins;
+
+/*
+ * Imports
+ */
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import android.os.SystemClock;
+
+/**
+ * Memoizes the results of slow, idempotent probes (e.g. root detection, OS version details).
+ *
+ * Each result is keyed by name and kept for the TTL declared by its caller, or for the lifetime of the process.
+ * Concurrent callers of the same key share a single computation: the first caller computes the result
+ * on its own thread and the others wait for it. Failed computations are not memoized.
+ * Broadcast receivers invalidate entries whose underlying state has changed.
+ */
+public class DiagnosticMemo {
+
+    /**
+     * TTL of a result which does not change for the lifetime of the process
+     */
+    public static final long PROCESS_LIFETIME = Long.MAX_VALUE;
+
+    private static final class Entry {
+        final FutureTask<Object> task;
+        volatile long ttlMs;
+        volatile long computedAt;
+
+        Entry(final Callable<?> computation, long ttlMs) {
+            this.ttlMs = ttlMs;
+            this.task = new FutureTask<Object>(new Callable<Object>() {
+                @Override
+                public Object call() throws Exception {
+                    Object result = computation.call();
+                    computedAt = SystemClock.elapsedRealtime();
+                    return result;
+                }
+            });
+        }
+
+        boolean isExpired(long now) {
+            return task.isDone() && ttlMs != PROCESS_LIFETIME && now - computedAt >= ttlMs;
+        }
+    }
+
+    /*************
+     * Variables *
+     *************/
+
+    private final ConcurrentMap<String, Entry> entries = new ConcurrentHashMap<String, Entry>();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong shared = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    /*************
+     * Public API
+     ************/
+
+    /**
+     * Returns the memoized result for a key, computing it if there is none or it has expired.
+     *
+     * @param key           Name of the result, including any arguments it depends on
+     * @param ttlMs         Time in ms for which the result is valid once computed, or PROCESS_LIFETIME
+     * @param computation   Computes the result; run on the calling thread
+     * @return              The result
+     * @throws Exception    The exception thrown by the computation
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(String key, long ttlMs, Callable<T> computation) throws Exception {
+        Entry entry = entries.get(key);
+        if (entry != null && entry.isExpired(SystemClock.elapsedRealtime())) {
+            entries.remove(key, entry);
+            entry = null;
+        }
+
+        boolean owner = false;
+        if (entry == null) {
+            Entry created = new Entry(computation, ttlMs);
+            entry = entries.putIfAbsent(key, created);
+            if (entry == null) {
+                entry = created;
+                owner = true;
+            }
+        }
+
+        if (owner) {
+            misses.incrementAndGet();
+            entry.task.run();
+        } else if (entry.task.isDone()) {
+            hits.incrementAndGet();
+        } else {
+            shared.incrementAndGet();
+        }
+
+        try {
+            return (T) entry.task.get();
+        } catch (ExecutionException e) {
+            entries.remove(key, entry);
+            Throwable cause = e.getCause();
+            if (cause instanceof Exception) {
+                throw (Exception) cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Changes the TTL of the result for a key, counted from when it was computed.
+     * A computation may call this for its own key to keep a partial result for less time than declared.
+     */
+    public void setTtl(String key, long ttlMs) {
+        Entry entry = entries.get(key);
+        if (entry != null) {
+            entry.ttlMs = ttlMs;
+        }
+    }
+
+    /**
+     * Discards the result for a key. A computation in progress completes for the callers already waiting on it.
+     */
+    public void invalidate(String key) {
+        if (entries.remove(key) != null) {
+            invalidations.incrementAndGet();
+        }
+    }
+
+    /**
+     * Discards the results of all keys starting with a prefix, e.g. those of an action with any arguments.
+     */
+    public void invalidatePrefix(String prefix) {
+        for (String key : entries.keySet()) {
+            if (key.startsWith(prefix)) {
+                invalidate(key);
+            }
+        }
+    }
+
+    public JSONObject getStats() throws JSONException {
+        JSONObject stats = new JSONObject();
+        stats.put("hits", hits.get());
+        stats.put("misses", misses.get());
+        stats.put("shared", shared.get());
+        stats.put("invalidations", invalidations.get());
+        stats.put("size", entries.size());
+        return stats;
+    }
+}
@@ -0,0 +1,134 @@
+/*
+       Licensed to the Apache Software Foundation (ASF) under one
+       or more contributor license agreements.  See the NOTICE file
+       distributed with this work for additional information
+       regarding copyright ownership.  The ASF licenses this file
+       to you under the Apache License, Version 2.0 (the
+       "License"); you may not use this file except in compliance
+       with the License.  You may obtain a copy of the License at
+
+         http://www.apache.org/licenses/LICENSE-2.0
+
+       Unless required by applicable law or agreed to in writing,
+       software distributed under the License is distributed on an
+       "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+       KIND, either express or implied.  See the License for the
+       specific language governing permissions and limitations
+       under the License.
+*/
+package cordova.plugins;
+
+/*
+ * Imports
+ */
+import java.lang.reflect.Method;
+
+import org.apache.cordova.CallbackContext;
+import org.apache.cordova.CordovaInterface;
+import org.apache.cordova.CordovaPlugin;
+
+import android.app.Activity;
+import android.content.Context;
+import android.net.ConnectivityManager;
+import android.util.Log;
+
+import androidx.core.app.ActivityCompat;
+
+/**
+ * Reflective method handles used by the Diagnostic plugin, resolved once when the plugin is initialised.
+ * A handle is null if the method is not available in the current environment, in which case the caller falls back accordingly.
+ */
+public class DiagnosticMethodBindings {
+
+    /*************
+     * Constants *
+     *************/
+
+    public static final String TAG = "DiagnosticMethodBindings";
+
+    /*************
+     * Variables *
+     *************/
+
+    /**
+     * CordovaInterface.hasPermission(String) - not present before cordova-android 5
+     */
+    protected final Method hasPermission;
+
+    /**
+     * CordovaInterface.requestPermissions(CordovaPlugin, int, String[]) - not present before cordova-android 5
+     */
+    protected final Method requestPermissions;
+
+    /**
+     * ActivityCompat.shouldShowRequestPermissionRationale(Activity, String)
+     */
+    protected final Method shouldShowRequestPermissionRationale;
+
+    /**
+     * Hidden ConnectivityManager.getMobileDataEnabled()
+     */
+    protected final Method getMobileDataEnabled;
+
+    /**
+     * Diagnostic_External_Storage.onReceivePermissionResult(CallbackContext) - null if the external storage module is not installed
+     */
+    protected final Method onReceiveExternalStoragePermissionResult;
+
+    /*************
+     * Public API
+     ************/
+
+    /**
+     * Constructor. Resolves all method handles.
+     *
+     * @param cordova The Cordova interface the permission methods are invoked on.
+     * @param context Application context used to obtain system services.
+     */
+    public DiagnosticMethodBindings(CordovaInterface cordova, Context context) {
+        hasPermission = resolveMethod(cordova.getClass(), "hasPermission", String.class);
+        requestPermissions = resolveMethod(cordova.getClass(), "requestPermissions", CordovaPlugin.class, int.class, String[].class);
+        shouldShowRequestPermissionRationale = resolveMethod(ActivityCompat.class, "shouldShowRequestPermissionRationale", Activity.class, String.class);
+
+        Method mobileDataMethod = null;
+        try {
+            ConnectivityManager cm = (ConnectivityManager) context.getSystemService(Context.CONNECTIVITY_SERVICE);
+            if (cm != null) {
+                mobileDataMethod = cm.getClass().getDeclaredMethod("getMobileDataEnabled");
+                mobileDataMethod.setAccessible(true);
+            }
+        } catch (Exception e) {
+            Log.d(TAG, "Unable to resolve getMobileDataEnabled(): " + e.getMessage());
+            mobileDataMethod = null;
+        }
+        getMobileDataEnabled = mobileDataMethod;
+
+        Method externalStorageMethod = null;
+        try {
+            Class<?> externalStorageClass = Class.forName(Diagnostic.externalStorageClassName);
+            externalStorageMethod = resolveMethod(externalStorageClass, "onReceivePermissionResult", CallbackContext.class);
+        } catch (ClassNotFoundException e) {
+            Log.d(TAG, "External storage module is not installed");
+        }
+        onReceiveExternalStoragePermissionResult = externalStorageMethod;
+    }
+
+    /************
+     * Internals
+     ***********/
+
+    /**
+     * Resolves a public method.
+     * @return the method or null if it does not exist
+     */
+    protected static Method resolveMethod(Class<?> cls, String name, Class<?>... parameterTypes) {
+        try {
+            return cls.getMethod(name, parameterTypes);
+        } catch (NoSuchMethodException e) {
+            Log.d(TAG, "Method not found: " + cls.getName() + "." + name + "()");
+        } catch (SecurityException e) {
+            Log.w(TAG, "Unable to resolve " + cls.getName() + "." + name + "(): " + e.getMessage());
+        }
+        return null;
+    }
+}
@@ -0,0 +1,241 @@
+/*
+       Licensed to the Apache Software Foundation (ASF) under one
+       or more contributor license agreements.  See the NOTICE file
+       distributed with this work for additional information
+       regarding copyright ownership.  The ASF licenses this file
+       to you under the Apache License, Version 2.0 (the
+       "License"); you may not use this file except in compliance
+       with the License.  You may obtain a copy of the License at
+
+         http://www.apache.org/licenses/LICENSE-2.0
+
+       Unless required by applicable law or agreed to in writing,
+       software distributed under the License is distributed on an
+       "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+       KIND, either express or implied.  See the License for the
+       specific language governing permissions and limitations
+       under the License.
+*/
+package cordova.plugins;
+
+/*
+ * Imports
+ */
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/**
+ * Per-action call counts, error counts and latency histograms, recorded for the actions of all Diagnostic modules.
+ *
+ * Latencies are recorded in a fixed set of log-linear buckets (4 sub-buckets per power of two microseconds, i.e. a relative error of at most 25%)
+ * so recording is a few atomic increments and does not allocate once an action has been seen.
+ * The latency of an action is the time from execute() being called to its handler returning,
+ * including any time spent waiting for the thread declared by its policy.
+ */
+public class DiagnosticMetrics {
+
+    /**
+     * Metrics of a single action
+     */
+    public static final class ActionMetrics {
+        private final AtomicLong calls = new AtomicLong();
+        private final AtomicLong errors = new AtomicLong();
+        private final AtomicLong totalNanos = new AtomicLong();
+        private final AtomicLong waitNanos = new AtomicLong();
+        private final AtomicLong maxNanos = new AtomicLong();
+        private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+
+        void record(long waitedNanos, long latencyNanos, boolean success) {
+            calls.incrementAndGet();
+            if (!success) errors.incrementAndGet();
+            totalNanos.addAndGet(latencyNanos);
+            waitNanos.addAndGet(waitedNanos);
+            long max;
+            while (latencyNanos > (max = maxNanos.get()) && !maxNanos.compareAndSet(max, latencyNanos)) {
+                // retry
+            }
+            buckets.incrementAndGet(bucketIndex(latencyNanos / 1000));
+        }
+
+        void recordError() {
+            errors.incrementAndGet();
+        }
+
+        /**
+         * Returns the latency in milliseconds below which the given fraction of calls completed, to the resolution of the buckets.
+         */
+        double getPercentileMs(double fraction, long count) {
+            long threshold = Math.max((long) Math.ceil(count * fraction), 1);
+            long maxMicros = maxNanos.get() / 1000;
+            long cumulative = 0;
+            for (int i = 0; i < BUCKET_COUNT; i++) {
+                cumulative += buckets.get(i);
+                if (cumulative >= threshold) {
+                    return Math.min(bucketUpperBound(i), maxMicros) / 1000.0;
+                }
+            }
+            return maxMicros / 1000.0;
+        }
+
+        JSONObject toJSON() throws JSONException {
+            long count = calls.get();
+            JSONObject json = new JSONObject();
+            json.put("calls", count);
+            json.put("errors", errors.get());
+            if (count > 0) {
+                json.put("meanMs", DiagnosticParallelTasks.toMillis(totalNanos.get() / count));
+                json.put("meanWaitMs", DiagnosticParallelTasks.toMillis(waitNanos.get() / count));
+                json.put("maxMs", DiagnosticParallelTasks.toMillis(maxNanos.get()));
+                json.put("p50Ms", getPercentileMs(0.5, count));
+                json.put("p90Ms", getPercentileMs(0.9, count));
+                json.put("p99Ms", getPercentileMs(0.99, count));
+
+                // Non-empty buckets, keyed by the lower bound of the bucket in microseconds
+                JSONObject histogram = new JSONObject();
+                for (int i = 0; i < BUCKET_COUNT; i++) {
+                    long bucket = buckets.get(i);
+                    if (bucket > 0) {
+                        histogram.put(String.valueOf(bucketLowerBound(i)), bucket);
+                    }
+                }
+                json.put("histogramUs", histogram);
+            }
+            return json;
+        }
+    }
+
+    /*************
+     * Constants *
+     *************/
+
+    /**
+     * Sub-buckets per power of two
+     */
+    private static final int SUB_BUCKET_BITS = 2;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    /**
+     * Highest power of two microseconds with its own buckets (2^26us is about 67s); slower calls are counted in the last bucket
+     */
+    private static final int MAX_EXPONENT = 26;
+
+    public static final int BUCKET_COUNT = (MAX_EXPONENT - SUB_BUCKET_BITS + 2) * SUB_BUCKETS;
+
+    /*************
+     * Variables *
+     *************/
+
+    private final ConcurrentHashMap<String, ActionMetrics> actions = new ConcurrentHashMap<String, ActionMetrics>();
+
+    private final AtomicLong invalidActions = new AtomicLong();
+
+    private volatile long since = System.currentTimeMillis();
+
+    /*************
+     * Public API
+     ************/
+
+    /**
+     * Records a completed call of an action.
+     *
+     * @param action       Name of the action
+     * @param waitedNanos  Time the call waited for its thread
+     * @param latencyNanos Time from the call being received to the handler returning
+     * @param success      False if the handler threw an exception
+     */
+    public void record(String action, long waitedNanos, long latencyNanos, boolean success) {
+        forAction(action).record(waitedNanos, latencyNanos, success);
+    }
+
+    /**
+     * Records a call of an action which failed before its handler was run.
+     */
+    public void recordError(String action) {
+        forAction(action).recordError();
+    }
+
+    /**
+     * Records a call of an action which is not registered by any module.
+     */
+    public void recordInvalidAction() {
+        invalidActions.incrementAndGet();
+    }
+
+    /**
+     * Discards all recorded metrics.
+     */
+    public void reset() {
+        actions.clear();
+        invalidActions.set(0);
+        since = System.currentTimeMillis();
+    }
+
+    /**
+     * Returns the recorded metrics as
+     * {"since": timestamp, "invalidActions": count, "actions": {name: {calls, errors, meanMs, meanWaitMs, maxMs, p50Ms, p90Ms, p99Ms, histogramUs}}}
+     */
+    public JSONObject toJSON() throws JSONException {
+        JSONObject json = new JSONObject();
+        json.put("since", since);
+        json.put("invalidActions", invalidActions.get());
+        JSONObject actionsJSON = new JSONObject();
+        for (Map.Entry<String, ActionMetrics> entry : actions.entrySet()) {
+            actionsJSON.put(entry.getKey(), entry.getValue().toJSON());
+        }
+        json.put("actions", actionsJSON);
+        return json;
+    }
+
+    /**
+     * Returns the index of the bucket a latency falls in.
+     */
+    public static int bucketIndex(long micros) {
+        if (micros < SUB_BUCKETS) {
+            return (int) Math.max(micros, 0);
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(micros);
+        if (exponent > MAX_EXPONENT) {
+            return BUCKET_COUNT - 1;
+        }
+        int subBucket = (int) (micros >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    /**
+     * Returns the lowest latency in microseconds counted in a bucket.
+     */
+    public static long bucketLowerBound(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int exponent = index / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        int subBucket = index % SUB_BUCKETS;
+        return (long) (SUB_BUCKETS + subBucket) << (exponent - SUB_BUCKET_BITS);
+    }
+
+    /**
+     * Returns the lowest latency in microseconds above a bucket.
+     */
+    public static long bucketUpperBound(int index) {
+        return index < BUCKET_COUNT - 1 ? bucketLowerBound(index + 1) : Long.MAX_VALUE;
+    }
+
+    /************
+     * Internals
+     ***********/
+
+    private ActionMetrics forAction(String action) {
+        ActionMetrics metrics = actions.get(action);
+        if (metrics == null) {
+            ActionMetrics created = new ActionMetrics();
+            metrics = actions.putIfAbsent(action, created);
+            if (metrics == null) metrics = created;
+        }
+        return metrics;
+    }
+}
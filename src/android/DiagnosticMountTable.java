@@ -0,0 +1,412 @@
+/*
+       Licensed to the Apache Software Foundation (ASF) under one
+       or more contributor license agreements.  See the NOTICE file
+       distributed with this work for additional information
+       regarding copyright ownership.  The ASF licenses this file
+       to you under the Apache License, Version 2.0 (the
+       "License"); you may not use this file except in compliance
+       with the License.  You may obtain a copy of the License at
+
+         http://www.apache.org/licenses/LICENSE-2.0
+
+       Unless required by applicable law or agreed to in writing,
+       software distributed under the License is distributed on an
+       "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+       KIND, either express or implied.  See the License for the
+       specific language governing permissions and limitations
+       under the License.
+*/
+package cordova.plugins;
+
+/*
+ * Imports
+ */
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Parser of the kernel mount table, read from /proc/self/mountinfo or, where that is not available, /proc/mounts.
+ *
+ * The table is read through a FileChannel into a buffer which is reused between reads, and parsed in place
+ * without splitting lines or fields with regular expressions. Each mount is classified by its filesystem type
+ * and the major:minor number of its device, so removable volumes can be told apart from internal partitions,
+ * emulated storage and virtual filesystems.
+ */
+public class DiagnosticMountTable {
+
+    /*************
+     * Constants *
+     *************/
+
+    public static final String TAG = "DiagnosticMountTable";
+
+    public static final String PROC_SELF_MOUNTINFO = "/proc/self/mountinfo";
+    public static final String PROC_MOUNTS = "/proc/mounts";
+
+    /**
+     * SD card, i.e. a volume mounted by vold from an MMC block device
+     */
+    public static final String VOLUME_SD_CARD = "sdcard";
+    /**
+     * USB mass storage, i.e. a volume mounted by vold from a SCSI disk
+     */
+    public static final String VOLUME_USB = "usb";
+    /**
+     * Removable volume mounted by vold on any other block device
+     */
+    public static final String VOLUME_REMOVABLE = "removable";
+    /**
+     * Emulated storage, e.g. the FUSE or sdcardfs view of /data/media
+     */
+    public static final String VOLUME_EMULATED = "emulated";
+    /**
+     * Other filesystem on a block device, e.g. /system, /data or a vfat firmware partition
+     */
+    public static final String VOLUME_INTERNAL = "internal";
+    /**
+     * Filesystem without a block device, e.g. proc or tmpfs
+     */
+    public static final String VOLUME_VIRTUAL = "virtual";
+
+    /**
+     * Block device majors: MMC, and SCSI disks (which include USB mass storage)
+     */
+    protected static final int MMC_BLOCK_MAJOR = 179;
+    protected static final int[] SCSI_DISK_MAJORS = {8, 65, 66, 67, 68, 69, 70, 71, 128, 129, 130, 131, 132, 133, 134, 135};
+
+    protected static final String[] REMOVABLE_FILESYSTEMS = {"vfat", "exfat", "sdfat", "texfat", "msdos", "ntfs", "tntfs", "ufsd"};
+    protected static final String[] EMULATED_FILESYSTEMS = {"fuse", "sdcardfs", "esdfs"};
+
+    /**
+     * Device number in a vold source, e.g. /dev/block/vold/public:179,65 or /dev/block/vold/179:65
+     */
+    protected static final Pattern VOLD_DEVICE = Pattern.compile("/dev/block/vold/(?:[a-z]+:)?(\\d+)[:,](\\d+)");
+
+    /**
+     * Mount point of a removable volume as mounted by vold, which apps see under /storage
+     */
+    protected static final String MEDIA_RW_PREFIX = "/mnt/media_rw/";
+    protected static final String STORAGE_PREFIX = "/storage/";
+
+    /**
+     * Source of a volume mounted by vold
+     */
+    protected static final String VOLD_SOURCE_PREFIX = "/dev/block/vold/";
+
+    protected static final int INITIAL_BUFFER_SIZE = 16 * 1024;
+
+    /**
+     * An entry of the mount table.
+     */
+    public static final class Mount {
+        /**
+         * Device major and minor numbers, or -1 if unknown
+         */
+        public final int major;
+        public final int minor;
+        public final String source;
+        public final String mountPoint;
+        public final String fsType;
+        public final boolean readOnly;
+        /**
+         * One of the VOLUME_ constants
+         */
+        public final String volumeType;
+
+        Mount(int major, int minor, String source, String mountPoint, String fsType, boolean readOnly) {
+            if (major < 0) {
+                Matcher vold = VOLD_DEVICE.matcher(source);
+                if (vold.find()) {
+                    major = Integer.parseInt(vold.group(1));
+                    minor = Integer.parseInt(vold.group(2));
+                }
+            }
+            this.major = major;
+            this.minor = minor;
+            this.source = source;
+            this.mountPoint = mountPoint;
+            this.fsType = fsType;
+            this.readOnly = readOnly;
+            this.volumeType = classify(major, source, mountPoint, fsType);
+        }
+
+        /**
+         * Returns true if the filesystem is on a block device, i.e. it is neither virtual (e.g. rootfs, tmpfs) nor emulated.
+         */
+        public boolean isBlockDevice() {
+            return !VOLUME_VIRTUAL.equals(volumeType) && !VOLUME_EMULATED.equals(volumeType);
+        }
+
+        /**
+         * Returns true for SD cards, USB mass storage and other removable volumes.
+         */
+        public boolean isRemovable() {
+            return VOLUME_SD_CARD.equals(volumeType) || VOLUME_USB.equals(volumeType) || VOLUME_REMOVABLE.equals(volumeType);
+        }
+
+        /**
+         * Returns the path apps access the volume at: a volume mounted by vold under /mnt/media_rw is exposed under /storage.
+         */
+        public String getStoragePath() {
+            if (mountPoint.startsWith(MEDIA_RW_PREFIX)) {
+                return STORAGE_PREFIX + mountPoint.substring(MEDIA_RW_PREFIX.length());
+            }
+            return mountPoint;
+        }
+
+        @Override
+        public String toString() {
+            return source + " " + mountPoint + " " + fsType + " " + (readOnly ? "ro" : "rw") + " " + major + ":" + minor + " " + volumeType;
+        }
+    }
+
+    /*************
+     * Variables *
+     *************/
+
+    private final String mountInfoPath;
+    private final String mountsPath;
+
+    /**
+     * Reused between reads; grown if the table does not fit. Guarded by this.
+     */
+    private ByteBuffer buffer = ByteBuffer.allocate(INITIAL_BUFFER_SIZE);
+
+    /*************
+     * Public API
+     ************/
+
+    public DiagnosticMountTable() {
+        this(PROC_SELF_MOUNTINFO, PROC_MOUNTS);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param mountInfoPath Path of the table in mountinfo format
+     * @param mountsPath    Path of the table in mounts format, read if the mountinfo table cannot be
+     */
+    public DiagnosticMountTable(String mountInfoPath, String mountsPath) {
+        this.mountInfoPath = mountInfoPath;
+        this.mountsPath = mountsPath;
+    }
+
+    /**
+     * Reads and parses the mount table.
+     *
+     * @return The mounts, in the order of the table
+     * @throws IOException if neither table can be read
+     */
+    public synchronized List<Mount> read() throws IOException {
+        try {
+            int length = readFully(mountInfoPath);
+            return Collections.unmodifiableList(parse(buffer.array(), length, true));
+        } catch (IOException e) {
+            int length = readFully(mountsPath);
+            return Collections.unmodifiableList(parse(buffer.array(), length, false));
+        }
+    }
+
+    /**
+     * Returns the mounts of removable volumes.
+     */
+    public static List<Mount> getRemovable(List<Mount> mounts) {
+        List<Mount> removable = new ArrayList<Mount>();
+        for (Mount mount : mounts) {
+            if (mount.isRemovable()) {
+                removable.add(mount);
+            }
+        }
+        return removable;
+    }
+
+    /************
+     * Internals
+     ***********/
+
+    /**
+     * Reads a file into the buffer, growing it as needed (procfs files do not report their size).
+     * Must be called while holding the lock.
+     *
+     * @return Number of bytes read
+     */
+    private int readFully(String path) throws IOException {
+        FileInputStream in = new FileInputStream(path);
+        try {
+            FileChannel channel = in.getChannel();
+            buffer.clear();
+            while (channel.read(buffer) != -1) {
+                if (!buffer.hasRemaining()) {
+                    ByteBuffer grown = ByteBuffer.allocate(buffer.capacity() * 2);
+                    buffer.flip();
+                    grown.put(buffer);
+                    buffer = grown;
+                }
+            }
+            return buffer.position();
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * Parses a mount table.
+     *
+     * mountinfo lines are: id parent major:minor root mountPoint options [optional fields...] - fsType source superOptions
+     * mounts lines are:    source mountPoint fsType options dump pass
+     */
+    protected static List<Mount> parse(byte[] bytes, int length, boolean mountInfo) {
+        List<Mount> mounts = new ArrayList<Mount>();
+        int[] starts = new int[16];
+        int[] ends = new int[16];
+        int lineStart = 0;
+        while (lineStart < length) {
+            int lineEnd = lineStart;
+            while (lineEnd < length && bytes[lineEnd] != '\n') lineEnd++;
+
+            int count = 0;
+            int i = lineStart;
+            while (i < lineEnd && count < starts.length) {
+                while (i < lineEnd && bytes[i] == ' ') i++;
+                if (i == lineEnd) break;
+                starts[count] = i;
+                while (i < lineEnd && bytes[i] != ' ') i++;
+                ends[count++] = i;
+            }
+
+            Mount mount = mountInfo ? parseMountInfoLine(bytes, starts, ends, count) : parseMountsLine(bytes, starts, ends, count);
+            if (mount != null) {
+                mounts.add(mount);
+            }
+            lineStart = lineEnd + 1;
+        }
+        return mounts;
+    }
+
+    private static Mount parseMountInfoLine(byte[] bytes, int[] starts, int[] ends, int count) {
+        if (count < 9) {
+            return null;
+        }
+        int separator = 6;
+        while (separator < count && !(ends[separator] - starts[separator] == 1 && bytes[starts[separator]] == '-')) separator++;
+        if (separator + 2 >= count) {
+            return null;
+        }
+
+        int colon = starts[2];
+        while (colon < ends[2] && bytes[colon] != ':') colon++;
+        int major = parseInt(bytes, starts[2], colon);
+        int minor = parseInt(bytes, colon + 1, ends[2]);
+
+        return new Mount(major, minor,
+                field(bytes, starts[separator + 2], ends[separator + 2]),
+                field(bytes, starts[4], ends[4]),
+                field(bytes, starts[separator + 1], ends[separator + 1]),
+                isReadOnly(bytes, starts[5], ends[5]));
+    }
+
+    private static Mount parseMountsLine(byte[] bytes, int[] starts, int[] ends, int count) {
+        if (count < 4) {
+            return null;
+        }
+        return new Mount(-1, -1,
+                field(bytes, starts[0], ends[0]),
+                field(bytes, starts[1], ends[1]),
+                field(bytes, starts[2], ends[2]),
+                isReadOnly(bytes, starts[3], ends[3]));
+    }
+
+    /**
+     * Returns true if the first mount option is "ro".
+     */
+    private static boolean isReadOnly(byte[] bytes, int start, int end) {
+        return end - start >= 2 && bytes[start] == 'r' && bytes[start + 1] == 'o' && (end - start == 2 || bytes[start + 2] == ',');
+    }
+
+    private static int parseInt(byte[] bytes, int start, int end) {
+        if (start >= end) {
+            return -1;
+        }
+        int value = 0;
+        for (int i = start; i < end; i++) {
+            int digit = bytes[i] - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    /**
+     * Decodes a field, which escapes space, tab, newline and backslash as \ooo octal sequences.
+     */
+    private static String field(byte[] bytes, int start, int end) {
+        int escape = start;
+        while (escape < end && bytes[escape] != '\\') escape++;
+        if (escape == end) {
+            return new String(bytes, start, end - start);
+        }
+        byte[] decoded = new byte[end - start];
+        int length = 0;
+        for (int i = start; i < end; i++) {
+            if (bytes[i] == '\\' && i + 3 < end && isOctal(bytes[i + 1]) && isOctal(bytes[i + 2]) && isOctal(bytes[i + 3])) {
+                decoded[length++] = (byte) (((bytes[i + 1] - '0') << 6) | ((bytes[i + 2] - '0') << 3) | (bytes[i + 3] - '0'));
+                i += 3;
+            } else {
+                decoded[length++] = bytes[i];
+            }
+        }
+        return new String(decoded, 0, length);
+    }
+
+    private static boolean isOctal(byte b) {
+        return b >= '0' && b <= '7';
+    }
+
+    /**
+     * Classifies a mount. Internal eMMC and UFS storage share the MMC and SCSI disk majors with SD cards and USB drives
+     * and carry vfat firmware partitions (e.g. /firmware, /dsp), so only volumes mounted by vold count as removable.
+     */
+    private static String classify(int major, String source, String mountPoint, String fsType) {
+        if (contains(EMULATED_FILESYSTEMS, fsType)) {
+            return VOLUME_EMULATED;
+        }
+        boolean blockDevice = major > 0 || (major < 0 && source.startsWith("/dev/"));
+        if (!blockDevice) {
+            return VOLUME_VIRTUAL;
+        }
+        if (!contains(REMOVABLE_FILESYSTEMS, fsType) || !isVoldVolume(source, mountPoint)) {
+            return VOLUME_INTERNAL;
+        }
+        if (major == MMC_BLOCK_MAJOR) {
+            return VOLUME_SD_CARD;
+        }
+        for (int scsiMajor : SCSI_DISK_MAJORS) {
+            if (major == scsiMajor) {
+                return VOLUME_USB;
+            }
+        }
+        return VOLUME_REMOVABLE;
+    }
+
+    private static boolean isVoldVolume(String source, String mountPoint) {
+        return source.startsWith(VOLD_SOURCE_PREFIX) || mountPoint.startsWith(MEDIA_RW_PREFIX) || mountPoint.startsWith(STORAGE_PREFIX);
+    }
+
+    private static boolean contains(String[] values, String value) {
+        for (String candidate : values) {
+            if (candidate.equals(value)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,114 @@
+/*
+       Licensed to the Apache Software Foundation (ASF) under one
+       or more contributor license agreements.  See the NOTICE file
+       distributed with this work for additional information
+       regarding copyright ownership.  The ASF licenses this file
+       to you under the Apache License, Version 2.0 (the
+       "License"); you may not use this file except in compliance
+       with the License.  You may obtain a copy of the License at
+
+         http://www.apache.org/licenses/LICENSE-2.0
+
+       Unless required by applicable law or agreed to in writing,
+       software distributed under the License is distributed on an
+       "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+       KIND, either express or implied.  See the License for the
+       specific language governing permissions and limitations
+       under the License.
+*/
+package cordova.plugins;
+
+/*
+ * Imports
+ */
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Runs independent tasks in parallel and collects their outcomes within a shared deadline.
+ * Used by the diagnostic snapshot and the root detector. Tasks which have not completed by the deadline are cancelled.
+ */
+public final class DiagnosticParallelTasks {
+
+    /**
+     * Outcome of a task: its result and duration if it completed, otherwise whether it timed out or the error it failed with.
+     */
+    public static final class Outcome<T> {
+        public final T result;
+        public final long durationNanos;
+        public final boolean timedOut;
+        /**
+         * Exception thrown by the task, or InterruptedException if the caller was interrupted while waiting for it
+         */
+        public final Throwable error;
+
+        Outcome(T result, long durationNanos, boolean timedOut, Throwable error) {
+            this.result = result;
+            this.durationNanos = durationNanos;
+            this.timedOut = timedOut;
+            this.error = error;
+        }
+
+        public boolean isCompleted() {
+            return !timedOut && error == null;
+        }
+    }
+
+    private DiagnosticParallelTasks() {}
+
+    /*************
+     * Public API
+     ************/
+
+    /**
+     * Runs the tasks on an executor and waits for them until the deadline.
+     *
+     * @param tasks         Tasks to run
+     * @param executor      Executor on which the tasks are run
+     * @param deadlineNanos Value of System.nanoTime() after which tasks still running are cancelled
+     * @return              The outcome of each task, in the order of the tasks
+     */
+    public static <T> List<Outcome<T>> runAll(List<? extends Callable<T>> tasks, ExecutorService executor, long deadlineNanos) {
+        List<Future<Outcome<T>>> futures = new ArrayList<Future<Outcome<T>>>(tasks.size());
+        for (final Callable<T> task : tasks) {
+            futures.add(executor.submit(new Callable<Outcome<T>>() {
+                @Override
+                public Outcome<T> call() throws Exception {
+                    long startedAt = System.nanoTime();
+                    T result = task.call();
+                    return new Outcome<T>(result, System.nanoTime() - startedAt, false, null);
+                }
+            }));
+        }
+
+        List<Outcome<T>> outcomes = new ArrayList<Outcome<T>>(futures.size());
+        for (Future<Outcome<T>> future : futures) {
+            try {
+                outcomes.add(future.get(Math.max(0, deadlineNanos - System.nanoTime()), TimeUnit.NANOSECONDS));
+            } catch (TimeoutException e) {
+                future.cancel(true);
+                outcomes.add(new Outcome<T>(null, 0, true, null));
+            } catch (ExecutionException e) {
+                outcomes.add(new Outcome<T>(null, 0, false, e.getCause() != null ? e.getCause() : e));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                future.cancel(true);
+                outcomes.add(new Outcome<T>(null, 0, false, e));
+            }
+        }
+        return outcomes;
+    }
+
+    /**
+     * Converts a duration in nanoseconds to milliseconds, rounded to 2 decimal places.
+     */
+    public static double toMillis(long nanos) {
+        return Math.round(nanos / 10000.0) / 100.0;
+    }
+}
@@ -0,0 +1,220 @@
+/*
+       Licensed to the Apache Software Foundation (ASF) under one
+       or more contributor license agreements.  See the NOTICE file
+       distributed with this work for additional information
+       regarding copyright ownership.  The ASF licenses this file
+       to you under the Apache License, Version 2.0 (the
+       "License"); you may not use this file except in compliance
+       with the License.  You may obtain a copy of the License at
+
+         http://www.apache.org/licenses/LICENSE-2.0
+
+       Unless required by applicable law or agreed to in writing,
+       software distributed under the License is distributed on an
+       "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+       KIND, either express or implied.  See the License for the
+       specific language governing permissions and limitations
+       under the License.
+*/
+package cordova.plugins;
+
+/*
+ * Imports
+ */
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.cordova.CallbackContext;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import android.os.SystemClock;
+import android.util.Log;
+
+/**
+ * Table of runtime permission requests awaiting a result, keyed by request ID.
+ *
+ * Requests are created on the bridge thread and completed on the UI thread, so the table is a concurrent map
+ * and request IDs are allocated from an atomic counter.
+ * Requests whose result never arrives (e.g. the activity was destroyed while the dialog was showing)
+ * are evicted once they are older than the timeout, and their callers receive an error.
+ * Requests held by the permission request queue are not evicted: the queue times out their dialog from when it was shown,
+ * whereas a request may have waited behind other dialogs for longer than the timeout before its own was shown.
+ */
+public class DiagnosticPendingRequests {
+
+    /**
+     * A pending permission request
+     */
+    public static final class PendingRequest {
+
+        public final int id;
+
+        /**
+         * Callback context to send the result to
+         */
+        public final CallbackContext context;
+
+        /**
+         * Value of SystemClock.elapsedRealtime() when the request was created
+         */
+        public final long createdAt;
+
+        /**
+         * Status code of each permission, indexed by DiagnosticPermission ordinal; -1 if the permission has no result
+         */
+        private final int[] statuses = new int[DiagnosticPermission.count()];
+
+        /**
+         * True while the request is held by the permission request queue
+         */
+        private volatile boolean queued = false;
+
+        PendingRequest(int id, CallbackContext context, long createdAt) {
+            this.id = id;
+            this.context = context;
+            this.createdAt = createdAt;
+            Arrays.fill(statuses, -1);
+        }
+
+        void setQueued(boolean queued) {
+            this.queued = queued;
+        }
+
+        public synchronized void setStatus(DiagnosticPermission permission, int status) {
+            statuses[permission.ordinal()] = status;
+        }
+
+        /**
+         * Returns the statuses as a JSON object of permission name to status name.
+         */
+        public synchronized JSONObject toJSON() throws JSONException {
+            JSONObject json = new JSONObject();
+            for (int i = 0; i < statuses.length; i++) {
+                if (statuses[i] >= 0) {
+                    json.put(DiagnosticPermission.get(i).name(), Diagnostic.STATUS_NAMES[statuses[i]]);
+                }
+            }
+            return json;
+        }
+    }
+
+    /*************
+     * Constants *
+     *************/
+
+    public static final String TAG = "DiagnosticPendingRequests";
+
+    /**
+     * Default age after which a pending request is evicted
+     */
+    public static final long DEFAULT_TIMEOUT_MS = 10 * 60 * 1000;
+
+    /**
+     * Error sent to the callback of an evicted request
+     */
+    public static final String TIMEOUT_ERROR = "Permission request timed out";
+
+    /*************
+     * Variables *
+     *************/
+
+    private final ConcurrentHashMap<Integer, PendingRequest> requests = new ConcurrentHashMap<Integer, PendingRequest>();
+
+    private final AtomicInteger nextId = new AtomicInteger();
+
+    private final long timeoutMs;
+
+    /**
+     * Request IDs which are never allocated by create(CallbackContext)
+     */
+    private final int[] reservedIds;
+
+    /*************
+     * Public API
+     ************/
+
+    /**
+     * Constructor.
+     *
+     * @param timeoutMs   Age in milliseconds after which a pending request is evicted.
+     * @param reservedIds Fixed request IDs used by callers of create(CallbackContext, int).
+     */
+    public DiagnosticPendingRequests(long timeoutMs, int... reservedIds) {
+        this.timeoutMs = timeoutMs;
+        this.reservedIds = reservedIds;
+    }
+
+    /**
+     * Creates a request with a newly allocated ID.
+     */
+    public PendingRequest create(CallbackContext context) {
+        evictStale();
+        while (true) {
+            int id = nextId.incrementAndGet() & Integer.MAX_VALUE;
+            if (id == 0 || isReserved(id)) continue;
+            PendingRequest request = new PendingRequest(id, context, SystemClock.elapsedRealtime());
+            if (requests.putIfAbsent(id, request) == null) {
+                return request;
+            }
+        }
+    }
+
+    /**
+     * Creates a request with a fixed ID, replacing any pending request with the same ID.
+     */
+    public PendingRequest create(CallbackContext context, int id) {
+        evictStale();
+        PendingRequest request = new PendingRequest(id, context, SystemClock.elapsedRealtime());
+        requests.put(id, request);
+        return request;
+    }
+
+    /**
+     * Returns the pending request with the given ID, or null if there is none.
+     */
+    public PendingRequest get(int id) {
+        return requests.get(id);
+    }
+
+    /**
+     * Removes and returns the pending request with the given ID, or null if there is none.
+     */
+    public PendingRequest remove(int id) {
+        return requests.remove(id);
+    }
+
+    public int size() {
+        return requests.size();
+    }
+
+    /**
+     * Removes requests older than the timeout which are not held by the permission request queue
+     * and sends an error to their callbacks, so the JS callers do not wait forever.
+     * @return the number of requests evicted
+     */
+    public int evictStale() {
+        long cutoff = SystemClock.elapsedRealtime() - timeoutMs;
+        int evicted = 0;
+        for (PendingRequest request : requests.values()) {
+            if (request.createdAt < cutoff && !request.queued && requests.remove(request.id, request)) {
+                evicted++;
+                Log.w(TAG, "Evicted stale permission request id=" + request.id);
+                request.context.error(TIMEOUT_ERROR);
+            }
+        }
+        return evicted;
+    }
+
+    /************
+     * Internals
+     ***********/
+
+    private boolean isReserved(int id) {
+        for (int reservedId : reservedIds) {
+            if (reservedId == id) return true;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,193 @@
+/*
+       Licensed to the Apache Software Foundation (ASF) under one
+       or more contributor license agreements.  See the NOTICE file
+       distributed with this work for additional information
+       regarding copyright ownership.  The ASF licenses this file
+       to you under the Apache License, Version 2.0 (the
+       "License"); you may not use this file except in compliance
+       with the License.  You may obtain a copy of the License at
+
+         http://www.apache.org/licenses/LICENSE-2.0
+
+       Unless required by applicable law or agreed to in writing,
+       software distributed under the License is distributed on an
+       "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+       KIND, either express or implied.  See the License for the
+       specific language governing permissions and limitations
+       under the License.
+*/
+package cordova.plugins;
+
+/*
+ * Imports
+ */
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * "Dangerous" permissions that need to be requested at run-time (Android 6.0/API 23 and above)
+ * See http://developer.android.com/guide/topics/security/permissions.html#perm-groups
+ *
+ * Permissions are identified internally by ordinal, which is used to index status arrays and bitsets.
+ * The ordinal of each permission is persisted (see DiagnosticPermissionStore)
+ * so new permissions must only ever be appended to the end of the list.
+ */
+public enum DiagnosticPermission {
+
+    // API 1-22
+    ACCESS_COARSE_LOCATION(1),
+    ACCESS_FINE_LOCATION(1),
+    ADD_VOICEMAIL(14),
+    BODY_SENSORS(20),
+    CALL_PHONE(1),
+    CAMERA(1),
+    GET_ACCOUNTS(1),
+    PROCESS_OUTGOING_CALLS(1),
+    READ_CALENDAR(1),
+    READ_CALL_LOG(16),
+    READ_CONTACTS(1),
+    READ_EXTERNAL_STORAGE(16),
+    READ_PHONE_STATE(1),
+    READ_SMS(1),
+    RECEIVE_MMS(1),
+    RECEIVE_SMS(1),
+    RECEIVE_WAP_PUSH(1),
+    RECORD_AUDIO(1),
+    SEND_SMS(1),
+    USE_SIP(9),
+    WRITE_CALENDAR(1),
+    WRITE_CALL_LOG(16),
+    WRITE_CONTACTS(1),
+    WRITE_EXTERNAL_STORAGE(1),
+
+    // API 26+
+    ANSWER_PHONE_CALLS(26),
+    READ_PHONE_NUMBERS(26),
+
+    // API 28+
+    ACCEPT_HANDOVER(28),
+
+    // API 29+
+    ACCESS_BACKGROUND_LOCATION(29, "ACCESS_COARSE_LOCATION"),
+    ACCESS_MEDIA_LOCATION(29),
+    ACTIVITY_RECOGNITION(29, "BODY_SENSORS"),
+
+    // API 31+
+    BLUETOOTH_ADVERTISE(31),
+    BLUETOOTH_CONNECT(31),
+    BLUETOOTH_SCAN(31),
+    UWB_RANGING(31),
+
+    // API 33+
+    BODY_SENSORS_BACKGROUND(33),
+    NEARBY_WIFI_DEVICES(33),
+    POST_NOTIFICATIONS(33),
+    READ_MEDIA_AUDIO(33),
+    READ_MEDIA_IMAGES(33),
+    READ_MEDIA_VIDEO(33);
+
+    /**
+     * Prefix of the Android name of each permission
+     */
+    public static final String ANDROID_PERMISSION_PREFIX = "android.permission.";
+
+    private static final DiagnosticPermission[] permissions = values();
+
+    private static final Map<String, DiagnosticPermission> permissionsByName = new HashMap<String, DiagnosticPermission>();
+    private static final Map<String, DiagnosticPermission> permissionsByAndroidName = new HashMap<String, DiagnosticPermission>();
+    static {
+        for (DiagnosticPermission permission : permissions) {
+            permissionsByName.put(permission.name(), permission);
+            permissionsByAndroidName.put(permission.androidName, permission);
+        }
+        for (DiagnosticPermission permission : permissions) {
+            if (permission.fallbackName != null) {
+                permission.fallback = permissionsByName.get(permission.fallbackName);
+            }
+        }
+    }
+
+    /**
+     * Android name of the permission, e.g. "android.permission.CAMERA"
+     */
+    public final String androidName;
+
+    /**
+     * API level at which the permission was added
+     */
+    public final int minApiLevel;
+
+    private final String fallbackName;
+
+    /**
+     * Permission which is checked/requested in place of this one below minApiLevel, or null if there is none
+     */
+    private DiagnosticPermission fallback;
+
+    DiagnosticPermission(int minApiLevel) {
+        this(minApiLevel, null);
+    }
+
+    DiagnosticPermission(int minApiLevel, String fallbackName) {
+        this.androidName = ANDROID_PERMISSION_PREFIX + name();
+        this.minApiLevel = minApiLevel;
+        this.fallbackName = fallbackName;
+    }
+
+    public DiagnosticPermission getFallback() {
+        return fallback;
+    }
+
+    /**
+     * Returns the permission to check/request in place of this one on the given API level:
+     * its fallback if the permission is not supported and has a fallback, otherwise the permission itself.
+     * e.g. ACCESS_BACKGROUND_LOCATION resolves to ACCESS_COARSE_LOCATION below API 29.
+     */
+    public DiagnosticPermission resolve(int apiLevel) {
+        return (fallback != null && apiLevel < minApiLevel) ? fallback : this;
+    }
+
+    /**
+     * Returns the number of permissions.
+     */
+    public static int count() {
+        return permissions.length;
+    }
+
+    /**
+     * Returns the permission with the given ordinal.
+     */
+    public static DiagnosticPermission get(int ordinal) {
+        return permissions[ordinal];
+    }
+
+    /**
+     * Returns the permission with the given short name (e.g. "CAMERA"), or null if there is none.
+     */
+    public static DiagnosticPermission forName(String name) {
+        return name == null ? null : permissionsByName.get(name);
+    }
+
+    /**
+     * Returns the permissions with the given short names.
+     *
+     * @throws IllegalArgumentException if a name is not a valid permission
+     */
+    public static DiagnosticPermission[] forNames(String[] names) {
+        DiagnosticPermission[] result = new DiagnosticPermission[names.length];
+        for (int i = 0; i < names.length; i++) {
+            result[i] = forName(names[i]);
+            if (result[i] == null) {
+                throw new IllegalArgumentException("Permission name '" + names[i] + "' is not a valid permission");
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the permission with the given Android name (e.g. "android.permission.CAMERA"), or null if there is none.
+     */
+    public static DiagnosticPermission forAndroidName(String androidName) {
+        return androidName == null ? null : permissionsByAndroidName.get(androidName);
+    }
+}
@@ -0,0 +1,131 @@
+/*
+       Licensed to the Apache Software Foundation (ASF) under one
+       or more contributor license agreements.  See the NOTICE file
+       distributed with this work for additional information
+       regarding copyright ownership.  The ASF licenses this file
+       to you under the Apache License, Version 2.0 (the
+       "License"); you may not use this file except in compliance
+       with the License.  You may obtain a copy of the License at
+
+         http://www.apache.org/licenses/LICENSE-2.0
+
+       Unless required by applicable law or agreed to in writing,
+       software distributed under the License is distributed on an
+       "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+       KIND, either express or implied.  See the License for the
+       specific language governing permissions and limitations
+       under the License.
+*/
+package cordova.plugins;
+
+/*
+ * Imports
+ */
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/**
+ * In-memory snapshot of runtime permission authorisation statuses.
+ *
+ * The authorisation status of a permission can only change as the result of a permission request
+ * or while the app is in the background (e.g. the user changes it in the Settings app),
+ * so the plugin invalidates the snapshot on those events and otherwise serves statuses from memory.
+ *
+ * Statuses are held as status codes in a slot per DiagnosticPermission ordinal.
+ * Each slot is tagged with the generation in which it was resolved: a slot from an older generation
+ * (including one resolved concurrently with an invalidation) is ignored.
+ */
+public class DiagnosticPermissionCache {
+
+    /**
+     * Returned by get() if the status needs to be resolved
+     */
+    public static final int MISS = -1;
+
+    /*************
+     * Variables *
+     *************/
+
+    /**
+     * Per-permission slot: generation in the upper 32 bits, status code + 1 in the lower 32 bits (0 if empty)
+     */
+    private final AtomicLongArray slots = new AtomicLongArray(DiagnosticPermission.count());
+
+    private final AtomicInteger generation = new AtomicInteger();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    /*************
+     * Public API
+     ************/
+
+    /**
+     * Returns the current generation, to be passed to put() once a status has been resolved.
+     */
+    public int getGeneration() {
+        return generation.get();
+    }
+
+    /**
+     * Returns the cached status code of a permission, or MISS if it needs to be resolved.
+     */
+    public int get(DiagnosticPermission permission) {
+        long slot = slots.get(permission.ordinal());
+        if (slot != 0 && (int) (slot >>> 32) == generation.get()) {
+            hits.incrementAndGet();
+            return (int) slot - 1;
+        }
+        misses.incrementAndGet();
+        return MISS;
+    }
+
+    /**
+     * Stores a resolved status code.
+     *
+     * @param permission         Permission the status was resolved for
+     * @param status             Resolved status code
+     * @param resolvedGeneration Value of getGeneration() read before the status was resolved
+     */
+    public void put(DiagnosticPermission permission, int status, int resolvedGeneration) {
+        if (resolvedGeneration == generation.get()) {
+            slots.set(permission.ordinal(), ((long) resolvedGeneration << 32) | ((status + 1) & 0xFFFFFFFFL));
+        }
+    }
+
+    /**
+     * Discards all cached statuses.
+     */
+    public void invalidate() {
+        generation.incrementAndGet();
+        invalidations.incrementAndGet();
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public JSONObject getStats() throws JSONException {
+        int current = generation.get();
+        int size = 0;
+        for (int i = 0; i < slots.length(); i++) {
+            long slot = slots.get(i);
+            if (slot != 0 && (int) (slot >>> 32) == current) size++;
+        }
+        JSONObject stats = new JSONObject();
+        stats.put("hits", hits.get());
+        stats.put("misses", misses.get());
+        stats.put("invalidations", invalidations.get());
+        stats.put("size", size);
+        return stats;
+    }
+}
@@ -0,0 +1,352 @@
+/*
+       Licensed to the Apache Software Foundation (ASF) under one
+       or more contributor license agreements.  See the NOTICE file
+       distributed with this work for additional information
+       regarding copyright ownership.  The ASF licenses this file
+       to you under the Apache License, Version 2.0 (the
+       "License"); you may not use this file except in compliance
+       with the License.  You may obtain a copy of the License at
+
+         http://www.apache.org/licenses/LICENSE-2.0
+
+       Unless required by applicable law or agreed to in writing,
+       software distributed under the License is distributed on an
+       "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+       KIND, either express or implied.  See the License for the
+       specific language governing permissions and limitations
+       under the License.
+*/
+package cordova.plugins;
+
+/*
+ * Imports
+ */
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.util.Log;
+
+/**
+ * Queue of runtime permission requests awaiting the system permission dialog.
+ *
+ * Only one permission dialog can be shown at a time, so requests from the JS API and from the modules
+ * (e.g. requestLocationAuthorization() and requestBluetoothAuthorization() at app startup) are queued here.
+ * Requests which arrive within the merge window of each other are merged into a single dialog for the union of their permissions;
+ * requests which arrive while a dialog is showing are held until it has been dismissed,
+ * unless the dialog already covers all of their permissions, in which case they share its result.
+ * When the result arrives, each caller receives only the statuses of the permissions it requested.
+ *
+ * Requests which cannot be merged (background location on Android 11+, which the system only grants when requested on its own)
+ * are shown in a dialog of their own, in order.
+ */
+public class DiagnosticPermissionRequestQueue {
+
+    /**
+     * A caller's permission request
+     */
+    public static final class Member {
+
+        public final DiagnosticPendingRequests.PendingRequest request;
+
+        /**
+         * Permissions requested by the caller
+         */
+        public final DiagnosticPermission[] permissions;
+
+        Member(DiagnosticPendingRequests.PendingRequest request, DiagnosticPermission[] permissions) {
+            this.request = request;
+            this.permissions = permissions;
+        }
+    }
+
+    /**
+     * Callers whose requests are shown in the same permission dialog
+     */
+    public static final class Batch {
+
+        /**
+         * Request code passed to requestPermissions(): the request ID of the first member
+         */
+        public final int requestCode;
+
+        public final boolean exclusive;
+
+        private final List<Member> members = new ArrayList<Member>();
+        private final boolean[] permissions = new boolean[DiagnosticPermission.count()];
+        private int permissionCount = 0;
+        private long launchedAt = 0;
+
+        Batch(int requestCode, boolean exclusive) {
+            this.requestCode = requestCode;
+            this.exclusive = exclusive;
+        }
+
+        void add(Member member) {
+            members.add(member);
+            for (DiagnosticPermission permission : member.permissions) {
+                if (!permissions[permission.ordinal()]) {
+                    permissions[permission.ordinal()] = true;
+                    permissionCount++;
+                }
+            }
+        }
+
+        boolean covers(DiagnosticPermission[] requested) {
+            for (DiagnosticPermission permission : requested) {
+                if (!permissions[permission.ordinal()]) return false;
+            }
+            return true;
+        }
+
+        public List<Member> getMembers() {
+            return members;
+        }
+
+        /**
+         * Returns the Android names of the union of the members' permissions.
+         */
+        public String[] getAndroidPermissions() {
+            String[] androidPermissions = new String[permissionCount];
+            for (int i = 0, j = 0; j < permissionCount; i++) {
+                if (permissions[i]) {
+                    androidPermissions[j++] = DiagnosticPermission.get(i).androidName;
+                }
+            }
+            return androidPermissions;
+        }
+    }
+
+    /*************
+     * Constants *
+     *************/
+
+    public static final String TAG = "DiagnosticPermissionRequestQueue";
+
+    /**
+     * Default time for which a request waits for others to merge with before its dialog is shown
+     */
+    public static final long DEFAULT_MERGE_WINDOW_MS = 50;
+
+    /**
+     * Age after which a dialog whose result has not arrived (e.g. the activity was destroyed) no longer blocks the queue
+     */
+    public static final long DIALOG_TIMEOUT_MS = DiagnosticPendingRequests.DEFAULT_TIMEOUT_MS;
+
+    /*************
+     * Variables *
+     *************/
+
+    private final Diagnostic diagnostic;
+    private final Handler handler;
+    private final long mergeWindowMs;
+
+    /**
+     * Batches waiting to be shown, in order
+     */
+    private final ArrayDeque<Batch> waiting = new ArrayDeque<Batch>();
+
+    /**
+     * Batch whose dialog is showing, or null
+     */
+    private Batch active = null;
+
+    private long merged = 0;
+
+    private final Runnable launchTask = new Runnable() {
+        @Override
+        public void run() {
+            launchNext();
+        }
+    };
+
+    /*************
+     * Public API
+     ************/
+
+    public DiagnosticPermissionRequestQueue(Diagnostic diagnostic) {
+        this(diagnostic, new Handler(Looper.getMainLooper()), DEFAULT_MERGE_WINDOW_MS);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param diagnostic    Core Diagnostic plugin instance which shows the dialogs.
+     * @param handler       Handler on which dialogs are launched.
+     * @param mergeWindowMs Time for which a request waits for others to merge with.
+     */
+    public DiagnosticPermissionRequestQueue(Diagnostic diagnostic, Handler handler, long mergeWindowMs) {
+        this.diagnostic = diagnostic;
+        this.handler = handler;
+        this.mergeWindowMs = mergeWindowMs;
+    }
+
+    /**
+     * Queues a request for the given permissions, whose result is delivered to the pending request once the user has responded.
+     *
+     * @param request     Pending request of the caller
+     * @param permissions Permissions to request, already resolved for this version of Android
+     */
+    public void submit(DiagnosticPendingRequests.PendingRequest request, DiagnosticPermission[] permissions) {
+        Member member = new Member(request, permissions);
+        boolean exclusive = isExclusive(permissions);
+        boolean schedule = false;
+        boolean launch;
+        Batch expired;
+        request.setQueued(true);
+        synchronized (this) {
+            expired = expireActive();
+            if (!exclusive && active != null && !active.exclusive && active.covers(permissions)) {
+                Log.d(TAG, "Request id=" + request.id + " shares the result of the showing dialog id=" + active.requestCode);
+                active.members.add(member);
+                merged++;
+                return;
+            }
+            Batch target = waiting.peekLast();
+            if (!exclusive && target != null && !target.exclusive) {
+                Log.d(TAG, "Merging request id=" + request.id + " into request id=" + target.requestCode);
+                merged++;
+            } else {
+                target = new Batch(request.id, exclusive);
+                waiting.add(target);
+                schedule = waiting.size() == 1 && active == null;
+            }
+            target.add(member);
+            // Batches which were waiting behind the expired dialog have no launch scheduled
+            launch = expired != null && !schedule && active == null && !waiting.isEmpty();
+        }
+        failExpired(expired);
+        if (launch) {
+            handler.post(launchTask);
+        } else if (schedule) {
+            handler.postDelayed(launchTask, mergeWindowMs);
+        }
+    }
+
+    /**
+     * Removes and returns the batch whose dialog was shown with the given request code, then schedules the next dialog.
+     *
+     * @return the batch or null if there is no such batch
+     */
+    public Batch complete(int requestCode) {
+        Batch batch = null;
+        boolean schedule;
+        synchronized (this) {
+            if (active != null && active.requestCode == requestCode) {
+                batch = active;
+                active = null;
+            }
+            schedule = active == null && !waiting.isEmpty();
+        }
+        if (schedule) {
+            handler.post(launchTask);
+        }
+        return batch;
+    }
+
+    /**
+     * Discards all queued requests without responding to them, leaving their pending requests to be evicted.
+     * Called when the webview is reset, since the JS callbacks no longer exist.
+     */
+    public synchronized void clear() {
+        for (Batch batch : waiting) {
+            release(batch);
+        }
+        if (active != null) {
+            release(active);
+        }
+        waiting.clear();
+        active = null;
+    }
+
+    public synchronized int size() {
+        return waiting.size() + (active != null ? 1 : 0);
+    }
+
+    /**
+     * Returns the number of requests which have been merged into the dialog of another request.
+     */
+    public synchronized long getMerged() {
+        return merged;
+    }
+
+    /************
+     * Internals
+     ***********/
+
+    /**
+     * Shows the dialog of the next waiting batch if no dialog is showing.
+     * A dialog which has been shown is checked again once it is due to time out, so the batches waiting behind it
+     * are launched even if no further requests are submitted.
+     */
+    protected void launchNext() {
+        Batch batch;
+        Batch expired;
+        synchronized (this) {
+            expired = expireActive();
+            batch = active == null ? waiting.poll() : null;
+            if (batch != null) {
+                active = batch;
+                batch.launchedAt = SystemClock.elapsedRealtime();
+            }
+        }
+        failExpired(expired);
+        if (batch == null) return;
+        try {
+            Log.v(TAG, "Requesting permissions for id=" + batch.requestCode + " (" + batch.members.size() + " callers)");
+            diagnostic.requestPermissions(diagnostic, batch.requestCode, batch.getAndroidPermissions());
+            handler.postDelayed(launchTask, DIALOG_TIMEOUT_MS + 1);
+        } catch (Exception e) {
+            complete(batch.requestCode);
+            for (Member member : batch.members) {
+                diagnostic.handleError("Error requesting permissions: " + e.getMessage(), member.request.id);
+            }
+        }
+    }
+
+    /**
+     * Releases the showing dialog if its result is overdue. Must be called while holding the lock.
+     *
+     * @return the released batch, whose members must be passed to failExpired() once the lock is released, or null
+     */
+    private Batch expireActive() {
+        if (active != null && SystemClock.elapsedRealtime() - active.launchedAt > DIALOG_TIMEOUT_MS) {
+            Log.w(TAG, "Permission dialog id=" + active.requestCode + " timed out");
+            Batch expired = active;
+            active = null;
+            return expired;
+        }
+        return null;
+    }
+
+    /**
+     * Sends an error to each caller of a batch whose dialog timed out, completing their pending requests.
+     */
+    private void failExpired(Batch expired) {
+        if (expired == null) return;
+        for (Member member : expired.members) {
+            diagnostic.handleError(DiagnosticPendingRequests.TIMEOUT_ERROR, member.request.id);
+        }
+    }
+
+    private static void release(Batch batch) {
+        for (Member member : batch.members) {
+            member.request.setQueued(false);
+        }
+    }
+
+    /**
+     * Background location must be requested on its own on Android 11+.
+     */
+    private static boolean isExclusive(DiagnosticPermission[] permissions) {
+        if (Build.VERSION.SDK_INT < 30) return false;
+        for (DiagnosticPermission permission : permissions) {
+            if (permission == DiagnosticPermission.ACCESS_BACKGROUND_LOCATION) return true;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,223 @@
+/*
+       Licensed to the Apache Software Foundation (ASF) under one
+       or more contributor license agreements.  See the NOTICE file
+       distributed with this work for additional information
+       regarding copyright ownership.  The ASF licenses this file
+       to you under the Apache License, Version 2.0 (the
+       "License"); you may not use this file except in compliance
+       with the License.  You may obtain a copy of the License at
+
+         http://www.apache.org/licenses/LICENSE-2.0
+
+       Unless required by applicable law or agreed to in writing,
+       software distributed under the License is distributed on an
+       "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+       KIND, either express or implied.  See the License for the
+       specific language governing permissions and limitations
+       under the License.
+*/
+package cordova.plugins;
+
+/*
+ * Imports
+ */
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.util.Log;
+
+/**
+ * Persistent record of which runtime permissions have been requested by the app,
+ * used to distinguish STATUS_NOT_REQUESTED from STATUS_DENIED_ALWAYS.
+ *
+ * Flags are held in memory as a bitset indexed by DiagnosticPermission ordinal and persisted as one long per 64 permissions.
+ * The store is loaded on a background thread on startup and written with a single asynchronous apply() per permission request.
+ * On first load, flags recorded by previous versions of the plugin in the "Diagnostic" preferences file are migrated.
+ */
+public class DiagnosticPermissionStore {
+
+    /*************
+     * Constants *
+     *************/
+
+    public static final String TAG = "DiagnosticPermissionStore";
+
+    /**
+     * Name of the preferences file the store is persisted in
+     */
+    protected static final String PREFS_NAME = "DiagnosticPermissionStore";
+
+    /**
+     * Name of the preferences file used by previous versions of the plugin, keyed by permission name
+     */
+    protected static final String LEGACY_PREFS_NAME = Diagnostic.TAG;
+
+    protected static final String KEY_VERSION = "version";
+    protected static final String KEY_REQUESTED_PREFIX = "requested.";
+
+    protected static final long VERSION = 1;
+
+    private static final int WORD_BITS = 64;
+
+    /*************
+     * Variables *
+     *************/
+
+    private final Context context;
+
+    private final long[] requested = new long[(DiagnosticPermission.count() + WORD_BITS - 1) / WORD_BITS];
+
+    private SharedPreferences prefs;
+
+    private final AtomicBoolean loadStarted = new AtomicBoolean(false);
+    private final CountDownLatch loaded = new CountDownLatch(1);
+
+    /*************
+     * Public API
+     ************/
+
+    /**
+     * Constructor.
+     *
+     * @param context Application context used to open the preferences files.
+     */
+    public DiagnosticPermissionStore(Context context) {
+        this.context = context;
+    }
+
+    /**
+     * Loads the store on the given executor.
+     * If the executor rejects the task, the store is loaded on first access instead.
+     */
+    public void loadAsync(ExecutorService executor) {
+        if (!loadStarted.compareAndSet(false, true)) return;
+        try {
+            executor.execute(new Runnable() {
+                public void run() {
+                    load();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            Log.w(TAG, "Unable to load permission store in background: " + e.getMessage());
+            loadStarted.set(false);
+        }
+    }
+
+    /**
+     * Returns true if the permission has previously been requested.
+     */
+    public boolean isRequested(DiagnosticPermission permission) {
+        awaitLoaded();
+        int ordinal = permission.ordinal();
+        synchronized (requested) {
+            return (requested[ordinal / WORD_BITS] & (1L << (ordinal % WORD_BITS))) != 0;
+        }
+    }
+
+    /**
+     * Flags the given permissions as requested and persists any change with a single asynchronous write.
+     * Null entries are ignored.
+     */
+    public void setRequested(DiagnosticPermission... permissions) {
+        awaitLoaded();
+        SharedPreferences.Editor editor = null;
+        synchronized (requested) {
+            for (DiagnosticPermission permission : permissions) {
+                if (permission == null) continue;
+                int ordinal = permission.ordinal();
+                int word = ordinal / WORD_BITS;
+                long bit = 1L << (ordinal % WORD_BITS);
+                if ((requested[word] & bit) != 0) continue;
+                requested[word] |= bit;
+                if (prefs == null) continue; // failed to load, so keep in memory only
+                if (editor == null) editor = prefs.edit();
+                editor.putLong(KEY_REQUESTED_PREFIX + word, requested[word]);
+            }
+        }
+        if (editor != null) {
+            editor.apply();
+        }
+    }
+
+    /************
+     * Internals
+     ***********/
+
+    /**
+     * Blocks until the store has been loaded, loading it on the calling thread if loading has not yet been started.
+     */
+    protected void awaitLoaded() {
+        if (loadStarted.compareAndSet(false, true)) {
+            load();
+            return;
+        }
+        boolean interrupted = false;
+        while (true) {
+            try {
+                loaded.await();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void load() {
+        try {
+            SharedPreferences prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+            synchronized (requested) {
+                this.prefs = prefs;
+                if (prefs.getLong(KEY_VERSION, 0) == VERSION) {
+                    for (int i = 0; i < requested.length; i++) {
+                        requested[i] = prefs.getLong(KEY_REQUESTED_PREFIX + i, 0);
+                    }
+                } else {
+                    migrate();
+                }
+            }
+        } catch (Exception e) {
+            Log.e(TAG, "Failed to load permission store: " + e.getMessage());
+        } finally {
+            loaded.countDown();
+        }
+    }
+
+    /**
+     * Imports the flags stored by previous versions of the plugin and removes the legacy preferences file contents.
+     */
+    private void migrate() {
+        SharedPreferences legacy = context.getSharedPreferences(LEGACY_PREFS_NAME, Context.MODE_PRIVATE);
+        Map<String, ?> legacyFlags = legacy.getAll();
+        int migrated = 0;
+        if (legacyFlags != null) {
+            for (Map.Entry<String, ?> entry : legacyFlags.entrySet()) {
+                DiagnosticPermission permission = DiagnosticPermission.forName(entry.getKey());
+                if (permission != null && Boolean.TRUE.equals(entry.getValue())) {
+                    int ordinal = permission.ordinal();
+                    requested[ordinal / WORD_BITS] |= 1L << (ordinal % WORD_BITS);
+                    migrated++;
+                }
+            }
+        }
+
+        SharedPreferences.Editor editor = prefs.edit();
+        for (int i = 0; i < requested.length; i++) {
+            editor.putLong(KEY_REQUESTED_PREFIX + i, requested[i]);
+        }
+        editor.putLong(KEY_VERSION, VERSION);
+        editor.apply();
+
+        if (legacyFlags != null && !legacyFlags.isEmpty()) {
+            legacy.edit().clear().apply();
+        }
+        Log.d(TAG, "Migrated " + migrated + " permission requested flags");
+    }
+}
@@ -0,0 +1,400 @@
+/*
+       Licensed to the Apache Software Foundation (ASF) under one
+       or more contributor license agreements.  See the NOTICE file
+       distributed with this work for additional information
+       regarding copyright ownership.  The ASF licenses this file
+       to you under the Apache License, Version 2.0 (the
+       "License"); you may not use this file except in compliance
+       with the License.  You may obtain a copy of the License at
+
+         http://www.apache.org/licenses/LICENSE-2.0
+
+       Unless required by applicable law or agreed to in writing,
+       software distributed under the License is distributed on an
+       "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+       KIND, either express or implied.  See the License for the
+       specific language governing permissions and limitations
+       under the License.
+*/
+package cordova.plugins;
+
+/*
+ * Imports
+ */
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.InputStreamReader;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import android.os.Build;
+
+/**
+ * Detects whether the device is rooted by running a set of probes in parallel under a latency budget.
+ *
+ * Each probe looks for one indicator of root access and has a weight; the score of a detection is the sum of
+ * the weights of the probes which found evidence, capped at MAX_SCORE, and the device is considered rooted
+ * if the score reaches ROOTED_SCORE. Probes which have not completed when the budget runs out are cancelled
+ * and reported as timed out, so a hung subprocess cannot hold up the caller.
+ */
+public class DiagnosticRootDetector {
+
+    /**
+     * Looks for one indicator of root access.
+     */
+    public interface Probe {
+        /**
+         * Runs the probe.
+         *
+         * @param deadlineNanos Value of System.nanoTime() by which the probe must give up.
+         * @return              Description of the evidence found, or null if there is none.
+         * @throws TimeoutException if the probe gave up at the deadline without a result.
+         */
+        String run(long deadlineNanos) throws Exception;
+    }
+
+    /*************
+     * Constants *
+     *************/
+
+    public static final String TAG = "DiagnosticRootDetector";
+
+    /**
+     * Default maximum time in ms to wait for all probes
+     */
+    public static final long DEFAULT_BUDGET_MS = 500;
+
+    public static final int MAX_SCORE = 100;
+
+    /**
+     * Score at or above which the device is considered rooted
+     */
+    public static final int ROOTED_SCORE = 50;
+
+    public static final String STATUS_COMPLETED = "completed";
+    public static final String STATUS_TIMEOUT = "timeout";
+    public static final String STATUS_ERROR = "error";
+
+    protected static final String[] SU_PATHS = {
+            "/system/app/Superuser.apk", "/sbin/su", "/system/bin/su", "/system/xbin/su", "/data/local/xbin/su",
+            "/data/local/bin/su", "/system/sd/xbin/su", "/system/bin/failsafe/su", "/data/local/su", "/su/bin/su"
+    };
+
+    protected static final String[] MAGISK_PATHS = {
+            "/sbin/.magisk", "/data/adb/magisk", "/data/adb/magisk.db", "/data/adb/modules", "/cache/.disable_magisk",
+            "/dev/.magisk.unblock", "/system/bin/magisk", "/sbin/magisk"
+    };
+
+    /**
+     * Interval in ms at which a probe subprocess is polled for completion
+     */
+    protected static final long PROCESS_POLL_INTERVAL_MS = 5;
+
+    private static final class Registration {
+        final String name;
+        final int weight;
+        final Probe probe;
+
+        Registration(String name, int weight, Probe probe) {
+            this.name = name;
+            this.weight = weight;
+            this.probe = probe;
+        }
+    }
+
+    /**
+     * Result of a detection.
+     */
+    public static final class Result {
+        private final int score;
+        private final boolean complete;
+        private final JSONObject details;
+
+        Result(int score, boolean complete, JSONObject details) {
+            this.score = score;
+            this.complete = complete;
+            this.details = details;
+        }
+
+        public boolean isRooted() {
+            return score >= ROOTED_SCORE;
+        }
+
+        public int getScore() {
+            return score;
+        }
+
+        /**
+         * Returns false if any probe timed out or failed.
+         */
+        public boolean isComplete() {
+            return complete;
+        }
+
+        /**
+         * Returns the result as {"rooted", "score", "complete", "budgetMs", "duration", "probes": {name: {...}}}.
+         */
+        public JSONObject toJSON() {
+            return details;
+        }
+    }
+
+    /*************
+     * Variables *
+     *************/
+
+    private final DiagnosticMountTable mountTable;
+
+    private final List<Registration> probes = new ArrayList<Registration>();
+
+    private static Method getSystemProperty;
+    private static boolean systemPropertyResolved = false;
+
+    /*************
+     * Public API
+     ************/
+
+    /**
+     * Constructor.
+     *
+     * @param mountTable Mount table read by the probe for a read-write /system mount.
+     */
+    public DiagnosticRootDetector(DiagnosticMountTable mountTable) {
+        this.mountTable = mountTable;
+    }
+
+    /**
+     * Registers a probe, replacing any existing probe of the same name.
+     *
+     * @param name      Name the probe is reported under
+     * @param weight    Score contributed by the probe if it finds evidence
+     * @param probe     The probe
+     */
+    public synchronized void register(String name, int weight, Probe probe) {
+        for (int i = 0; i < probes.size(); i++) {
+            if (probes.get(i).name.equals(name)) {
+                probes.set(i, new Registration(name, weight, probe));
+                return;
+            }
+        }
+        probes.add(new Registration(name, weight, probe));
+    }
+
+    /**
+     * Registers the built-in probes.
+     */
+    public void registerDefaultProbes() {
+        register("buildTags", 50, new Probe() {
+            @Override
+            public String run(long deadlineNanos) {
+                String buildTags = Build.TAGS;
+                return buildTags != null && buildTags.contains("test-keys") ? "Build.TAGS=" + buildTags : null;
+            }
+        });
+        register("suBinary", 100, new Probe() {
+            @Override
+            public String run(long deadlineNanos) throws TimeoutException {
+                return findExistingPath(SU_PATHS, deadlineNanos);
+            }
+        });
+        register("magisk", 100, new Probe() {
+            @Override
+            public String run(long deadlineNanos) throws TimeoutException {
+                return findExistingPath(MAGISK_PATHS, deadlineNanos);
+            }
+        });
+        register("systemProperties", 25, new Probe() {
+            @Override
+            public String run(long deadlineNanos) throws Exception {
+                List<String> evidence = new ArrayList<String>();
+                if ("1".equals(getSystemProperty("ro.debuggable"))) {
+                    evidence.add("ro.debuggable=1");
+                }
+                if ("0".equals(getSystemProperty("ro.secure"))) {
+                    evidence.add("ro.secure=0");
+                }
+                return evidence.isEmpty() ? null : join(evidence);
+            }
+        });
+        register("systemMountedReadWrite", 25, new Probe() {
+            @Override
+            public String run(long deadlineNanos) throws Exception {
+                return findReadWriteSystemMount();
+            }
+        });
+        register("whichSu", 100, new Probe() {
+            @Override
+            public String run(long deadlineNanos) throws Exception {
+                return runWhichSu(deadlineNanos);
+            }
+        });
+    }
+
+    /**
+     * Runs all registered probes in parallel.
+     *
+     * @param executor  Executor on which the probes are run.
+     * @param budgetMs  Maximum time to wait for all probes.
+     */
+    public Result detect(ExecutorService executor, long budgetMs) throws JSONException {
+        long startedAt = System.nanoTime();
+        final long deadline = startedAt + TimeUnit.MILLISECONDS.toNanos(budgetMs);
+
+        List<Registration> registrations;
+        synchronized (this) {
+            registrations = new ArrayList<Registration>(probes);
+        }
+
+        List<Callable<String>> tasks = new ArrayList<Callable<String>>();
+        for (final Registration registration : registrations) {
+            tasks.add(new Callable<String>() {
+                @Override
+                public String call() throws Exception {
+                    return registration.probe.run(deadline);
+                }
+            });
+        }
+
+        int score = 0;
+        boolean complete = true;
+        JSONObject results = new JSONObject();
+        List<DiagnosticParallelTasks.Outcome<String>> outcomes = DiagnosticParallelTasks.runAll(tasks, executor, deadline);
+        for (int i = 0; i < outcomes.size(); i++) {
+            Registration registration = registrations.get(i);
+            DiagnosticParallelTasks.Outcome<String> outcome = outcomes.get(i);
+            JSONObject result = new JSONObject();
+            result.put("weight", registration.weight);
+            if (outcome.isCompleted()) {
+                result.put("status", STATUS_COMPLETED);
+                result.put("detected", outcome.result != null);
+                if (outcome.result != null) {
+                    result.put("evidence", outcome.result);
+                    score += registration.weight;
+                }
+                result.put("duration", DiagnosticParallelTasks.toMillis(outcome.durationNanos));
+            } else if (outcome.timedOut || outcome.error instanceof TimeoutException || outcome.error instanceof InterruptedException) {
+                complete = false;
+                result.put("status", STATUS_TIMEOUT);
+                result.put("detected", false);
+            } else {
+                complete = false;
+                result.put("status", STATUS_ERROR);
+                result.put("detected", false);
+                result.put("error", String.valueOf(outcome.error.getMessage()));
+            }
+            results.put(registration.name, result);
+        }
+
+        score = Math.min(score, MAX_SCORE);
+        JSONObject details = new JSONObject();
+        details.put("rooted", score >= ROOTED_SCORE);
+        details.put("score", score);
+        details.put("complete", complete);
+        details.put("budgetMs", budgetMs);
+        details.put("duration", DiagnosticParallelTasks.toMillis(System.nanoTime() - startedAt));
+        details.put("probes", results);
+        return new Result(score, complete, details);
+    }
+
+    /************
+     * Internals
+     ***********/
+
+    /**
+     * Returns the first of the paths which exists, or null if none does.
+     *
+     * @throws TimeoutException if the deadline passes before all paths have been checked.
+     */
+    protected static String findExistingPath(String[] paths, long deadlineNanos) throws TimeoutException {
+        for (String path : paths) {
+            if (System.nanoTime() - deadlineNanos >= 0) {
+                throw new TimeoutException("Deadline passed before checking " + path);
+            }
+            if (new File(path).exists()) {
+                return path;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the value of a system property via the hidden android.os.SystemProperties class.
+     */
+    protected static String getSystemProperty(String key) throws Exception {
+        Method get;
+        synchronized (DiagnosticRootDetector.class) {
+            if (!systemPropertyResolved) {
+                try {
+                    getSystemProperty = Class.forName("android.os.SystemProperties").getMethod("get", String.class);
+                } catch (Exception e) {
+                    getSystemProperty = null;
+                }
+                systemPropertyResolved = true;
+            }
+            get = getSystemProperty;
+        }
+        if (get == null) {
+            throw new UnsupportedOperationException("System properties are not accessible");
+        }
+        return (String) get.invoke(null, key);
+    }
+
+    /**
+     * Returns the mount of /system (or / on system-as-root devices) if it is read-write, or null if there is none.
+     * Only block device mounts count: / is a writable rootfs on devices which predate system-as-root.
+     */
+    protected String findReadWriteSystemMount() throws Exception {
+        for (DiagnosticMountTable.Mount mount : mountTable.read()) {
+            if ((mount.mountPoint.equals("/system") || mount.mountPoint.equals("/")) && !mount.readOnly && mount.isBlockDevice()) {
+                return mount.toString();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the path printed by `which su`, or null if it prints none.
+     * The subprocess is polled rather than waited for, and destroyed if it has not exited by the deadline,
+     * in which case TimeoutException is thrown.
+     */
+    protected static String runWhichSu(long deadlineNanos) throws Exception {
+        Process process = new ProcessBuilder("which", "su").redirectErrorStream(true).start();
+        try {
+            while (true) {
+                try {
+                    if (process.exitValue() != 0) {
+                        return null;
+                    }
+                    break;
+                } catch (IllegalThreadStateException running) {
+                    if (System.nanoTime() - deadlineNanos >= 0) {
+                        throw new TimeoutException("which su did not exit by the deadline");
+                    }
+                    Thread.sleep(PROCESS_POLL_INTERVAL_MS);
+                }
+            }
+            BufferedReader in = new BufferedReader(new InputStreamReader(process.getInputStream()));
+            String path = in.readLine();
+            return path != null && !path.trim().isEmpty() ? path.trim() : null;
+        } finally {
+            process.destroy();
+        }
+    }
+
+    private static String join(List<String> values) {
+        StringBuilder joined = new StringBuilder();
+        for (String value : values) {
+            if (joined.length() > 0) joined.append(", ");
+            joined.append(value);
+        }
+        return joined.toString();
+    }
+}
@@ -0,0 +1,157 @@
+/*
+       Licensed to the Apache Software Foundation (ASF) under one
+       or more contributor license agreements.  See the NOTICE file
+       distributed with this work for additional information
+       regarding copyright ownership.  The ASF licenses this file
+       to you under the Apache License, Version 2.0 (the
+       "License"); you may not use this file except in compliance
+       with the License.  You may obtain a copy of the License at
+
+         http://www.apache.org/licenses/LICENSE-2.0
+
+       Unless required by applicable law or agreed to in writing,
+       software distributed under the License is distributed on an
+       "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+       KIND, either express or implied.  See the License for the
+       specific language governing permissions and limitations
+       under the License.
+*/
+package cordova.plugins;
+
+/*
+ * Imports
+ */
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/**
+ * Aggregated device diagnostic snapshot, built from sections contributed by the loaded Diagnostic modules.
+ *
+ * Each module registers a provider for its section(s) on initialisation.
+ * Sections are collected in parallel and returned in a single object:
+ * {"sections": {name: {...}}, "timings": {name: ms}, "errors": {name: message}, "duration": ms}
+ */
+public class DiagnosticSnapshot {
+
+    /**
+     * Provides one section of the snapshot.
+     */
+    public interface Provider {
+        JSONObject getSnapshot() throws Exception;
+    }
+
+    /*************
+     * Constants *
+     *************/
+
+    public static final String TAG = "DiagnosticSnapshot";
+
+    /**
+     * Maximum time to wait for all sections to be collected
+     */
+    public static final long DEFAULT_TIMEOUT_MS = 5000;
+
+    /*************
+     * Variables *
+     *************/
+
+    private final Map<String, Provider> providers = new LinkedHashMap<String, Provider>();
+
+    /*************
+     * Public API
+     ************/
+
+    /**
+     * Registers the provider of a section, replacing any existing provider of the same name.
+     */
+    public synchronized void register(String section, Provider provider) {
+        providers.put(section, provider);
+    }
+
+    public synchronized String[] getSections() {
+        return providers.keySet().toArray(new String[providers.size()]);
+    }
+
+    /**
+     * Collects the given sections in parallel.
+     * Sections which are unknown, fail or do not complete within the timeout are reported in "errors".
+     *
+     * @param sections  Names of the sections to collect, or null/empty to collect all registered sections.
+     * @param executor  Executor on which sections are collected.
+     * @param timeoutMs Maximum time to wait for all sections.
+     */
+    public JSONObject collect(JSONArray sections, ExecutorService executor, long timeoutMs) throws JSONException {
+        long startedAt = System.nanoTime();
+        long deadline = startedAt + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+
+        String[] names = (sections == null || sections.length() == 0) ? getSections() : toStringArray(sections);
+
+        JSONObject results = new JSONObject();
+        JSONObject timings = new JSONObject();
+        JSONObject errors = new JSONObject();
+
+        List<String> submitted = new ArrayList<String>();
+        List<Callable<JSONObject>> tasks = new ArrayList<Callable<JSONObject>>();
+        for (String name : names) {
+            final Provider provider;
+            synchronized (this) {
+                provider = providers.get(name);
+            }
+            if (provider == null) {
+                errors.put(name, "Unknown section");
+                continue;
+            }
+            submitted.add(name);
+            tasks.add(new Callable<JSONObject>() {
+                @Override
+                public JSONObject call() throws Exception {
+                    return provider.getSnapshot();
+                }
+            });
+        }
+
+        List<DiagnosticParallelTasks.Outcome<JSONObject>> outcomes = DiagnosticParallelTasks.runAll(tasks, executor, deadline);
+        for (int i = 0; i < outcomes.size(); i++) {
+            String name = submitted.get(i);
+            DiagnosticParallelTasks.Outcome<JSONObject> outcome = outcomes.get(i);
+            if (outcome.timedOut) {
+                errors.put(name, "Timed out");
+            } else if (outcome.error instanceof InterruptedException) {
+                errors.put(name, "Interrupted");
+            } else if (outcome.error != null) {
+                errors.put(name, String.valueOf(outcome.error.getMessage()));
+            } else {
+                results.put(name, outcome.result);
+                timings.put(name, DiagnosticParallelTasks.toMillis(outcome.durationNanos));
+            }
+        }
+
+        JSONObject snapshot = new JSONObject();
+        snapshot.put("sections", results);
+        snapshot.put("timings", timings);
+        snapshot.put("errors", errors);
+        snapshot.put("duration", DiagnosticParallelTasks.toMillis(System.nanoTime() - startedAt));
+        return snapshot;
+    }
+
+    /************
+     * Internals
+     ***********/
+
+    private static String[] toStringArray(JSONArray array) {
+        String[] strings = new String[array.length()];
+        for (int i = 0; i < strings.length; i++) {
+            strings[i] = array.optString(i);
+        }
+        return strings;
+    }
+}
@@ -0,0 +1,147 @@
+/*
+       Licensed to the Apache Software Foundation (ASF) under one
+       or more contributor license agreements.  See the NOTICE file
+       distributed with this work for additional information
+       regarding copyright ownership.  The ASF licenses this file
+       to you under the Apache License, Version 2.0 (the
+       "License"); you may not use this file except in compliance
+       with the License.  You may obtain a copy of the License at
+
+         http://www.apache.org/licenses/LICENSE-2.0
+
+       Unless required by applicable law or agreed to in writing,
+       software distributed under the License is distributed on an
+       "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+       KIND, either express or implied.  See the License for the
+       specific language governing permissions and limitations
+       under the License.
+*/
+package cordova.plugins;
+
+/*
+ * Imports
+ */
+import java.util.concurrent.atomic.AtomicInteger;
+
+import android.os.SystemClock;
+
+/**
+ * In-memory mirror of a device state which is kept current by a state change broadcast receiver.
+ *
+ * While the receiver is registered (between startTracking() and stopTracking()), a state read through the mirror
+ * is served from memory. A broadcast which carries the new state stores it in the mirror directly via update();
+ * one which does not invalidates the mirror, so the next read queries the state and stores it again.
+ * A read falls back to a live query if the receiver is not registered or the stored state is older than the freshness bound.
+ *
+ * As in DiagnosticPermissionCache, each stored state is tagged with the generation in which it was queried:
+ * a state queried before the latest invalidation is ignored.
+ */
+public class DiagnosticStateMirror<T> {
+
+    private static final class Entry<T> {
+        final T value;
+        final long time;
+        final int generation;
+
+        Entry(T value, long time, int generation) {
+            this.value = value;
+            this.time = time;
+            this.generation = generation;
+        }
+    }
+
+    /*************
+     * Variables *
+     *************/
+
+    private final long maxAgeMs;
+
+    private final AtomicInteger generation = new AtomicInteger();
+
+    private volatile boolean tracking = false;
+
+    private volatile Entry<T> entry;
+
+    /*************
+     * Public API
+     ************/
+
+    /**
+     * Constructor.
+     *
+     * @param maxAgeMs Freshness bound: time in ms after which a stored state is queried again
+     */
+    public DiagnosticStateMirror(long maxAgeMs) {
+        this.maxAgeMs = maxAgeMs;
+    }
+
+    /**
+     * Called when the state change receiver is registered.
+     */
+    public void startTracking() {
+        invalidate();
+        tracking = true;
+    }
+
+    /**
+     * Called when the state change receiver is unregistered: states are no longer served from memory.
+     */
+    public void stopTracking() {
+        tracking = false;
+        invalidate();
+    }
+
+    public boolean isTracking() {
+        return tracking;
+    }
+
+    /**
+     * Discards the stored state. Called when a state change broadcast which does not carry the new state is received.
+     */
+    public void invalidate() {
+        generation.incrementAndGet();
+        entry = null;
+    }
+
+    /**
+     * Stores a state carried by a state change broadcast. A state being queried concurrently is then ignored by put(),
+     * since it may predate the broadcast.
+     */
+    public void update(T value) {
+        int updatedGeneration = generation.incrementAndGet();
+        if (tracking) {
+            entry = new Entry<T>(value, SystemClock.elapsedRealtime(), updatedGeneration);
+        }
+    }
+
+    /**
+     * Returns the current generation, to be passed to put() once the state has been queried.
+     */
+    public int getGeneration() {
+        return generation.get();
+    }
+
+    /**
+     * Returns the stored state, or null if it needs to be queried.
+     */
+    public T get() {
+        Entry<T> current = entry;
+        if (!tracking || current == null || current.generation != generation.get()
+                || SystemClock.elapsedRealtime() - current.time > maxAgeMs) {
+            return null;
+        }
+        return current.value;
+    }
+
+    /**
+     * Stores a queried state, unless the receiver is not registered or the mirror has been invalidated since the query began.
+     *
+     * @param value              Queried state
+     * @param queriedGeneration  Value of getGeneration() read before the state was queried
+     */
+    public void put(T value, int queriedGeneration) {
+        if (tracking && queriedGeneration == generation.get()) {
+            entry = new Entry<T>(value, SystemClock.elapsedRealtime(), queriedGeneration);
+        }
+    }
+}
@@ -28,7 +28,6 @@ import android.bluetooth.BluetoothAdapter;
 import android.content.BroadcastReceiver;
 import android.content.Context;
 import android.content.Intent;
-import android.content.IntentFilter;
 import android.content.pm.PackageManager;
 import android.os.Build;
 import android.provider.Settings;
@@ -55,6 +54,11 @@ public class Diagnostic_Bluetooth extends CordovaPlugin {
      * Constants *
      *************/
 
+    /**
+     * Type of the event sent to JS when the Bluetooth state changes
+     */
+    public static final String EVENT_BLUETOOTH_STATE = "bluetoothState";
+
     /**
      * Current state of Bluetooth hardware is unknown
      */
@@ -91,7 +95,9 @@ public class Diagnostic_Bluetooth extends CordovaPlugin {
      */
     public static final String TAG = "Diagnostic_Bluetooth";
 
-    private String currentBluetoothState = null;
+    private volatile String currentBluetoothState = null;
+
+    private volatile Boolean bluetoothSupported = null;
 
 
     /*************
@@ -106,9 +112,19 @@ public class Diagnostic_Bluetooth extends CordovaPlugin {
     private Diagnostic diagnostic;
 
     /**
-     * Current Cordova callback context (on this thread)
+     * Handlers for the actions exposed by this module
+     */
+    protected DiagnosticActionRegistry actions;
+
+    /**
+     * Coalesces bursts of Bluetooth state change broadcasts
      */
-    protected CallbackContext currentContext;
+    protected DiagnosticEventCoalescer bluetoothStateChanges;
+
+    /**
+     * BluetoothAdapter.STATE_* of the default adapter, mirrored while the Bluetooth state change receiver is registered
+     */
+    protected final DiagnosticStateMirror<Integer> adapterStateMirror = new DiagnosticStateMirror<Integer>(Diagnostic.STATE_MIRROR_MAX_AGE_MS);
 
 
     /*************
@@ -133,12 +149,17 @@ public class Diagnostic_Bluetooth extends CordovaPlugin {
         instance = this;
         diagnostic = Diagnostic.getInstance();
 
-        try {
-            diagnostic.applicationContext.registerReceiver(bluetoothStateChangeReceiver, new IntentFilter(BluetoothAdapter.ACTION_STATE_CHANGED));
-            currentBluetoothState = getBluetoothState();
-        } catch (Exception e) {
-            diagnostic.logWarning("Unable to register Bluetooth state change receiver: " + e.getMessage());
-        }
+        bluetoothStateChanges = diagnostic.createEventCoalescer(new DiagnosticEventCoalescer.Target() {
+            @Override
+            public void deliver(Intent intent, int absorbed) {
+                notifyBluetoothStateChange(absorbed);
+            }
+        });
+        diagnostic.eventBus.registerSource(EVENT_BLUETOOTH_STATE, bluetoothStateSource);
+
+        actions = new DiagnosticActionRegistry(diagnostic);
+        registerActions();
+        registerSnapshotProviders();
 
         super.initialize(cordova, webView);
     }
@@ -147,11 +168,7 @@ public class Diagnostic_Bluetooth extends CordovaPlugin {
      * Called on destroying activity
      */
     public void onDestroy() {
-        try {
-            diagnostic.applicationContext.unregisterReceiver(bluetoothStateChangeReceiver);
-        } catch (Exception e) {
-            diagnostic.logWarning("Unable to unregister Bluetooth state change receiver: " + e.getMessage());
-        }
+        diagnostic.eventBus.unregisterSource(EVENT_BLUETOOTH_STATE);
     }
 
     /**
@@ -163,39 +180,89 @@ public class Diagnostic_Bluetooth extends CordovaPlugin {
      * @return True if the action was valid, false if not.
      */
     public boolean execute(String action, JSONArray args, CallbackContext callbackContext) throws JSONException {
-        Diagnostic.instance.currentContext = currentContext = callbackContext;
+        return actions.dispatch(action, args, callbackContext);
+    }
 
-        try {
-            if (action.equals("switchToBluetoothSettings")) {
+    /**
+     * Registers the providers of this module's sections of the diagnostic snapshot.
+     */
+    protected void registerSnapshotProviders() {
+        diagnostic.registerSnapshotProvider("bluetooth", new DiagnosticSnapshot.Provider() {
+            @Override
+            public JSONObject getSnapshot() throws Exception {
+                JSONObject section = new JSONObject();
+                section.put("state", getBluetoothState());
+                section.put("available", isBluetoothAvailable());
+                return section;
+            }
+        });
+    }
+
+    /**
+     * Registers the handlers for the actions exposed by this module.
+     */
+    protected void registerActions() {
+        actions.register("switchToBluetoothSettings", DiagnosticActionRegistry.ThreadPolicy.UI, new DiagnosticActionRegistry.Action() {
+            @Override
+            public void execute(JSONArray args, CallbackContext callbackContext) throws Exception {
                 switchToBluetoothSettings();
                 callbackContext.success();
-            } else if (action.equals("isBluetoothAvailable")) {
+            }
+        });
+        actions.register("isBluetoothAvailable", new DiagnosticActionRegistry.Action() {
+            @Override
+            public void execute(JSONArray args, CallbackContext callbackContext) throws Exception {
                 callbackContext.success(isBluetoothAvailable() ? 1 : 0);
-            } else if (action.equals("isBluetoothEnabled")) {
+            }
+        });
+        actions.register("isBluetoothEnabled", new DiagnosticActionRegistry.Action() {
+            @Override
+            public void execute(JSONArray args, CallbackContext callbackContext) throws Exception {
                 callbackContext.success(isBluetoothEnabled() ? 1 : 0);
-            } else if (action.equals("hasBluetoothSupport")) {
+            }
+        });
+        actions.register("hasBluetoothSupport", new DiagnosticActionRegistry.Action() {
+            @Override
+            public void execute(JSONArray args, CallbackContext callbackContext) throws Exception {
                 callbackContext.success(hasBluetoothSupport() ? 1 : 0);
-            } else if (action.equals("hasBluetoothLESupport")) {
+            }
+        });
+        actions.register("hasBluetoothLESupport", new DiagnosticActionRegistry.Action() {
+            @Override
+            public void execute(JSONArray args, CallbackContext callbackContext) throws Exception {
                 callbackContext.success(hasBluetoothLESupport() ? 1 : 0);
-            } else if (action.equals("hasBluetoothLEPeripheralSupport")) {
+            }
+        });
+        actions.register("hasBluetoothLEPeripheralSupport", new DiagnosticActionRegistry.Action() {
+            @Override
+            public void execute(JSONArray args, CallbackContext callbackContext) throws Exception {
                 callbackContext.success(hasBluetoothLEPeripheralSupport() ? 1 : 0);
-            } else if (action.equals("setBluetoothState")) {
+            }
+        });
+        actions.register("setBluetoothState", new DiagnosticActionRegistry.Action() {
+            @Override
+            public void execute(JSONArray args, CallbackContext callbackContext) throws Exception {
                 setBluetoothState(args.getBoolean(0), callbackContext);
-            } else if (action.equals("getBluetoothState")) {
+            }
+        });
+        actions.register("getBluetoothState", new DiagnosticActionRegistry.Action() {
+            @Override
+            public void execute(JSONArray args, CallbackContext callbackContext) throws Exception {
                 callbackContext.success(getBluetoothState());
-            } else if (action.equals("getAuthorizationStatuses")) {
+            }
+        });
+        actions.register("getAuthorizationStatuses", new DiagnosticActionRegistry.Action() {
+            @Override
+            public void execute(JSONArray args, CallbackContext callbackContext) throws Exception {
                 callbackContext.success(getAuthorizationStatuses());
-            } else if (action.equals("requestBluetoothAuthorization")) {
+            }
+        });
+        actions.register("requestBluetoothAuthorization", new DiagnosticActionRegistry.Action() {
+            @Override
+            public void execute(JSONArray args, CallbackContext callbackContext) throws Exception {
                 requestBluetoothAuthorization(args, callbackContext);
-            } else {
-                diagnostic.handleError("Invalid action");
-                return false;
             }
-        } catch (Exception e) {
-            diagnostic.handleError("Exception occurred: ".concat(e.getMessage()));
-            return false;
-        }
-        return true;
+        });
     }
 
 
@@ -215,26 +282,27 @@ public class Diagnostic_Bluetooth extends CordovaPlugin {
     }
 
     public boolean isBluetoothEnabled() {
-        BluetoothAdapter mBluetoothAdapter = BluetoothAdapter.getDefaultAdapter();
-        boolean result = mBluetoothAdapter != null && mBluetoothAdapter.isEnabled();
+        boolean result = getAdapterState() == BluetoothAdapter.STATE_ON;
         return result;
     }
 
     public boolean hasBluetoothSupport() {
-        PackageManager pm = this.cordova.getActivity().getPackageManager();
-        boolean result = pm.hasSystemFeature(PackageManager.FEATURE_BLUETOOTH);
+        // System features are fixed for the lifetime of the process
+        Boolean result = bluetoothSupported;
+        if(result == null){
+            result = diagnostic.deviceState.hasSystemFeature(PackageManager.FEATURE_BLUETOOTH);
+            bluetoothSupported = result;
+        }
         return result;
     }
 
     public boolean hasBluetoothLESupport() {
-        PackageManager pm = this.cordova.getActivity().getPackageManager();
-        boolean result = pm.hasSystemFeature(PackageManager.FEATURE_BLUETOOTH_LE);
+        boolean result = diagnostic.deviceState.hasSystemFeature(PackageManager.FEATURE_BLUETOOTH_LE);
         return result;
     }
 
     public boolean hasBluetoothLEPeripheralSupport() {
-        BluetoothAdapter mBluetoothAdapter = BluetoothAdapter.getDefaultAdapter();
-        boolean result = mBluetoothAdapter != null && mBluetoothAdapter.isMultipleAdvertisementSupported();
+        boolean result = diagnostic.deviceState.isBluetoothMultipleAdvertisementSupported();
         return result;
     }
 
@@ -245,17 +313,18 @@ public class Diagnostic_Bluetooth extends CordovaPlugin {
             return;
         }
 
-        BluetoothAdapter bluetoothAdapter = BluetoothAdapter.getDefaultAdapter();
-        boolean isEnabled = bluetoothAdapter.isEnabled();
+        boolean isEnabled = isBluetoothEnabled();
 
         JSONObject statuses = getAuthorizationStatuses();
 
         if (statuses.getString("BLUETOOTH_CONNECT").equals(Diagnostic.STATUS_GRANTED)) {
             if (enable && !isEnabled) {
-                bluetoothAdapter.enable();
+                diagnostic.deviceState.setBluetoothEnabled(true);
+                adapterStateMirror.invalidate();
             }
             else if(!enable && isEnabled) {
-                bluetoothAdapter.disable();
+                diagnostic.deviceState.setBluetoothEnabled(false);
+                adapterStateMirror.invalidate();
             }
             callbackContext.success();
         }else{
@@ -267,12 +336,11 @@ public class Diagnostic_Bluetooth extends CordovaPlugin {
 
         String bluetoothState = BLUETOOTH_STATE_UNKNOWN;
         if(hasBluetoothSupport()){
-            BluetoothAdapter mBluetoothAdapter = BluetoothAdapter.getDefaultAdapter();
-            if(mBluetoothAdapter == null){
+            int state = getAdapterState();
+            if(state == DiagnosticDeviceStateProvider.BLUETOOTH_ADAPTER_NONE){
                 diagnostic.logWarning("Bluetooth adapter unavailable or not found");
                 return BLUETOOTH_STATE_UNKNOWN;
             }
-            int state = mBluetoothAdapter.getState();
             switch(state){
                 case BluetoothAdapter.STATE_OFF:
                     bluetoothState = BLUETOOTH_STATE_POWERED_OFF;
@@ -292,11 +360,18 @@ public class Diagnostic_Bluetooth extends CordovaPlugin {
     }
 
     public void notifyBluetoothStateChange(){
+        notifyBluetoothStateChange(1);
+    }
+
+    /**
+     * @param absorbed Number of state change broadcasts coalesced into this notification
+     */
+    public void notifyBluetoothStateChange(int absorbed){
         try {
             String newState = getBluetoothState();
             if(!newState.equals(currentBluetoothState)){
                 diagnostic.logDebug("Bluetooth state changed to: " + newState);
-                diagnostic.executePluginJavascript("bluetooth._onBluetoothStateChange(\""+newState+"\");");
+                diagnostic.publishEvent(EVENT_BLUETOOTH_STATE, newState, absorbed);
                 currentBluetoothState = newState;
             }
         }catch(Exception e){
@@ -361,17 +436,60 @@ public class Diagnostic_Bluetooth extends CordovaPlugin {
         return false;
     }
 
+    /**
+     * Returns the state of the default adapter from the mirror if it is current, otherwise from the adapter.
+     */
+    private int getAdapterState() {
+        Integer state = adapterStateMirror.get();
+        if(state == null){
+            int generation = adapterStateMirror.getGeneration();
+            state = diagnostic.deviceState.getBluetoothState();
+            adapterStateMirror.put(state, generation);
+        }
+        return state;
+    }
+
     /************
      * Overrides
      ***********/
 
+    /**
+     * Handles Bluetooth state change broadcasts while JS has a Bluetooth state change handler
+     */
+    protected final DiagnosticEventBus.Source bluetoothStateSource = new DiagnosticEventBus.Source() {
+        @Override
+        public void start() {
+            adapterStateMirror.startTracking();
+            try {
+                currentBluetoothState = getBluetoothState();
+            } catch (Exception e) {
+                diagnostic.logWarning("Unable to get initial Bluetooth state: " + e.getMessage());
+            }
+            diagnostic.broadcasts.register(BluetoothAdapter.ACTION_STATE_CHANGED, bluetoothStateChangeReceiver);
+        }
+
+        @Override
+        public void stop() {
+            diagnostic.broadcasts.unregister(BluetoothAdapter.ACTION_STATE_CHANGED, bluetoothStateChangeReceiver);
+            bluetoothStateChanges.cancel();
+            adapterStateMirror.stopTracking();
+            currentBluetoothState = null;
+        }
+    };
+
     protected final BroadcastReceiver bluetoothStateChangeReceiver = new BroadcastReceiver() {
         @Override
         public void onReceive(Context context, Intent intent) {
             final String action = intent.getAction();
             if(instance != null && action.equals(BluetoothAdapter.ACTION_STATE_CHANGED)){
                 Log.v(TAG, "bluetoothStateChangeReceiver");
-                instance.notifyBluetoothStateChange();
+                int state = intent.getIntExtra(BluetoothAdapter.EXTRA_STATE, -1);
+                if(state >= 0){
+                    instance.adapterStateMirror.update(state);
+                }else{
+                    instance.adapterStateMirror.invalidate();
+                }
+                instance.bluetoothStateChanges.signal(intent);
             }
         }
     };
@@ -23,7 +23,6 @@ package cordova.plugins;
  */
 
 import android.content.pm.PackageManager;
-import android.hardware.Camera;
 import android.util.Log;
 
 import org.apache.cordova.CallbackContext;
@@ -31,6 +30,7 @@ import org.apache.cordova.CordovaInterface;
 import org.apache.cordova.CordovaPlugin;
 import org.apache.cordova.CordovaWebView;
 import org.json.JSONArray;
+import org.json.JSONObject;
 import org.json.JSONException;
 
 /**
@@ -62,9 +62,9 @@ public class Diagnostic_Camera extends CordovaPlugin{
     private Diagnostic diagnostic;
 
     /**
-     * Current Cordova callback context (on this thread)
+     * Handlers for the actions exposed by this module
      */
-    protected CallbackContext currentContext;
+    protected DiagnosticActionRegistry actions;
 
 
     /*************
@@ -88,6 +88,10 @@ public class Diagnostic_Camera extends CordovaPlugin{
         instance = this;
         diagnostic = Diagnostic.getInstance();
 
+        actions = new DiagnosticActionRegistry(diagnostic);
+        registerActions();
+        registerSnapshotProviders();
+
         super.initialize(cordova, webView);
     }
 
@@ -101,26 +105,38 @@ public class Diagnostic_Camera extends CordovaPlugin{
      * @return                  True if the action was valid, false if not.
      */
     public boolean execute(String action, JSONArray args, CallbackContext callbackContext) throws JSONException {
-        Diagnostic.instance.currentContext = currentContext = callbackContext;
+        return actions.dispatch(action, args, callbackContext);
+    }
 
-        try {
-            if(action.equals("isCameraPresent")) {
+    /**
+     * Registers the providers of this module's sections of the diagnostic snapshot.
+     */
+    protected void registerSnapshotProviders() {
+        diagnostic.registerSnapshotProvider("camera", new DiagnosticSnapshot.Provider() {
+            @Override
+            public JSONObject getSnapshot() throws Exception {
+                JSONObject section = new JSONObject();
+                section.put("present", isCameraPresent());
+                return section;
+            }
+        });
+    }
+
+    /**
+     * Registers the handlers for the actions exposed by this module.
+     */
+    protected void registerActions() {
+        actions.register("isCameraPresent", new DiagnosticActionRegistry.Action() {
+            @Override
+            public void execute(JSONArray args, CallbackContext callbackContext) throws Exception {
                 callbackContext.success(isCameraPresent() ? 1 : 0);
-            } else {
-                diagnostic.handleError("Invalid action");
-                return false;
             }
-        }catch(Exception e ) {
-            diagnostic.handleError("Exception occurred: ".concat(e.getMessage()));
-            return false;
-        }
-        return true;
+        });
     }
 
     public boolean isCameraPresent() {
-        int numberOfCameras = Camera.getNumberOfCameras();
-        PackageManager pm = this.cordova.getActivity().getPackageManager();
-        final boolean deviceHasCameraFlag = pm.hasSystemFeature(PackageManager.FEATURE_CAMERA);
+        int numberOfCameras = diagnostic.deviceState.getNumberOfCameras();
+        final boolean deviceHasCameraFlag = diagnostic.deviceState.hasSystemFeature(PackageManager.FEATURE_CAMERA);
         boolean result = (deviceHasCameraFlag && numberOfCameras>0 );
         return result;
     }
@@ -22,10 +22,10 @@ package cordova.plugins;
  * Imports
  */
 
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
 import android.os.Build;
-import android.os.Environment;
-import android.os.StatFs;
-import androidx.core.os.EnvironmentCompat;
 import android.util.Log;
 
 import org.apache.cordova.CallbackContext;
@@ -37,9 +37,10 @@ import org.json.JSONException;
 import org.json.JSONObject;
 
 import java.io.File;
-import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.regex.Pattern;
 
 /**
  * Diagnostic plugin implementation for Android
@@ -57,6 +58,48 @@ public class Diagnostic_External_Storage extends CordovaPlugin{
      */
     public static final String TAG = "Diagnostic_External_Storage";
 
+    /**
+     * Memo key of the external SD card details
+     */
+    protected static final String EXTERNAL_SD_CARD_DETAILS_KEY = "getExternalSdCardDetails";
+
+    /**
+     * Time in ms for which the external SD card details are reused.
+     * Mounting or removing a volume invalidates them immediately; the TTL bounds the staleness of the free space figures.
+     */
+    protected static final long EXTERNAL_SD_CARD_DETAILS_TTL_MS = 5000;
+
+    /**
+     * Broadcasts which change the set of mounted volumes
+     */
+    protected static final String[] MEDIA_ACTIONS = {
+            Intent.ACTION_MEDIA_MOUNTED,
+            Intent.ACTION_MEDIA_UNMOUNTED,
+            Intent.ACTION_MEDIA_REMOVED,
+            Intent.ACTION_MEDIA_BAD_REMOVAL,
+            Intent.ACTION_MEDIA_EJECT
+    };
+
+    /**
+     * Data scheme of media broadcasts
+     */
+    protected static final String MEDIA_DATA_SCHEME = "file";
+
+    /**
+     * Memo key of the parsed mount table
+     */
+    protected static final String MOUNT_TABLE_KEY = "mountTable";
+
+    /**
+     * Volume ID of an SD card as it appears in its path, e.g. /storage/1A2B-3C4D
+     */
+    protected static final Pattern VOLUME_ID_PATTERN = Pattern.compile("[0-9a-f]{4}-[0-9a-f]{4}", Pattern.CASE_INSENSITIVE);
+
+    /**
+     * SD card path before Android M, e.g. /storage/extSdCard or /storage/sdcard1
+     */
+    protected static final Pattern LEGACY_SD_CARD_PATTERN = Pattern.compile("ext|sdcard", Pattern.CASE_INSENSITIVE);
+
 
     /*************
      * Variables *
@@ -70,11 +113,28 @@ public class Diagnostic_External_Storage extends CordovaPlugin{
     private Diagnostic diagnostic;
 
     /**
-     * Current Cordova callback context (on this thread)
+     * Handlers for the actions exposed by this module
+     */
+    protected DiagnosticActionRegistry actions;
+
+    protected static DiagnosticPermission externalStoragePermission = DiagnosticPermission.READ_EXTERNAL_STORAGE;
+
+    /**
+     * True once the media broadcast handlers are registered. Guarded by this.
      */
-    protected CallbackContext currentContext;
+    private boolean mediaReceiverRegistered = false;
 
-    protected static String externalStoragePermission = "READ_EXTERNAL_STORAGE";
+    /**
+     * Discards the memoized SD card details and mount table when a volume is mounted or removed
+     */
+    protected final BroadcastReceiver mediaChangedReceiver = new BroadcastReceiver() {
+        @Override
+        public void onReceive(Context context, Intent intent) {
+            diagnostic.logDebug("Media state changed: " + intent.getAction());
+            diagnostic.memo.invalidate(EXTERNAL_SD_CARD_DETAILS_KEY);
+            diagnostic.memo.invalidate(MOUNT_TABLE_KEY);
+        }
+    };
 
 
     /*************
@@ -98,9 +158,28 @@ public class Diagnostic_External_Storage extends CordovaPlugin{
         instance = this;
         diagnostic = Diagnostic.getInstance();
 
+        actions = new DiagnosticActionRegistry(diagnostic);
+        registerActions();
+
         super.initialize(cordova, webView);
     }
 
+    /**
+     * Unregisters the media broadcast handlers.
+     */
+    public void onDestroy() {
+        synchronized (this) {
+            if (mediaReceiverRegistered && diagnostic.broadcasts != null) {
+                for (String action : MEDIA_ACTIONS) {
+                    diagnostic.broadcasts.unregister(action, MEDIA_DATA_SCHEME, mediaChangedReceiver);
+                }
+            }
+            mediaReceiverRegistered = false;
+        }
+        diagnostic.memo.invalidate(EXTERNAL_SD_CARD_DETAILS_KEY);
+        diagnostic.memo.invalidate(MOUNT_TABLE_KEY);
+    }
+
 
     /**
      * Executes the request and returns PluginResult.
@@ -111,41 +190,69 @@ public class Diagnostic_External_Storage extends CordovaPlugin{
      * @return                  True if the action was valid, false if not.
      */
     public boolean execute(String action, JSONArray args, CallbackContext callbackContext) throws JSONException {
-        Diagnostic.instance.currentContext = currentContext = callbackContext;
+        return actions.dispatch(action, args, callbackContext);
+    }
 
-        try {
-            if(action.equals("getExternalSdCardDetails")) {
-                this.getExternalSdCardDetails();
-            } else {
-                diagnostic.handleError("Invalid action");
-                return false;
+    /**
+     * Registers the handlers for the actions exposed by this module.
+     */
+    protected void registerActions() {
+        actions.register("getExternalSdCardDetails", DiagnosticActionRegistry.ThreadPolicy.BACKGROUND, new DiagnosticActionRegistry.Action() {
+            @Override
+            public void execute(JSONArray args, CallbackContext callbackContext) throws Exception {
+                getExternalSdCardDetails(callbackContext);
             }
-        }catch(Exception e ) {
-            diagnostic.handleError("Exception occurred: ".concat(e.getMessage()));
-            return false;
-        }
-        return true;
+        });
     }
 
-    public static void onReceivePermissionResult() throws JSONException{
-        instance._getExternalSdCardDetails();
+    public static void onReceivePermissionResult(CallbackContext callbackContext) throws JSONException{
+        instance._getExternalSdCardDetails(callbackContext);
     }
 
     /************
      * Internals
      ***********/
 
-    protected void getExternalSdCardDetails() throws Exception{
-        String permission = diagnostic.permissionsMap.get(externalStoragePermission);
-        if (diagnostic.hasRuntimePermission(permission)) {
-            _getExternalSdCardDetails();
+    protected void getExternalSdCardDetails(CallbackContext callbackContext) throws Exception{
+        if (diagnostic.hasRuntimePermission(externalStoragePermission.androidName)) {
+            _getExternalSdCardDetails(callbackContext);
         } else {
-            diagnostic.requestRuntimePermission(permission, Diagnostic.GET_EXTERNAL_SD_CARD_DETAILS_PERMISSION_REQUEST);
+            int requestId = diagnostic.storeContextByRequestId(callbackContext, Diagnostic.GET_EXTERNAL_SD_CARD_DETAILS_PERMISSION_REQUEST);
+            diagnostic.requestRuntimePermission(externalStoragePermission.name(), requestId);
         }
     }
 
 
-    protected void _getExternalSdCardDetails() throws JSONException {
+    protected void _getExternalSdCardDetails(CallbackContext callbackContext) throws JSONException {
+        registerMediaReceiver();
+        try {
+            callbackContext.success(diagnostic.memo.get(EXTERNAL_SD_CARD_DETAILS_KEY, EXTERNAL_SD_CARD_DETAILS_TTL_MS, new Callable<JSONArray>() {
+                @Override
+                public JSONArray call() throws Exception {
+                    return resolveExternalSdCardDetails();
+                }
+            }));
+        } catch (JSONException e) {
+            throw e;
+        } catch (Exception e) {
+            diagnostic.handleError("Error getting external SD card details: " + e.getMessage(), callbackContext);
+        }
+    }
+
+    /**
+     * Registers the handlers which invalidate the memoized SD card details, the first time they are requested.
+     */
+    protected synchronized void registerMediaReceiver() {
+        if (mediaReceiverRegistered || diagnostic.broadcasts == null) {
+            return;
+        }
+        for (String action : MEDIA_ACTIONS) {
+            diagnostic.broadcasts.register(action, MEDIA_DATA_SCHEME, mediaChangedReceiver);
+        }
+        mediaReceiverRegistered = true;
+    }
+
+    protected JSONArray resolveExternalSdCardDetails() throws JSONException {
         String[] storageDirectories = getStorageDirectories();
 
         JSONArray details = new JSONArray();
@@ -166,7 +273,7 @@ public class Diagnostic_External_Storage extends CordovaPlugin{
                 details.put(detail);
             }
         }
-        currentContext.success(details);
+        return details;
     }
 
     /**
@@ -176,18 +283,23 @@ public class Diagnostic_External_Storage extends CordovaPlugin{
      * @return free space in bytes
      */
     protected long getFreeSpaceInBytes(String path) {
-        try {
-            StatFs stat = new StatFs(path);
-            long blockSize = stat.getBlockSize();
-            long availableBlocks = stat.getAvailableBlocks();
-            return availableBlocks * blockSize;
-        } catch (IllegalArgumentException e) {
-            // The path was invalid. Just return 0 free bytes.
-            return 0;
-        }
+        return diagnostic.deviceState.getFreeSpace(path);
     }
 
 
+    /**
+     * Returns the kernel mount table, which is parsed once and reused until a volume is mounted or removed.
+     */
+    protected List<DiagnosticMountTable.Mount> getMounts() throws Exception {
+        registerMediaReceiver();
+        return diagnostic.memo.get(MOUNT_TABLE_KEY, DiagnosticMemo.PROCESS_LIFETIME, new Callable<List<DiagnosticMountTable.Mount>>() {
+            @Override
+            public List<DiagnosticMountTable.Mount> call() throws Exception {
+                return diagnostic.mountTable.read();
+            }
+        });
+    }
+
     /**
      * Returns all available external SD-Cards in the system.
      *
@@ -198,7 +310,7 @@ public class Diagnostic_External_Storage extends CordovaPlugin{
         List<String> results = new ArrayList<String>();
 
         if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.KITKAT) { //Method 1 for KitKat & above
-            File[] externalDirs = this.cordova.getActivity().getApplicationContext().getExternalFilesDirs(null);
+            File[] externalDirs = diagnostic.deviceState.getExternalFilesDirs();
 
             for (File file : externalDirs) {
                 if(file == null){
@@ -207,57 +319,37 @@ public class Diagnostic_External_Storage extends CordovaPlugin{
                 String applicationPath = file.getPath();
                 String rootPath = applicationPath.split("/Android")[0];
 
-                boolean addPath = false;
-
-                if(Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) {
-                    addPath = Environment.isExternalStorageRemovable(file);
-                }
-                else{
-                    addPath = Environment.MEDIA_MOUNTED.equals(EnvironmentCompat.getStorageState(file));
-                }
-
-                if(addPath){
+                if(diagnostic.deviceState.isRemovableStorage(file)){
                     results.add(rootPath);
                     results.add(applicationPath);
                 }
             }
         }
 
-        if(results.isEmpty()) { //Method 2 for all versions
-            // better variation of: http://stackoverflow.com/a/40123073/5002496
-            String output = "";
+        if(results.isEmpty()) { //Method 2 for all versions: removable volumes in the kernel mount table
             try {
-                final Process process = new ProcessBuilder().command("mount | grep /dev/block/vold")
-                        .redirectErrorStream(true).start();
-                process.waitFor();
-                final InputStream is = process.getInputStream();
-                final byte[] buffer = new byte[1024];
-                while (is.read(buffer) != -1) {
-                    output = output + new String(buffer);
+                for (DiagnosticMountTable.Mount mount : DiagnosticMountTable.getRemovable(getMounts())) {
+                    String path = mount.getStoragePath();
+                    if (!results.contains(path)) {
+                        results.add(path);
+                    }
                 }
-                is.close();
             } catch (final Exception e) {
-                e.printStackTrace();
-            }
-            if(!output.trim().isEmpty()) {
-                String devicePoints[] = output.split("\n");
-                for(String voldPoint: devicePoints) {
-                    results.add(voldPoint.split(" ")[2]);
-                }
+                diagnostic.logWarning("Unable to read mount table: " + e.getMessage());
             }
         }
 
         //Below few lines is to remove paths which may not be external memory card, like OTG (feel free to comment them out)
         if(Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
             for (int i = 0; i < results.size(); i++) {
-                if (!results.get(i).toLowerCase().matches(".*[0-9a-f]{4}[-][0-9a-f]{4}.*")) {
+                if (!VOLUME_ID_PATTERN.matcher(results.get(i)).find()) {
                     diagnostic.logDebug(results.get(i) + " might not be extSDcard");
                     results.remove(i--);
                 }
             }
         } else {
             for (int i = 0; i < results.size(); i++) {
-                if (!results.get(i).toLowerCase().contains("ext") && !results.get(i).toLowerCase().contains("sdcard")) {
+                if (!LEGACY_SD_CARD_PATTERN.matcher(results.get(i)).find()) {
                     diagnostic.logDebug(results.get(i)+" might not be extSDcard");
                     results.remove(i--);
                 }
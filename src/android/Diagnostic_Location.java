@@ -27,10 +27,10 @@ import org.apache.cordova.CordovaPlugin;
 import org.apache.cordova.CordovaInterface;
 import org.apache.cordova.PluginResult;
 import org.json.JSONArray;
+import org.json.JSONObject;
 import org.json.JSONException;
 
 import android.content.BroadcastReceiver;
-import android.content.IntentFilter;
 import android.location.LocationManager;
 import android.os.Build;
 import android.util.Log;
@@ -49,6 +49,11 @@ public class Diagnostic_Location extends CordovaPlugin{
      * Constants *
      *************/
 
+    /**
+     * Type of the event sent to JS when the location state changes
+     */
+    public static final String EVENT_LOCATION_STATE = "locationState";
+
     /**
      * Tag for debug log messages
      */
@@ -79,11 +84,21 @@ public class Diagnostic_Location extends CordovaPlugin{
     public static LocationManager locationManager;
 
     /**
-     * Current Cordova callback context (on this thread)
+     * Handlers for the actions exposed by this module
      */
-    protected CallbackContext currentContext;
+    protected DiagnosticActionRegistry actions;
+
+    private volatile String currentLocationMode = null;
 
-    private String currentLocationMode = null;
+    /**
+     * Coalesces bursts of location provider change broadcasts
+     */
+    protected DiagnosticEventCoalescer locationStateChanges;
+
+    /**
+     * Location mode, mirrored while the location provider change receiver is registered
+     */
+    protected final DiagnosticStateMirror<Integer> locationModeMirror = new DiagnosticStateMirror<Integer>(Diagnostic.STATE_MIRROR_MAX_AGE_MS);
 
     /*************
      * Public API
@@ -106,18 +121,18 @@ public class Diagnostic_Location extends CordovaPlugin{
         instance = this;
         diagnostic = Diagnostic.getInstance();
 
-        try {
-            diagnostic.applicationContext.registerReceiver(locationProviderChangedReceiver, new IntentFilter(LocationManager.PROVIDERS_CHANGED_ACTION));
-            locationManager = (LocationManager) this.cordova.getActivity().getSystemService(Context.LOCATION_SERVICE);
-        }catch(Exception e){
-            diagnostic.logWarning("Unable to register Location Provider Change receiver: " + e.getMessage());
-        }
+        locationManager = (LocationManager) this.cordova.getActivity().getSystemService(Context.LOCATION_SERVICE);
+        locationStateChanges = diagnostic.createEventCoalescer(new DiagnosticEventCoalescer.Target() {
+            @Override
+            public void deliver(Intent intent, int absorbed) {
+                notifyLocationStateChange(absorbed);
+            }
+        });
+        diagnostic.eventBus.registerSource(EVENT_LOCATION_STATE, locationStateSource);
 
-        try {
-            currentLocationMode = getLocationModeName();
-        }catch(Exception e){
-            diagnostic.logWarning("Unable to get initial location mode: " + e.getMessage());
-        }
+        actions = new DiagnosticActionRegistry(diagnostic);
+        registerActions();
+        registerSnapshotProviders();
 
         super.initialize(cordova, webView);
     }
@@ -126,11 +141,7 @@ public class Diagnostic_Location extends CordovaPlugin{
      * Called on destroying activity
      */
     public void onDestroy() {
-        try {
-            diagnostic.applicationContext.unregisterReceiver(locationProviderChangedReceiver);
-        }catch(Exception e){
-            diagnostic.logWarning("Unable to unregister Location Provider Change receiver: " + e.getMessage());
-        }
+        diagnostic.eventBus.unregisterSource(EVENT_LOCATION_STATE);
     }
 
     /**
@@ -142,37 +153,84 @@ public class Diagnostic_Location extends CordovaPlugin{
      * @return                  True if the action was valid, false if not.
      */
     public boolean execute(String action, JSONArray args, CallbackContext callbackContext) throws JSONException {
-        Diagnostic.instance.currentContext = currentContext = callbackContext;
+        return actions.dispatch(action, args, callbackContext);
+    }
 
-        try {
-            if (action.equals("switchToLocationSettings")){
+    /**
+     * Registers the providers of this module's sections of the diagnostic snapshot.
+     */
+    protected void registerSnapshotProviders() {
+        diagnostic.registerSnapshotProvider("location", new DiagnosticSnapshot.Provider() {
+            @Override
+            public JSONObject getSnapshot() throws Exception {
+                JSONObject section = new JSONObject();
+                section.put("enabled", isGpsLocationEnabled() || isNetworkLocationEnabled());
+                section.put("available", isGpsLocationAvailable() || isNetworkLocationAvailable());
+                section.put("mode", getLocationModeName());
+                return section;
+            }
+        });
+    }
+
+    /**
+     * Registers the handlers for the actions exposed by this module.
+     */
+    protected void registerActions() {
+        actions.register("switchToLocationSettings", DiagnosticActionRegistry.ThreadPolicy.UI, new DiagnosticActionRegistry.Action() {
+            @Override
+            public void execute(JSONArray args, CallbackContext callbackContext) throws Exception {
                 switchToLocationSettings();
                 callbackContext.success();
-            } else if(action.equals("isLocationAvailable")) {
+            }
+        });
+        actions.register("isLocationAvailable", new DiagnosticActionRegistry.Action() {
+            @Override
+            public void execute(JSONArray args, CallbackContext callbackContext) throws Exception {
                 callbackContext.success(isGpsLocationAvailable() || isNetworkLocationAvailable() ? 1 : 0);
-            } else if(action.equals("isLocationEnabled")) {
+            }
+        });
+        actions.register("isLocationEnabled", new DiagnosticActionRegistry.Action() {
+            @Override
+            public void execute(JSONArray args, CallbackContext callbackContext) throws Exception {
                 callbackContext.success(isGpsLocationEnabled() || isNetworkLocationEnabled() ? 1 : 0);
-            } else if(action.equals("isGpsLocationAvailable")) {
+            }
+        });
+        actions.register("isGpsLocationAvailable", new DiagnosticActionRegistry.Action() {
+            @Override
+            public void execute(JSONArray args, CallbackContext callbackContext) throws Exception {
                 callbackContext.success(isGpsLocationAvailable() ? 1 : 0);
-            } else if(action.equals("isNetworkLocationAvailable")) {
+            }
+        });
+        actions.register("isNetworkLocationAvailable", new DiagnosticActionRegistry.Action() {
+            @Override
+            public void execute(JSONArray args, CallbackContext callbackContext) throws Exception {
                 callbackContext.success(isNetworkLocationAvailable() ? 1 : 0);
-            } else if(action.equals("isGpsLocationEnabled")) {
+            }
+        });
+        actions.register("isGpsLocationEnabled", new DiagnosticActionRegistry.Action() {
+            @Override
+            public void execute(JSONArray args, CallbackContext callbackContext) throws Exception {
                 callbackContext.success(isGpsLocationEnabled() ? 1 : 0);
-            } else if(action.equals("isNetworkLocationEnabled")) {
+            }
+        });
+        actions.register("isNetworkLocationEnabled", new DiagnosticActionRegistry.Action() {
+            @Override
+            public void execute(JSONArray args, CallbackContext callbackContext) throws Exception {
                 callbackContext.success(isNetworkLocationEnabled() ? 1 : 0);
-            } else if(action.equals("getLocationMode")) {
+            }
+        });
+        actions.register("getLocationMode", new DiagnosticActionRegistry.Action() {
+            @Override
+            public void execute(JSONArray args, CallbackContext callbackContext) throws Exception {
                 callbackContext.success(getLocationModeName());
-            } else if(action.equals("requestLocationAuthorization")) {
+            }
+        });
+        actions.register("requestLocationAuthorization", new DiagnosticActionRegistry.Action() {
+            @Override
+            public void execute(JSONArray args, CallbackContext callbackContext) throws Exception {
                 requestLocationAuthorization(args, callbackContext);
-            }else {
-                diagnostic.handleError("Invalid action");
-                return false;
             }
-        }catch(Exception e ) {
-            diagnostic.handleError("Exception occurred: ".concat(e.getMessage()));
-            return false;
-        }
-        return true;
+        });
     }
 
     public boolean isGpsLocationAvailable() throws Exception {
@@ -224,11 +282,18 @@ public class Diagnostic_Location extends CordovaPlugin{
     }
 
     public void notifyLocationStateChange(){
+        notifyLocationStateChange(1);
+    }
+
+    /**
+     * @param absorbed Number of provider change broadcasts coalesced into this notification
+     */
+    public void notifyLocationStateChange(int absorbed){
         try {
             String newMode = getLocationModeName();
             if(!newMode.equals(currentLocationMode)){
                 diagnostic.logDebug("Location mode change to: " + newMode);
-                diagnostic.executePluginJavascript("location._onLocationStateChange(\"" + newMode +"\");");
+                diagnostic.publishEvent(EVENT_LOCATION_STATE, newMode, absorbed);
                 currentLocationMode = newMode;
             }
         }catch(Exception e){
@@ -270,12 +335,26 @@ public class Diagnostic_Location extends CordovaPlugin{
      * Internals
      ***********/
     /**
-     * Returns current location mode
+     * Returns current location mode, from the mirror if it is current
      */
     private int getLocationMode() throws Exception {
+        Integer mirrored = locationModeMirror.get();
+        if(mirrored != null){
+            return mirrored;
+        }
+        int generation = locationModeMirror.getGeneration();
+        int mode = queryLocationMode();
+        locationModeMirror.put(mode, generation);
+        return mode;
+    }
+
+    /**
+     * Queries current location mode from the system
+     */
+    private int queryLocationMode() throws Exception {
         int mode;
         if (Build.VERSION.SDK_INT >= 19 && Build.VERSION.SDK_INT < 28){ // Kitkat to Oreo, Settings.Secute.LOCATION_MODE was deprecated in Pie (https://developer.android.com/reference/android/provider/Settings.Secure#LOCATION_MODE)
-            mode = Settings.Secure.getInt(this.cordova.getActivity().getContentResolver(), Settings.Secure.LOCATION_MODE);
+            mode = diagnostic.deviceState.getSecureSetting(Settings.Secure.LOCATION_MODE);
         }else{ // Pre-Kitkat and post-Oreo
             if(isLocationProviderEnabled(LocationManager.GPS_PROVIDER) && isLocationProviderEnabled(LocationManager.NETWORK_PROVIDER)){
                 mode = 3;
@@ -291,13 +370,14 @@ public class Diagnostic_Location extends CordovaPlugin{
     }
 
     private boolean isLocationAuthorized() throws Exception {
-        boolean authorized = diagnostic.hasRuntimePermission(diagnostic.permissionsMap.get(gpsLocationPermission)) || diagnostic.hasRuntimePermission(diagnostic.permissionsMap.get(networkLocationPermission));
+        boolean authorized = diagnostic._getPermissionStatusCode(DiagnosticPermission.ACCESS_FINE_LOCATION) == Diagnostic.STATUS_CODE_GRANTED
+                || diagnostic._getPermissionStatusCode(DiagnosticPermission.ACCESS_COARSE_LOCATION) == Diagnostic.STATUS_CODE_GRANTED;
         Log.v(TAG, "Location permission is "+(authorized ? "authorized" : "unauthorized"));
         return authorized;
     }
 
     private boolean isLocationProviderEnabled(String provider) {
-        return locationManager.isProviderEnabled(provider);
+        return diagnostic.deviceState.isLocationProviderEnabled(provider);
     }
 
 
@@ -305,6 +385,30 @@ public class Diagnostic_Location extends CordovaPlugin{
      * Overrides
      ***********/
 
+    /**
+     * Handles location provider change broadcasts while JS has a location state change handler
+     */
+    protected final DiagnosticEventBus.Source locationStateSource = new DiagnosticEventBus.Source() {
+        @Override
+        public void start() {
+            locationModeMirror.startTracking();
+            try {
+                currentLocationMode = getLocationModeName();
+            }catch(Exception e){
+                diagnostic.logWarning("Unable to get initial location mode: " + e.getMessage());
+            }
+            diagnostic.broadcasts.register(LocationManager.PROVIDERS_CHANGED_ACTION, locationProviderChangedReceiver);
+        }
+
+        @Override
+        public void stop() {
+            diagnostic.broadcasts.unregister(LocationManager.PROVIDERS_CHANGED_ACTION, locationProviderChangedReceiver);
+            locationStateChanges.cancel();
+            locationModeMirror.stopTracking();
+            currentLocationMode = null;
+        }
+    };
+
     protected final BroadcastReceiver locationProviderChangedReceiver = new BroadcastReceiver() {
         @Override
         public void onReceive(Context context, Intent intent) {
@@ -312,7 +416,8 @@ public class Diagnostic_Location extends CordovaPlugin{
             final String action = intent.getAction();
             if(instance != null && action.equals(LocationManager.PROVIDERS_CHANGED_ACTION)){
                 Log.v(TAG, "onReceiveLocationProviderChange");
-                instance.notifyLocationStateChange();
+                instance.locationModeMirror.invalidate();
+                instance.locationStateChanges.signal(intent);
             }
         } catch (Exception e) {
             diagnostic.logError("Error receiving location provider state change: "+e.toString());
@@ -25,7 +25,6 @@ package cordova.plugins;
 import android.content.BroadcastReceiver;
 import android.content.Context;
 import android.content.Intent;
-import android.content.IntentFilter;
 import android.provider.Settings;
 import android.util.Log;
 
@@ -34,6 +33,7 @@ import org.apache.cordova.CordovaInterface;
 import org.apache.cordova.CordovaPlugin;
 import org.apache.cordova.CordovaWebView;
 import org.json.JSONArray;
+import org.json.JSONObject;
 import org.json.JSONException;
 
 import android.nfc.NfcAdapter;
@@ -50,6 +50,11 @@ public class Diagnostic_NFC extends CordovaPlugin{
      * Constants *
      *************/
 
+    /**
+     * Type of the event sent to JS when the NFC state changes
+     */
+    public static final String EVENT_NFC_STATE = "nfcState";
+
     public static final int NFC_STATE_VALUE_UNKNOWN = 0;
     public static final int NFC_STATE_VALUE_OFF = 1;
     public static final int NFC_STATE_VALUE_TURNING_ON = 2;
@@ -83,11 +88,21 @@ public class Diagnostic_NFC extends CordovaPlugin{
     private Diagnostic diagnostic;
 
     /**
-     * Current Cordova callback context (on this thread)
+     * Handlers for the actions exposed by this module
+     */
+    protected DiagnosticActionRegistry actions;
+
+    protected volatile String currentNFCState = NFC_STATE_UNKNOWN;
+
+    /**
+     * Coalesces bursts of NFC state change broadcasts
      */
-    protected CallbackContext currentContext;
+    protected DiagnosticEventCoalescer nfcStateChanges;
 
-    protected String currentNFCState = NFC_STATE_UNKNOWN;
+    /**
+     * Whether NFC is enabled, mirrored while the NFC state change receiver is registered
+     */
+    protected final DiagnosticStateMirror<Boolean> nfcEnabledMirror = new DiagnosticStateMirror<Boolean>(Diagnostic.STATE_MIRROR_MAX_AGE_MS);
 
 
     /*************
@@ -111,18 +126,18 @@ public class Diagnostic_NFC extends CordovaPlugin{
         instance = this;
         diagnostic = Diagnostic.getInstance();
 
-        try {
-            diagnostic.applicationContext.registerReceiver(NFCStateChangedReceiver, new IntentFilter(NfcAdapter.ACTION_ADAPTER_STATE_CHANGED));
-            nfcManager = (NfcManager) diagnostic.applicationContext.getSystemService(Context.NFC_SERVICE);
-        }catch(Exception e){
-            diagnostic.logWarning("Unable to register NFC state change receiver: " + e.getMessage());
-        }
+        nfcManager = (NfcManager) diagnostic.applicationContext.getSystemService(Context.NFC_SERVICE);
+        nfcStateChanges = diagnostic.createEventCoalescer(new DiagnosticEventCoalescer.Target() {
+            @Override
+            public void deliver(Intent intent, int absorbed) {
+                notifyNFCStateChange(intent.getIntExtra(EXTRA_ADAPTER_STATE, -1), absorbed);
+            }
+        });
+        diagnostic.eventBus.registerSource(EVENT_NFC_STATE, nfcStateSource);
 
-        try {
-            currentNFCState = isNFCAvailable() ? NFC_STATE_ON : NFC_STATE_OFF;
-        }catch(Exception e){
-            diagnostic.logWarning("Unable to get initial NFC state: " + e.getMessage());
-        }
+        actions = new DiagnosticActionRegistry(diagnostic);
+        registerActions();
+        registerSnapshotProviders();
 
         super.initialize(cordova, webView);
     }
@@ -131,11 +146,7 @@ public class Diagnostic_NFC extends CordovaPlugin{
      * Called on destroying activity
      */
     public void onDestroy() {
-        try {
-            diagnostic.applicationContext.unregisterReceiver(NFCStateChangedReceiver);
-        }catch(Exception e){
-            diagnostic.logWarning("Unable to unregister NFC state change receiver: " + e.getMessage());
-        }
+        diagnostic.eventBus.unregisterSource(EVENT_NFC_STATE);
     }
 
 
@@ -148,27 +159,53 @@ public class Diagnostic_NFC extends CordovaPlugin{
      * @return                  True if the action was valid, false if not.
      */
     public boolean execute(String action, JSONArray args, CallbackContext callbackContext) throws JSONException {
-        Diagnostic.instance.currentContext = currentContext = callbackContext;
+        return actions.dispatch(action, args, callbackContext);
+    }
 
-        try {
-            if (action.equals("switchToNFCSettings")){
+    /**
+     * Registers the providers of this module's sections of the diagnostic snapshot.
+     */
+    protected void registerSnapshotProviders() {
+        diagnostic.registerSnapshotProvider("nfc", new DiagnosticSnapshot.Provider() {
+            @Override
+            public JSONObject getSnapshot() throws Exception {
+                JSONObject section = new JSONObject();
+                section.put("present", isNFCPresent());
+                section.put("enabled", isNFCEnabled());
+                return section;
+            }
+        });
+    }
+
+    /**
+     * Registers the handlers for the actions exposed by this module.
+     */
+    protected void registerActions() {
+        actions.register("switchToNFCSettings", DiagnosticActionRegistry.ThreadPolicy.UI, new DiagnosticActionRegistry.Action() {
+            @Override
+            public void execute(JSONArray args, CallbackContext callbackContext) throws Exception {
                 switchToNFCSettings();
                 callbackContext.success();
-            } else if(action.equals("isNFCPresent")) {
+            }
+        });
+        actions.register("isNFCPresent", new DiagnosticActionRegistry.Action() {
+            @Override
+            public void execute(JSONArray args, CallbackContext callbackContext) throws Exception {
                 callbackContext.success(isNFCPresent() ? 1 : 0);
-            } else if(action.equals("isNFCEnabled")) {
+            }
+        });
+        actions.register("isNFCEnabled", new DiagnosticActionRegistry.Action() {
+            @Override
+            public void execute(JSONArray args, CallbackContext callbackContext) throws Exception {
                 callbackContext.success(isNFCEnabled() ? 1 : 0);
-            } else if(action.equals("isNFCAvailable")) {
+            }
+        });
+        actions.register("isNFCAvailable", new DiagnosticActionRegistry.Action() {
+            @Override
+            public void execute(JSONArray args, CallbackContext callbackContext) throws Exception {
                 callbackContext.success(isNFCAvailable() ? 1 : 0);
-            } else {
-                diagnostic.handleError("Invalid action");
-                return false;
             }
-        }catch(Exception e ) {
-            diagnostic.handleError("Exception occurred: ".concat(e.getMessage()));
-            return false;
-        }
-        return true;
+        });
     }
 
 
@@ -188,8 +225,7 @@ public class Diagnostic_NFC extends CordovaPlugin{
     public boolean isNFCPresent() {
         boolean result = false;
         try {
-            NfcAdapter adapter = nfcManager.getDefaultAdapter();
-            result = adapter != null;
+            result = diagnostic.deviceState.hasNfcAdapter();
         }catch(Exception e){
             diagnostic.logError(e.getMessage());
         }
@@ -197,10 +233,15 @@ public class Diagnostic_NFC extends CordovaPlugin{
     }
 
     public boolean isNFCEnabled() {
+        Boolean mirrored = nfcEnabledMirror.get();
+        if(mirrored != null){
+            return mirrored;
+        }
         boolean result = false;
         try {
-            NfcAdapter adapter = nfcManager.getDefaultAdapter();
-            result = adapter != null && adapter.isEnabled();
+            int generation = nfcEnabledMirror.getGeneration();
+            result = diagnostic.deviceState.isNfcEnabled();
+            nfcEnabledMirror.put(result, generation);
         }catch(Exception e){
             diagnostic.logError(e.getMessage());
         }
@@ -213,11 +254,19 @@ public class Diagnostic_NFC extends CordovaPlugin{
     }
 
     public void notifyNFCStateChange(int stateValue){
+        notifyNFCStateChange(stateValue, 1);
+    }
+
+    /**
+     * @param stateValue    NfcAdapter.STATE_* from the last state change broadcast
+     * @param absorbed      Number of state change broadcasts coalesced into this notification
+     */
+    public void notifyNFCStateChange(int stateValue, int absorbed){
         String newState = getNFCState(stateValue);
         try {
             if(newState != currentNFCState){
                 diagnostic.logDebug("NFC state changed to: " + newState);
-                diagnostic.executePluginJavascript("nfc._onNFCStateChange(\"" + newState +"\");");
+                diagnostic.publishEvent(EVENT_NFC_STATE, newState, absorbed);
                 currentNFCState = newState;
             }
         }catch(Exception e){
@@ -251,6 +300,30 @@ public class Diagnostic_NFC extends CordovaPlugin{
      * Overrides
      ***********/
 
+    /**
+     * Handles NFC state change broadcasts while JS has an NFC state change handler
+     */
+    protected final DiagnosticEventBus.Source nfcStateSource = new DiagnosticEventBus.Source() {
+        @Override
+        public void start() {
+            nfcEnabledMirror.startTracking();
+            try {
+                currentNFCState = isNFCAvailable() ? NFC_STATE_ON : NFC_STATE_OFF;
+            }catch(Exception e){
+                diagnostic.logWarning("Unable to get initial NFC state: " + e.getMessage());
+            }
+            diagnostic.broadcasts.register(NfcAdapter.ACTION_ADAPTER_STATE_CHANGED, NFCStateChangedReceiver);
+        }
+
+        @Override
+        public void stop() {
+            diagnostic.broadcasts.unregister(NfcAdapter.ACTION_ADAPTER_STATE_CHANGED, NFCStateChangedReceiver);
+            nfcStateChanges.cancel();
+            nfcEnabledMirror.stopTracking();
+            currentNFCState = NFC_STATE_UNKNOWN;
+        }
+    };
+
     protected final BroadcastReceiver NFCStateChangedReceiver = new BroadcastReceiver() {
         @Override
         public void onReceive(Context context, Intent intent) {
@@ -259,8 +332,13 @@ public class Diagnostic_NFC extends CordovaPlugin{
             if(instance != null && action.equals(NfcAdapter.ACTION_ADAPTER_STATE_CHANGED)){
 
                 Log.v(TAG, "onReceiveNFCStateChange");
-                final int stateValue = intent.getIntExtra(EXTRA_ADAPTER_STATE, -1);
-                instance.notifyNFCStateChange(stateValue);
+                int stateValue = intent.getIntExtra(EXTRA_ADAPTER_STATE, -1);
+                if(instance.getNFCState(stateValue) != NFC_STATE_UNKNOWN){
+                    instance.nfcEnabledMirror.update(stateValue == NFC_STATE_VALUE_ON);
+                }else{
+                    instance.nfcEnabledMirror.invalidate();
+                }
+                instance.nfcStateChanges.signal(intent);
             }
         } catch (Exception e) {
             diagnostic.logError("Error receiving NFC state change: "+e.toString());
@@ -31,7 +31,6 @@ import android.content.pm.ApplicationInfo;
 import android.content.pm.PackageManager;
 import android.net.Uri;
 import android.os.Build;
-import android.os.PowerManager;
 import android.provider.Settings;
 import android.util.Log;
 
@@ -40,9 +39,11 @@ import org.apache.cordova.CordovaInterface;
 import org.apache.cordova.CordovaPlugin;
 import org.apache.cordova.CordovaWebView;
 import org.json.JSONArray;
+import org.json.JSONObject;
 import org.json.JSONException;
 
-import androidx.core.app.NotificationManagerCompat;
+import java.util.concurrent.Callable;
+
 
 import androidx.annotation.NonNull;
 import androidx.annotation.RequiresApi;
@@ -77,9 +78,9 @@ public class Diagnostic_Notifications extends CordovaPlugin {
   private Diagnostic diagnostic;
 
   /**
-   * Current Cordova callback context (on this thread)
+   * Handlers for the actions exposed by this module
    */
-  protected CallbackContext currentContext;
+  protected DiagnosticActionRegistry actions;
 
 
   /*************
@@ -105,6 +106,10 @@ public class Diagnostic_Notifications extends CordovaPlugin {
     instance = this;
     diagnostic = Diagnostic.getInstance();
 
+    actions = new DiagnosticActionRegistry(diagnostic);
+    registerActions();
+    registerSnapshotProviders();
+
     super.initialize(cordova, webView);
   }
 
@@ -118,37 +123,65 @@ public class Diagnostic_Notifications extends CordovaPlugin {
    * @return True if the action was valid, false if not.
    */
   public boolean execute(String action, JSONArray args, CallbackContext callbackContext) throws JSONException {
-    Diagnostic.instance.currentContext = currentContext = callbackContext;
+    return actions.dispatch(action, args, callbackContext);
+  }
 
-    try {
-      if (action.equals("isRemoteNotificationsEnabled")) {
+  /**
+   * Registers the providers of this module's sections of the diagnostic snapshot.
+   */
+  protected void registerSnapshotProviders() {
+    diagnostic.registerSnapshotProvider("notifications", new DiagnosticSnapshot.Provider() {
+      @Override
+      public JSONObject getSnapshot() throws Exception {
+        JSONObject section = new JSONObject();
+        section.put("remoteNotificationsEnabled", isRemoteNotificationsEnabled());
+        return section;
+      }
+    });
+  }
+
+  /**
+   * Registers the handlers for the actions exposed by this module.
+   */
+  protected void registerActions() {
+    actions.register("isRemoteNotificationsEnabled", new DiagnosticActionRegistry.Action() {
+      @Override
+      public void execute(JSONArray args, CallbackContext callbackContext) throws Exception {
         callbackContext.success(isRemoteNotificationsEnabled() ? 1 : 0);
-      } else if (action.equals("switchToNotificationSettings")) {
+      }
+    });
+    actions.register("switchToNotificationSettings", DiagnosticActionRegistry.ThreadPolicy.UI, new DiagnosticActionRegistry.Action() {
+      @Override
+      public void execute(JSONArray args, CallbackContext callbackContext) throws Exception {
         switchToNotificationSettings();
         callbackContext.success();
-      } else if (action.equals("requestIgnoreBatteryOptimizations")) {
+      }
+    });
+    actions.register("requestIgnoreBatteryOptimizations", DiagnosticActionRegistry.ThreadPolicy.UI, new DiagnosticActionRegistry.Action() {
+      @Override
+      public void execute(JSONArray args, CallbackContext callbackContext) throws Exception {
         requestIgnoreBatteryOptimizations();
         callbackContext.success();
-      } else if (action.equals("switchToActiveInBackgroundSetting")) {
+      }
+    });
+    actions.register("switchToActiveInBackgroundSetting", DiagnosticActionRegistry.ThreadPolicy.UI, new DiagnosticActionRegistry.Action() {
+      @Override
+      public void execute(JSONArray args, CallbackContext callbackContext) throws Exception {
         switchToActiveInBackgroundSetting();
         callbackContext.success();
-      } else if (action.equals("getDownloadChannels")) {
-        getDownloadChannels(args);
-      } else {
-        diagnostic.handleError("Invalid action");
-        return false;
       }
-    } catch (Exception e) {
-      diagnostic.handleError("Exception occurred: ".concat(e.getMessage()));
-      return false;
-    }
-    return true;
+    });
+    actions.register("getDownloadChannels", DiagnosticActionRegistry.ThreadPolicy.BACKGROUND, new DiagnosticActionRegistry.Action() {
+      @Override
+      public void execute(JSONArray args, CallbackContext callbackContext) throws Exception {
+        getDownloadChannels(args, callbackContext);
+      }
+    });
   }
 
 
   public boolean isRemoteNotificationsEnabled() {
-    NotificationManagerCompat notificationManagerCompat = NotificationManagerCompat.from(this.cordova.getActivity().getApplicationContext());
-    boolean result = notificationManagerCompat.areNotificationsEnabled();
+    boolean result = diagnostic.deviceState.areNotificationsEnabled();
     return result;
   }
 
@@ -170,15 +203,7 @@ public class Diagnostic_Notifications extends CordovaPlugin {
 
   // 检查电池白名单
   private boolean isIgnoringBatteryOptimizations() {
-    boolean isIgnoring = false;
-
-    if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
-      PowerManager powerManager = (PowerManager) cordova.getActivity().getSystemService(Context.POWER_SERVICE);
-      if (powerManager != null) {
-        isIgnoring = powerManager.isIgnoringBatteryOptimizations(cordova.getActivity().getPackageName());
-      }
-    }
-    return isIgnoring;
+    return diagnostic.deviceState.isIgnoringBatteryOptimizations();
   }
 
   // 加入电池白名单
@@ -359,12 +384,17 @@ public class Diagnostic_Notifications extends CordovaPlugin {
 
   /**
    * 获取App下载渠道
+   * Manifest meta-data does not change while the app is running, so each key is looked up once per process.
    */
-  public void getDownloadChannels(JSONArray args) throws Exception{
-    String key = args.getString(0);
-    PackageManager pm = cordova.getContext().getPackageManager();
-    ApplicationInfo appInfo = pm.getApplicationInfo(cordova.getContext().getPackageName(), PackageManager.GET_META_DATA);
-    currentContext.success(appInfo.metaData.getString(key));
+  public void getDownloadChannels(JSONArray args, CallbackContext callbackContext) throws Exception{
+    final String key = args.getString(0);
+    callbackContext.success(diagnostic.memo.get("getDownloadChannels:" + key, DiagnosticMemo.PROCESS_LIFETIME, new Callable<String>() {
+      @Override
+      public String call() throws Exception {
+        ApplicationInfo appInfo = diagnostic.deviceState.getApplicationInfo(PackageManager.GET_META_DATA);
+        return appInfo.metaData.getString(key);
+      }
+    }));
   }
 
   /************
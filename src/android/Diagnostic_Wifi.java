@@ -22,9 +22,7 @@ package cordova.plugins;
  * Imports
  */
 
-import android.content.Context;
 import android.content.Intent;
-import android.net.wifi.WifiManager;
 import android.provider.Settings;
 import android.util.Log;
 
@@ -33,6 +31,7 @@ import org.apache.cordova.CordovaInterface;
 import org.apache.cordova.CordovaPlugin;
 import org.apache.cordova.CordovaWebView;
 import org.json.JSONArray;
+import org.json.JSONObject;
 import org.json.JSONException;
 
 /**
@@ -64,9 +63,9 @@ public class Diagnostic_Wifi extends CordovaPlugin{
     private Diagnostic diagnostic;
 
     /**
-     * Current Cordova callback context (on this thread)
+     * Handlers for the actions exposed by this module
      */
-    protected CallbackContext currentContext;
+    protected DiagnosticActionRegistry actions;
 
 
     /*************
@@ -90,6 +89,10 @@ public class Diagnostic_Wifi extends CordovaPlugin{
         instance = this;
         diagnostic = Diagnostic.getInstance();
 
+        actions = new DiagnosticActionRegistry(diagnostic);
+        registerActions();
+        registerSnapshotProviders();
+
         super.initialize(cordova, webView);
     }
 
@@ -103,31 +106,51 @@ public class Diagnostic_Wifi extends CordovaPlugin{
      * @return                  True if the action was valid, false if not.
      */
     public boolean execute(String action, JSONArray args, CallbackContext callbackContext) throws JSONException {
-        Diagnostic.instance.currentContext = currentContext = callbackContext;
+        return actions.dispatch(action, args, callbackContext);
+    }
+
+    /**
+     * Registers the providers of this module's sections of the diagnostic snapshot.
+     */
+    protected void registerSnapshotProviders() {
+        diagnostic.registerSnapshotProvider("wifi", new DiagnosticSnapshot.Provider() {
+            @Override
+            public JSONObject getSnapshot() throws Exception {
+                JSONObject section = new JSONObject();
+                section.put("available", isWifiAvailable());
+                return section;
+            }
+        });
+    }
 
-        try {
-            if (action.equals("switchToWifiSettings")){
+    /**
+     * Registers the handlers for the actions exposed by this module.
+     */
+    protected void registerActions() {
+        actions.register("switchToWifiSettings", DiagnosticActionRegistry.ThreadPolicy.UI, new DiagnosticActionRegistry.Action() {
+            @Override
+            public void execute(JSONArray args, CallbackContext callbackContext) throws Exception {
                 switchToWifiSettings();
                 callbackContext.success();
-            } else if(action.equals("isWifiAvailable")) {
+            }
+        });
+        actions.register("isWifiAvailable", new DiagnosticActionRegistry.Action() {
+            @Override
+            public void execute(JSONArray args, CallbackContext callbackContext) throws Exception {
                 callbackContext.success(isWifiAvailable() ? 1 : 0);
-            } else if(action.equals("setWifiState")) {
+            }
+        });
+        actions.register("setWifiState", new DiagnosticActionRegistry.Action() {
+            @Override
+            public void execute(JSONArray args, CallbackContext callbackContext) throws Exception {
                 setWifiState(args.getBoolean(0));
                 callbackContext.success();
-            } else {
-                diagnostic.handleError("Invalid action");
-                return false;
             }
-        }catch(Exception e ) {
-            diagnostic.handleError("Exception occurred: ".concat(e.getMessage()));
-            return false;
-        }
-        return true;
+        });
     }
 
     public boolean isWifiAvailable() {
-        WifiManager wifiManager = (WifiManager) this.cordova.getActivity().getApplicationContext().getSystemService(Context.WIFI_SERVICE);
-        boolean result = wifiManager.isWifiEnabled();
+        boolean result = diagnostic.deviceState.isWifiEnabled();
         return result;
     }
 
@@ -138,11 +161,11 @@ public class Diagnostic_Wifi extends CordovaPlugin{
     }
 
     public void setWifiState(boolean enable) {
-        WifiManager wifiManager = (WifiManager) this.cordova.getActivity().getApplicationContext().getSystemService(Context.WIFI_SERVICE);
-        if (enable && !wifiManager.isWifiEnabled()) {
-            wifiManager.setWifiEnabled(true);
-        } else if (!enable && wifiManager.isWifiEnabled()) {
-            wifiManager.setWifiEnabled(false);
+        DiagnosticDeviceStateProvider deviceState = diagnostic.deviceState;
+        if (enable && !deviceState.isWifiEnabled()) {
+            deviceState.setWifiEnabled(true);
+        } else if (!enable && deviceState.isWifiEnabled()) {
+            deviceState.setWifiEnabled(false);
         }
     }
 
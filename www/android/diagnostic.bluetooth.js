@@ -62,7 +62,7 @@ var Diagnostic_Bluetooth = (function(){
      *  This callback function is passed a single string parameter containing the error message.
      */
     Diagnostic_Bluetooth.isBluetoothAvailable = function(successCallback, errorCallback) {
-        return cordova.exec(Diagnostic._ensureBoolean(successCallback),
+        return Diagnostic._exec(Diagnostic._ensureBoolean(successCallback),
             errorCallback,
             'Diagnostic_Bluetooth',
             'isBluetoothAvailable',
@@ -78,7 +78,7 @@ var Diagnostic_Bluetooth = (function(){
      *  This callback function is passed a single string parameter containing the error message.
      */
     Diagnostic_Bluetooth.isBluetoothEnabled = function(successCallback, errorCallback) {
-        return cordova.exec(Diagnostic._ensureBoolean(successCallback),
+        return Diagnostic._exec(Diagnostic._ensureBoolean(successCallback),
             errorCallback,
             'Diagnostic_Bluetooth',
             'isBluetoothEnabled',
@@ -110,7 +110,7 @@ var Diagnostic_Bluetooth = (function(){
      *  This callback function is passed a single string parameter containing the error message.
      */
     Diagnostic_Bluetooth.getBluetoothState = function(successCallback, errorCallback) {
-        return cordova.exec(successCallback,
+        return Diagnostic._exec(successCallback,
             errorCallback,
             'Diagnostic_Bluetooth',
             'getBluetoothState',
@@ -126,6 +126,13 @@ var Diagnostic_Bluetooth = (function(){
      */
     Diagnostic_Bluetooth.registerBluetoothStateChangeHandler = function(successCallback) {
         Diagnostic_Bluetooth._onBluetoothStateChange = successCallback || function(){};
+        if(successCallback){
+            Diagnostic._subscribeEvents("bluetoothState", function(state){
+                Diagnostic_Bluetooth._onBluetoothStateChange(state);
+            });
+        }else{
+            Diagnostic._unsubscribeEvents("bluetoothState");
+        }
     };
 
 
@@ -139,7 +146,7 @@ var Diagnostic_Bluetooth = (function(){
      *  This callback function is passed a single string parameter containing the error message.
      */
     Diagnostic_Bluetooth.hasBluetoothSupport = function(successCallback, errorCallback) {
-        return cordova.exec(Diagnostic._ensureBoolean(successCallback),
+        return Diagnostic._exec(Diagnostic._ensureBoolean(successCallback),
             errorCallback,
             'Diagnostic_Bluetooth',
             'hasBluetoothSupport', []);
@@ -155,7 +162,7 @@ var Diagnostic_Bluetooth = (function(){
      *  This callback function is passed a single string parameter containing the error message.
      */
     Diagnostic_Bluetooth.hasBluetoothLESupport = function(successCallback, errorCallback) {
-        return cordova.exec(Diagnostic._ensureBoolean(successCallback),
+        return Diagnostic._exec(Diagnostic._ensureBoolean(successCallback),
             errorCallback,
             'Diagnostic_Bluetooth',
             'hasBluetoothLESupport', []);
@@ -171,7 +178,7 @@ var Diagnostic_Bluetooth = (function(){
      *  This callback function is passed a single string parameter containing the error message.
      */
     Diagnostic_Bluetooth.hasBluetoothLESupport = function(successCallback, errorCallback) {
-        return cordova.exec(Diagnostic._ensureBoolean(successCallback),
+        return Diagnostic._exec(Diagnostic._ensureBoolean(successCallback),
             errorCallback,
             'Diagnostic_Bluetooth',
             'hasBluetoothLESupport', []);
@@ -187,7 +194,7 @@ var Diagnostic_Bluetooth = (function(){
      *  This callback function is passed a single string parameter containing the error message.
      */
     Diagnostic_Bluetooth.hasBluetoothLEPeripheralSupport = function(successCallback, errorCallback) {
-        return cordova.exec(Diagnostic._ensureBoolean(successCallback),
+        return Diagnostic._exec(Diagnostic._ensureBoolean(successCallback),
             errorCallback,
             'Diagnostic_Bluetooth',
             'hasBluetoothLEPeripheralSupport', []);
@@ -244,7 +251,7 @@ var Diagnostic_Bluetooth = (function(){
      *  This callback function is passed a single string parameter containing the error message.
      */
     Diagnostic_Bluetooth.getAuthorizationStatuses = function(successCallback, errorCallback) {
-        return cordova.exec(successCallback,
+        return Diagnostic._exec(successCallback,
             errorCallback,
             'Diagnostic_Bluetooth',
             'getAuthorizationStatuses',
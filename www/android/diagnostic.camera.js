@@ -116,7 +116,7 @@ var Diagnostic_Camera = (function(){
      *  This callback function is passed a single string parameter containing the error message.
      */
     Diagnostic_Camera.isCameraPresent = function(successCallback, errorCallback) {
-        return cordova.exec(Diagnostic._ensureBoolean(successCallback),
+        return Diagnostic._exec(Diagnostic._ensureBoolean(successCallback),
             errorCallback,
             'Diagnostic_Camera',
             'isCameraPresent',
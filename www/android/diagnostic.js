@@ -13,8 +13,34 @@ var Diagnostic = (function(){
      *********************/
     var Diagnostic = {};
 
-    // Indicates if a runtime permissions request is in progress
-    var requestInProgress = false;
+    // Number of runtime permissions requests in progress
+    var requestsInProgress = 0;
+
+    // Indicates if bulk status queries request compact results
+    var compactResults = false;
+
+    // Permission names by ordinal and status names by code, used to decode compact results
+    var compactStatusTable = null;
+
+    // Value of a permission which was not queried in a compact result
+    var COMPACT_STATUS_NONE = 0xFF;
+
+    // Indicates if the native log channel has been opened
+    var logChannelOpen = false;
+
+    // cordova.exec() calls made in the current tick, to be sent to native as a single batch
+    var execQueue = null;
+
+    // Handler for each native event type subscribed to, keyed by type
+    var eventHandlers = {};
+
+    // JS console method for each native log level
+    var logConsoleMethods = {
+        "debug": "log",
+        "info": "info",
+        "warn": "warn",
+        "error": "error"
+    };
 
     /********************
      *
@@ -132,6 +158,78 @@ var Diagnostic = (function(){
         return valid;
     }
 
+    /**
+     * Sends the cordova.exec() calls queued in the current tick to native in a single "batch" action
+     * and dispatches each call's result to its own success or error callback.
+     */
+    function flushExecQueue(){
+        var calls = execQueue;
+        execQueue = null;
+        if(calls.length === 1){
+            var call = calls[0];
+            cordova.exec(call.successCallback, call.errorCallback, call.service, call.action, call.args);
+            return;
+        }
+        cordova.exec(function(results){
+            results.forEach(function(result, i){
+                if(!result) return; // completed with no result
+                var callback = result.ok ? calls[i].successCallback : calls[i].errorCallback;
+                if(callback) callback(result.message);
+            });
+        }, function(error){
+            calls.forEach(function(call){
+                if(call.errorCallback) call.errorCallback(error);
+            });
+        }, 'Diagnostic', 'batch', [calls.map(function(call){
+            return [call.service, call.action, call.args];
+        })]);
+    }
+
+    /**
+     * Retrieves the table used to decode compact results, which is fetched once from the native layer.
+     */
+    function getCompactStatusTable(successCallback, errorCallback){
+        if(compactStatusTable) return successCallback(compactStatusTable);
+        cordova.exec(function(table){
+            compactStatusTable = table;
+            successCallback(table);
+        }, errorCallback, 'Diagnostic', 'getCompactStatusTable', []);
+    }
+
+    /**
+     * Decodes a compact status result to a key/value map of permission to status.
+     * @param {ArrayBuffer|Array} data - status code of each permission, indexed by permission ordinal
+     */
+    function decodeCompactStatuses(data){
+        var codes = new Uint8Array(data),
+            statuses = {};
+        for(var i = 0; i < codes.length; i++){
+            if(codes[i] !== COMPACT_STATUS_NONE){
+                statuses[compactStatusTable.permissions[i]] = compactStatusTable.statuses[codes[i]];
+            }
+        }
+        return statuses;
+    }
+
+    /**
+     * Opens the persistent callback through which native log messages are sent in batches to the JS console.
+     * @param {String} logLevel - minimum level of native messages to receive
+     */
+    function openLogChannel(logLevel){
+        if(logChannelOpen) return;
+        logChannelOpen = true;
+        cordova.exec(function(batch){
+            batch.entries.forEach(function(entry){
+                console[logConsoleMethods[entry.level] || "log"]("Diagnostic[native]: " + entry.message);
+            });
+            if(batch.dropped > 0){
+                console.warn("Diagnostic[native]: " + batch.dropped + " log messages dropped");
+            }
+        }, function(){
+            logChannelOpen = false;
+        }, 'Diagnostic', 'openLogChannel', [logLevel || "debug"]);
+    }
+
 
 
     /*****************************
@@ -146,6 +244,53 @@ var Diagnostic = (function(){
         }
     };
 
+    /**
+     * Queues a cordova.exec() call to be sent to native with any other calls made in the same tick.
+     * Only for actions which call back exactly once.
+     * Takes the same arguments as cordova.exec().
+     */
+    Diagnostic._exec = function(successCallback, errorCallback, service, action, args){
+        if(!execQueue){
+            execQueue = [];
+            Promise.resolve().then(flushExecQueue);
+        }
+        execQueue.push({
+            successCallback: successCallback,
+            errorCallback: errorCallback,
+            service: service,
+            action: action,
+            args: args || []
+        });
+    };
+
+    /**
+     * Subscribes to native state change events of the given type, replacing any existing handler for the type.
+     * @param {String} type - event type, e.g. "bluetoothState"
+     * @param {Function} handler - called with the new state and the event object: {type, state, timestamp, absorbed}, where absorbed is the number of native broadcasts coalesced into the event
+     */
+    Diagnostic._subscribeEvents = function(type, handler){
+        var subscribed = !!eventHandlers[type];
+        eventHandlers[type] = handler;
+        if(subscribed) return;
+        cordova.exec(function(event){
+            var eventHandler = eventHandlers[event.type];
+            if(eventHandler) eventHandler(event.state, event);
+        }, function(error){
+            delete eventHandlers[type];
+            console.error("Diagnostic: failed to subscribe to "+type+" events: "+error);
+        }, 'Diagnostic', 'subscribeEvents', [type]);
+    };
+
+    /**
+     * Removes the subscription to native state change events of the given type.
+     * @param {String} type - event type, e.g. "bluetoothState"
+     */
+    Diagnostic._unsubscribeEvents = function(type){
+        if(!eventHandlers[type]) return;
+        delete eventHandlers[type];
+        cordova.exec(null, null, 'Diagnostic', 'unsubscribeEvents', [type]);
+    };
+
     /**********************
      *
      * Public API functions
@@ -162,8 +307,10 @@ var Diagnostic = (function(){
      * Debug mode is initially disabled on plugin initialisation.
      *
      * @param {Function} successCallback - The callback which will be called when enabling debug is successful.
+     * @param {String} logLevel - (Optional) minimum level of native messages to log to the JS console: "debug", "info", "warn" or "error". Defaults to "debug".
      */
-    Diagnostic.enableDebug = function(successCallback) {
+    Diagnostic.enableDebug = function(successCallback, logLevel) {
+        openLogChannel(logLevel);
         return cordova.exec(successCallback,
             null,
             'Diagnostic',
@@ -199,7 +346,7 @@ var Diagnostic = (function(){
     Diagnostic.getPermissionAuthorizationStatus = function(successCallback, errorCallback, permission){
         if(!checkForInvalidPermissions(permission, errorCallback)) return;
 
-        return cordova.exec(
+        return Diagnostic._exec(
             successCallback,
             errorCallback,
             'Diagnostic',
@@ -220,12 +367,36 @@ var Diagnostic = (function(){
     Diagnostic.getPermissionsAuthorizationStatus = function(successCallback, errorCallback, permissions){
         if(!checkForInvalidPermissions(permissions, errorCallback)) return;
 
-        return cordova.exec(
-            successCallback,
+        if(!compactResults){
+            return Diagnostic._exec(
+                successCallback,
+                errorCallback,
+                'Diagnostic',
+                'getPermissionsAuthorizationStatus',
+                [permissions]);
+        }
+
+        getCompactStatusTable(function(){
+            Diagnostic._exec(function(data){
+                successCallback(decodeCompactStatuses(data));
+            },
             errorCallback,
             'Diagnostic',
             'getPermissionsAuthorizationStatus',
-            [permissions]);
+            [permissions, true]);
+        }, errorCallback);
+    };
+
+    /**
+     * Enables or disables compact results for bulk status queries.
+     * When enabled, getPermissionsAuthorizationStatus() receives the statuses from the native layer as a byte per permission
+     * rather than as a JSON object, which is decoded to the same result.
+     * This reduces the serialization cost of frequently polling the statuses of many permissions.
+     *
+     * @param {Boolean} enabled - true to enable compact results (the default), false to disable them
+     */
+    Diagnostic.enableCompactResults = function(enabled){
+        compactResults = enabled !== false;
     };
 
 
@@ -242,22 +413,18 @@ var Diagnostic = (function(){
     Diagnostic.requestRuntimePermission = function(successCallback, errorCallback, permission) {
         if(!checkForInvalidPermissions(permission, errorCallback)) return;
 
-        if(requestInProgress){
-            return onError("A runtime permissions request is already in progress");
-        }
-
         function onSuccess(statuses){
-            requestInProgress = false;
+            requestsInProgress--;
             successCallback(statuses[permission]);
             Diagnostic._onPermissionRequestComplete(statuses);
         }
 
         function onError(error){
-            requestInProgress = false;
+            requestsInProgress--;
             errorCallback(error);
         }
 
-        requestInProgress = true;
+        requestsInProgress++;
         return cordova.exec(
             onSuccess,
             onError,
@@ -279,22 +446,18 @@ var Diagnostic = (function(){
     Diagnostic.requestRuntimePermissions = function(successCallback, errorCallback, permissions){
         if(!checkForInvalidPermissions(permissions, errorCallback)) return;
 
-        if(requestInProgress){
-            return onError("A runtime permissions request is already in progress");
-        }
-
         function onSuccess(statuses){
-            requestInProgress = false;
+            requestsInProgress--;
             successCallback(statuses);
             Diagnostic._onPermissionRequestComplete(statuses);
         }
 
         function onError(error){
-            requestInProgress = false;
+            requestsInProgress--;
             errorCallback(error);
         }
 
-        requestInProgress = true;
+        requestsInProgress++;
         return cordova.exec(
             onSuccess,
             onError,
@@ -306,14 +469,13 @@ var Diagnostic = (function(){
 
     /**
      * Indicates if the plugin is currently requesting a runtime permission via the native API.
-     * Note that only one request can be made concurrently because the native API cannot handle concurrent requests,
-     * so the plugin will invoke the error callback if attempting to make more than one simultaneous request.
-     * Multiple permission requests should be grouped into a single call since the native API is setup to handle batch requests of multiple permission groups.
+     * Note that the native API can only show one permission dialog at a time, so the plugin queues simultaneous requests:
+     * requests made within a short time of each other are merged into a single dialog and others wait until the current dialog has been dismissed.
      *
      * @return {boolean} true if a permission request is currently in progress.
      */
     Diagnostic.isRequestingPermission = function(){
-        return requestInProgress;
+        return requestsInProgress > 0;
     };
 
     /**
@@ -362,7 +524,7 @@ var Diagnostic = (function(){
      *  This callback function is passed a single string parameter containing the error message.
      */
     Diagnostic.isADBModeEnabled = function(successCallback, errorCallback) {
-        return cordova.exec(Diagnostic._ensureBoolean(successCallback),
+        return Diagnostic._exec(Diagnostic._ensureBoolean(successCallback),
             errorCallback,
             'Diagnostic',
             'isADBModeEnabled',
@@ -379,13 +541,37 @@ var Diagnostic = (function(){
      *  This callback function is passed a single string parameter containing the error message.
      */
     Diagnostic.isDeviceRooted = function(successCallback, errorCallback) {
-        return cordova.exec(Diagnostic._ensureBoolean(successCallback),
+        return Diagnostic._exec(Diagnostic._ensureBoolean(successCallback),
             errorCallback,
             'Diagnostic',
             'isDeviceRooted',
             []);
     };
 
+    /**
+     * Returns the details of the root detection behind isDeviceRooted().
+     * The detection probes run in parallel within the time set by the DiagnosticRootDetectionBudget preference (default 500ms)
+     * and run once per app process; an incomplete result (a probe timed out or failed) is reused for 30 seconds, then the probes run again.
+     *
+     * @param {Function} successCallback -  The callback which will be called when the operation is successful.
+     * This callback function is passed a single object parameter with the following fields:
+     * - {boolean} rooted - true if the score is 50 or more
+     * - {integer} score - sum of the weights of the probes which found evidence of root access, from 0 to 100
+     * - {boolean} complete - false if any probe timed out or failed
+     * - {integer} budgetMs - time the probes were allowed
+     * - {number} duration - time the detection took in milliseconds
+     * - {object} probes - result of each probe, keyed by name: status ("completed", "timeout" or "error"), detected, weight, evidence, duration and error
+     * @param {Function} errorCallback -  The callback which will be called when the operation encounters an error.
+     *  This callback function is passed a single string parameter containing the error message.
+     */
+    Diagnostic.getRootDetectionDetails = function(successCallback, errorCallback) {
+        return Diagnostic._exec(successCallback,
+            errorCallback,
+            'Diagnostic',
+            'getRootDetectionDetails',
+            []);
+    };
+
     /**
      * Restarts the application.
      * By default, a "warm" restart will be performed in which the main Cordova activity is immediately restarted, causing the Webview instance to be recreated.
@@ -416,7 +602,7 @@ var Diagnostic = (function(){
      *  This callback function is passed a single string parameter containing the error message.
      */
     Diagnostic.getArchitecture = function(successCallback, errorCallback) {
-        return cordova.exec(successCallback,
+        return Diagnostic._exec(successCallback,
             errorCallback,
             'Diagnostic',
             'getArchitecture',
@@ -433,7 +619,7 @@ var Diagnostic = (function(){
      *  This callback function is passed a single string parameter containing the error message.
      */
     Diagnostic.isDataRoamingEnabled = function(successCallback, errorCallback) {
-        return cordova.exec(Diagnostic._ensureBoolean(successCallback),
+        return Diagnostic._exec(Diagnostic._ensureBoolean(successCallback),
             errorCallback,
             'Diagnostic',
             'isDataRoamingEnabled',
@@ -450,7 +636,7 @@ var Diagnostic = (function(){
      *  This callback function is passed a single string parameter containing the error message.
      */
     Diagnostic.getCurrentBatteryLevel = function(successCallback, errorCallback){
-        return cordova.exec(successCallback,
+        return Diagnostic._exec(successCallback,
             errorCallback,
             'Diagnostic',
             'getCurrentBatteryLevel',
@@ -466,7 +652,7 @@ var Diagnostic = (function(){
      *  This callback function is passed a single string parameter containing the error message.
      */
     Diagnostic.isAirplaneModeEnabled = function(successCallback, errorCallback) {
-        return cordova.exec(Diagnostic._ensureBoolean(successCallback),
+        return Diagnostic._exec(Diagnostic._ensureBoolean(successCallback),
             errorCallback,
             'Diagnostic',
             'isAirplaneModeEnabled',
@@ -482,7 +668,7 @@ var Diagnostic = (function(){
      *  This callback function is passed a single string parameter containing the error message.
      */
     Diagnostic.isMobileDataEnabled = function(successCallback, errorCallback) {
-        return cordova.exec(Diagnostic._ensureBoolean(successCallback),
+        return Diagnostic._exec(Diagnostic._ensureBoolean(successCallback),
             errorCallback,
             'Diagnostic',
             'isMobileDataEnabled',
@@ -501,7 +687,7 @@ var Diagnostic = (function(){
      *  This callback function is passed a single string parameter containing the error message.
      */
     Diagnostic.getDeviceOSVersion = function(successCallback, errorCallback) {
-        return cordova.exec(successCallback,
+        return Diagnostic._exec(successCallback,
             errorCallback,
             'Diagnostic',
             'getDeviceOSVersion',
@@ -521,13 +707,73 @@ var Diagnostic = (function(){
      *  This callback function is passed a single string parameter containing the error message.
      */
     Diagnostic.getBuildOSVersion = function(successCallback, errorCallback) {
-        return cordova.exec(successCallback,
+        return Diagnostic._exec(successCallback,
             errorCallback,
             'Diagnostic',
             'getBuildOSVersion',
             []);
     };
 
+    /**
+     * Returns a snapshot of the device state reported by the loaded plugin modules, collected in a single call.
+     *
+     * @param {Function} successCallback -  The callback which will be called when the operation is successful.
+     * This callback function is passed a single object parameter with the following fields:
+     * - {object} sections - state reported by each section, keyed by section name e.g. "location"
+     * - {object} timings - time taken to collect each section in milliseconds, keyed by section name
+     * - {object} errors - error message for each section which could not be collected, keyed by section name
+     * - {number} duration - total time taken to collect the snapshot in milliseconds
+     * @param {Function} errorCallback -  The callback which will be called when the operation encounters an error.
+     *  This callback function is passed a single string parameter containing the error message.
+     * @param {Array} sections - (Optional) names of the sections to collect. If not specified, all sections of the loaded modules are collected:
+     * "device", "permissions", "location", "bluetooth", "wifi", "nfc", "camera", "notifications"
+     */
+    Diagnostic.getDiagnosticSnapshot = function(successCallback, errorCallback, sections) {
+        return Diagnostic._exec(successCallback,
+            errorCallback,
+            'Diagnostic',
+            'getDiagnosticSnapshot',
+            [sections || []]);
+    };
+
+    /**
+     * Returns the metrics recorded by the plugin for each native action since the app started or resetMetrics() was called.
+     *
+     * @param {Function} successCallback -  The callback which will be called when the operation is successful.
+     * This callback function is passed a single object parameter with the following fields:
+     * - {number} since - time at which recording started, in milliseconds since the epoch
+     * - {number} invalidActions - number of calls to actions which do not exist
+     * - {object} actions - metrics of each action which has been called, keyed by action name:
+     * calls, errors, meanMs, meanWaitMs, maxMs, p50Ms, p90Ms, p99Ms and histogramUs (call count keyed by the lower bound of each latency bucket in microseconds)
+     * - {object} permissionCache - hits, misses, invalidations and size of the permission status cache
+     * - {object} logChannel - statistics of the native log channel
+     * - {number} pendingPermissionRequests - number of permission requests awaiting a result
+     * @param {Function} errorCallback -  The callback which will be called when the operation encounters an error.
+     *  This callback function is passed a single string parameter containing the error message.
+     */
+    Diagnostic.getMetrics = function(successCallback, errorCallback) {
+        return cordova.exec(successCallback,
+            errorCallback,
+            'Diagnostic',
+            'getMetrics',
+            []);
+    };
+
+    /**
+     * Discards the metrics recorded by the plugin.
+     *
+     * @param {Function} successCallback -  The callback which will be called when the operation is successful.
+     * @param {Function} errorCallback -  The callback which will be called when the operation encounters an error.
+     *  This callback function is passed a single string parameter containing the error message.
+     */
+    Diagnostic.resetMetrics = function(successCallback, errorCallback) {
+        return cordova.exec(successCallback,
+            errorCallback,
+            'Diagnostic',
+            'resetMetrics',
+            []);
+    };
+
     /************
      * Location *
      ************/
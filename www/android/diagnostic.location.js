@@ -91,7 +91,7 @@ var Diagnostic_Location = (function(){
      *  This callback function is passed a single string parameter containing the error message.
      */
     Diagnostic_Location.isLocationAvailable = function(successCallback, errorCallback) {
-        return cordova.exec(Diagnostic._ensureBoolean(successCallback),
+        return Diagnostic._exec(Diagnostic._ensureBoolean(successCallback),
             errorCallback,
             'Diagnostic_Location',
             'isLocationAvailable',
@@ -108,7 +108,7 @@ var Diagnostic_Location = (function(){
      *  This callback function is passed a single string parameter containing the error message.
      */
     Diagnostic_Location.isLocationEnabled = function(successCallback, errorCallback) {
-        return cordova.exec(Diagnostic._ensureBoolean(successCallback),
+        return Diagnostic._exec(Diagnostic._ensureBoolean(successCallback),
             errorCallback,
             'Diagnostic_Location',
             'isLocationEnabled',
@@ -126,7 +126,7 @@ var Diagnostic_Location = (function(){
      *  This callback function is passed a single string parameter containing the error message.
      */
     Diagnostic_Location.isGpsLocationAvailable = function(successCallback, errorCallback) {
-        return cordova.exec(Diagnostic._ensureBoolean(successCallback),
+        return Diagnostic._exec(Diagnostic._ensureBoolean(successCallback),
             errorCallback,
             'Diagnostic_Location',
             'isGpsLocationAvailable',
@@ -145,7 +145,7 @@ var Diagnostic_Location = (function(){
      *  This callback function is passed a single string parameter containing the error message.
      */
     Diagnostic_Location.isGpsLocationEnabled = function(successCallback, errorCallback) {
-        return cordova.exec(Diagnostic._ensureBoolean(successCallback),
+        return Diagnostic._exec(Diagnostic._ensureBoolean(successCallback),
             errorCallback,
             'Diagnostic_Location',
             'isGpsLocationEnabled',
@@ -163,7 +163,7 @@ var Diagnostic_Location = (function(){
      *  This callback function is passed a single string parameter containing the error message.
      */
     Diagnostic_Location.isNetworkLocationAvailable = function(successCallback, errorCallback) {
-        return cordova.exec(Diagnostic._ensureBoolean(successCallback),
+        return Diagnostic._exec(Diagnostic._ensureBoolean(successCallback),
             errorCallback,
             'Diagnostic_Location',
             'isNetworkLocationAvailable',
@@ -182,7 +182,7 @@ var Diagnostic_Location = (function(){
      *  This callback function is passed a single string parameter containing the error message.
      */
     Diagnostic_Location.isNetworkLocationEnabled = function(successCallback, errorCallback) {
-        return cordova.exec(Diagnostic._ensureBoolean(successCallback),
+        return Diagnostic._exec(Diagnostic._ensureBoolean(successCallback),
             errorCallback,
             'Diagnostic_Location',
             'isNetworkLocationEnabled',
@@ -198,7 +198,7 @@ var Diagnostic_Location = (function(){
      *  This callback function is passed a single string parameter containing the error message.
      */
     Diagnostic_Location.getLocationMode = function(successCallback, errorCallback) {
-        return cordova.exec(successCallback,
+        return Diagnostic._exec(successCallback,
             errorCallback,
             'Diagnostic_Location',
             'getLocationMode',
@@ -294,6 +294,13 @@ var Diagnostic_Location = (function(){
      */
     Diagnostic_Location.registerLocationStateChangeHandler = function(successCallback) {
         Diagnostic_Location._onLocationStateChange = successCallback || function(){};
+        if(successCallback){
+            Diagnostic._subscribeEvents("locationState", function(state){
+                Diagnostic_Location._onLocationStateChange(state);
+            });
+        }else{
+            Diagnostic._unsubscribeEvents("locationState");
+        }
     };
 
     /**
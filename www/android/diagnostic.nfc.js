@@ -60,7 +60,7 @@ var Diagnostic_NFC = (function(){
      *  This callback function is passed a single string parameter containing the error message.
      */
     Diagnostic_NFC.isNFCPresent = function(successCallback, errorCallback) {
-        return cordova.exec(Diagnostic._ensureBoolean(successCallback),
+        return Diagnostic._exec(Diagnostic._ensureBoolean(successCallback),
             errorCallback,
             'Diagnostic_NFC',
             'isNFCPresent',
@@ -76,7 +76,7 @@ var Diagnostic_NFC = (function(){
      *  This callback function is passed a single string parameter containing the error message.
      */
     Diagnostic_NFC.isNFCEnabled = function(successCallback, errorCallback) {
-        return cordova.exec(Diagnostic._ensureBoolean(successCallback),
+        return Diagnostic._exec(Diagnostic._ensureBoolean(successCallback),
             errorCallback,
             'Diagnostic_NFC',
             'isNFCEnabled',
@@ -93,7 +93,7 @@ var Diagnostic_NFC = (function(){
      *  This callback function is passed a single string parameter containing the error message.
      */
     Diagnostic_NFC.isNFCAvailable = function(successCallback, errorCallback) {
-        return cordova.exec(Diagnostic._ensureBoolean(successCallback),
+        return Diagnostic._exec(Diagnostic._ensureBoolean(successCallback),
             errorCallback,
             'Diagnostic_NFC',
             'isNFCAvailable',
@@ -109,6 +109,13 @@ var Diagnostic_NFC = (function(){
      */
     Diagnostic_NFC.registerNFCStateChangeHandler = function(successCallback) {
         Diagnostic_NFC._onNFCStateChange = successCallback || function(){};
+        if(successCallback){
+            Diagnostic._subscribeEvents("nfcState", function(state){
+                Diagnostic_NFC._onNFCStateChange(state);
+            });
+        }else{
+            Diagnostic._unsubscribeEvents("nfcState");
+        }
     };
 
     /**
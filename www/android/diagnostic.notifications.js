@@ -51,7 +51,7 @@ var Diagnostic_Notifications = (function(){
      *  This callback function is passed a single string parameter containing the error message.
      */
     Diagnostic_Notifications.isRemoteNotificationsEnabled = function(successCallback, errorCallback) {
-        return cordova.exec(Diagnostic._ensureBoolean(successCallback),
+        return Diagnostic._exec(Diagnostic._ensureBoolean(successCallback),
             errorCallback,
             'Diagnostic_Notifications',
             'isRemoteNotificationsEnabled',
@@ -95,7 +95,7 @@ var Diagnostic_Notifications = (function(){
      * getDownloadChannels
      */
     Diagnostic_Notifications.getDownloadChannels = function(successCallback, errorCallback, key) {
-        return cordova.exec(successCallback,
+        return Diagnostic._exec(successCallback,
             errorCallback,
             'Diagnostic_Notifications',
             'getDownloadChannels',
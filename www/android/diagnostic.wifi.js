@@ -51,7 +51,7 @@ var Diagnostic_Wifi = (function(){
      *  This callback function is passed a single string parameter containing the error message.
      */
     Diagnostic_Wifi.isWifiAvailable = Diagnostic_Wifi.isWifiEnabled = function(successCallback, errorCallback) {
-        return cordova.exec(successCallback,
+        return Diagnostic._exec(successCallback,
             errorCallback,
             'Diagnostic_Wifi',
             'isWifiAvailable',